@@ -0,0 +1,48 @@
+package io.github.mooeypoo.chatmonitor.bench;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.logging.Logger;
+
+import io.github.mooeypoo.chatmonitor.configs.ConfigurationException;
+import io.github.mooeypoo.chatmonitor.words.WordManager;
+
+/**
+ * Standalone entry point for replaying a corpus outside of a running server.
+ *
+ * Usage: java -cp ChatMonitor.jar io.github.mooeypoo.chatmonitor.bench.BenchmarkMain
+ * [data folder] [corpus file] [optional group file prefix]
+ */
+public final class BenchmarkMain {
+	private static final int TOP_RULES = 20;
+
+	private BenchmarkMain() {
+		// Entry point class should never be constructed
+	}
+
+	public static void main(String[] args) {
+		if (args.length < 2) {
+			System.err.println("Usage: BenchmarkMain <data folder> <corpus file> [group file prefix]");
+			System.exit(1);
+			return;
+		}
+
+		Logger logger = Logger.getLogger("ChatMonitor");
+		Path dataFolder = Paths.get(args[0]);
+
+		try {
+			// Without the ruleset cache, so measuring a folder never writes to it
+			WordManager wordManager = new WordManager(dataFolder, args.length > 2 ? args[2] : WordManager.DEFAULT_PREFIX, logger);
+
+			BenchmarkReport report = new CorpusBenchmark(wordManager).run(Paths.get(args[1]));
+			report.toLines(TOP_RULES).forEach(System.out::println);
+		} catch (ConfigurationException e) {
+			System.err.println("Error in configuration file '" + e.getConfigFileName() + "': " + e.getMessage());
+			System.exit(1);
+		} catch (IOException e) {
+			System.err.println("Could not read corpus: " + e.getMessage());
+			System.exit(1);
+		}
+	}
+}
@@ -0,0 +1,168 @@
+package io.github.mooeypoo.chatmonitor.bench;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.github.mooeypoo.chatmonitor.words.RuleCostRecorder;
+
+/**
+ * Collects the results of a corpus benchmark run. All counters are safe
+ * to update from the fork/join workers concurrently.
+ */
+public class BenchmarkReport implements RuleCostRecorder {
+	private final LongAdder lines = new LongAdder();
+	private final LongAdder matches = new LongAdder();
+	private final LongAdder errors = new LongAdder();
+	private final Map<String, LongAdder> groupMatches = new ConcurrentHashMap<>();
+	private final Map<String, RuleCost> ruleCosts = new ConcurrentHashMap<>();
+	private long elapsedNanos = 0;
+	private boolean truncated = false;
+
+	/**
+	 * Accumulated cost of a single rule across the whole run.
+	 */
+	public static class RuleCost {
+		private final String rule;
+		private final LongAdder nanos = new LongAdder();
+		private final LongAdder evaluations = new LongAdder();
+		private final LongAdder matches = new LongAdder();
+
+		RuleCost(String rule) {
+			this.rule = rule;
+		}
+
+		public String getRule() {
+			return this.rule;
+		}
+
+		public long getNanos() {
+			return this.nanos.sum();
+		}
+
+		public long getEvaluations() {
+			return this.evaluations.sum();
+		}
+
+		public long getMatches() {
+			return this.matches.sum();
+		}
+	}
+
+	@Override
+	public void record(String rule, long nanos, boolean matched) {
+		RuleCost cost = this.ruleCosts.get(rule);
+		if (cost == null) {
+			cost = this.ruleCosts.computeIfAbsent(rule, RuleCost::new);
+		}
+		cost.nanos.add(nanos);
+		cost.evaluations.increment();
+		if (matched) {
+			cost.matches.increment();
+		}
+	}
+
+	void recordLine(String group) {
+		this.lines.increment();
+		if (group != null) {
+			this.matches.increment();
+			this.groupMatches.computeIfAbsent(group, g -> new LongAdder()).increment();
+		}
+	}
+
+	void recordError() {
+		this.lines.increment();
+		this.errors.increment();
+	}
+
+	void markTruncated() {
+		this.truncated = true;
+	}
+
+	void finish(long elapsedNanos) {
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	public long getLines() {
+		return this.lines.sum();
+	}
+
+	public long getMatches() {
+		return this.matches.sum();
+	}
+
+	public long getErrors() {
+		return this.errors.sum();
+	}
+
+	/**
+	 * @return Whether the corpus file ended early, so only the lines before the cut were replayed
+	 */
+	public boolean isTruncated() {
+		return this.truncated;
+	}
+
+	public long getGroupMatches(String group) {
+		LongAdder count = this.groupMatches.get(group);
+		return count == null ? 0 : count.sum();
+	}
+
+	public double getThroughput() {
+		if (this.elapsedNanos == 0) {
+			return 0;
+		}
+		return this.getLines() / (this.elapsedNanos / 1_000_000_000.0);
+	}
+
+	/**
+	 * Get the evaluated rules, most expensive first.
+	 *
+	 * @return Rule costs sorted by the total time spent in each rule
+	 */
+	public List<RuleCost> getRuleCosts() {
+		List<RuleCost> sorted = new ArrayList<>(this.ruleCosts.values());
+		sorted.sort(Comparator.comparingLong(RuleCost::getNanos).reversed());
+		return sorted;
+	}
+
+	/**
+	 * Produce a human readable summary of the run.
+	 *
+	 * @param topRules Maximum number of rules to list in the cost ranking
+	 * @return Lines of the summary, ready to be sent to a console or player
+	 */
+	public List<String> toLines(int topRules) {
+		List<String> output = new ArrayList<>();
+		long total = this.getLines();
+
+		output.add(String.format(
+			"Evaluated %d lines in %.2f ms (%.0f lines/s), %d matched, %d errors.",
+			total, this.elapsedNanos / 1_000_000.0, this.getThroughput(), this.getMatches(), this.getErrors()
+		));
+		if (this.truncated) {
+			output.add("The corpus file is truncated (still being written, or cut off); only the lines before the cut were replayed.");
+		}
+
+		output.add("Match rate per group:");
+		for (Map.Entry<String, LongAdder> entry : this.groupMatches.entrySet()) {
+			long count = entry.getValue().sum();
+			output.add(String.format(
+				"* %s: %d (%.3f%%)", entry.getKey(), count, total == 0 ? 0 : count * 100.0 / total
+			));
+		}
+
+		output.add("Most expensive rules:");
+		List<RuleCost> costs = this.getRuleCosts();
+		for (RuleCost cost : costs.subList(0, Math.min(topRules, costs.size()))) {
+			output.add(String.format(
+				"* %s: %.2f ms over %d evaluations, %d matches",
+				cost.getRule(), cost.getNanos() / 1_000_000.0, cost.getEvaluations(), cost.getMatches()
+			));
+		}
+
+		return output;
+	}
+}
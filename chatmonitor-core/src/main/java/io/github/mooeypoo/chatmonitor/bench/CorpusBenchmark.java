@@ -0,0 +1,171 @@
+package io.github.mooeypoo.chatmonitor.bench;
+
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.zip.GZIPInputStream;
+
+import io.github.mooeypoo.chatmonitor.capture.CapturedMessage;
+
+import io.github.mooeypoo.chatmonitor.words.WordAction;
+import io.github.mooeypoo.chatmonitor.words.WordManager;
+
+/**
+ * Replay a chat corpus (one message per line) against the loaded rules
+ * and measure what the current ruleset costs.
+ *
+ * Files written by the chat capture are replayed as they were captured:
+ * chat against the chat rules, and commands against the rules of the
+ * command. Corpus files ending in {@code .gz} are read compressed; a
+ * compressed file that ends early, like a capture file that is still being
+ * written, is replayed up to where it ends and reported as truncated.
+ *
+ * The corpus is streamed in batches so that files of any size can be
+ * replayed; each batch is evaluated in parallel on a fork/join pool while
+ * the next batch is being read.
+ */
+public class CorpusBenchmark {
+	private static final int BATCH_SIZE = 8192;
+	private static final int SPLIT_THRESHOLD = 256;
+
+	private final WordManager wordManager;
+	private final ForkJoinPool pool;
+
+	public CorpusBenchmark(WordManager wordManager) {
+		this(wordManager, ForkJoinPool.commonPool());
+	}
+
+	public CorpusBenchmark(WordManager wordManager, ForkJoinPool pool) {
+		this.wordManager = wordManager;
+		this.pool = pool;
+	}
+
+	/**
+	 * Replay the given corpus file.
+	 *
+	 * @param corpus Path to a UTF-8 text file with one chat message per line, or a capture file
+	 * @return The collected results
+	 * @throws IOException If the corpus could not be read
+	 */
+	public BenchmarkReport run(Path corpus) throws IOException {
+		BenchmarkReport report = new BenchmarkReport();
+		long start = System.nanoTime();
+
+		try (BufferedReader reader = open(corpus)) {
+			List<String> batch = new ArrayList<>(BATCH_SIZE);
+			ForkJoinTask<Void> pending = null;
+			String line = readLine(reader, report);
+			boolean captured = CapturedMessage.HEADER.equals(line);
+			if (captured) {
+				line = readLine(reader, report);
+			}
+
+			for (; line != null; line = readLine(reader, report)) {
+				if (line.isBlank()) {
+					continue;
+				}
+				batch.add(line);
+
+				if (batch.size() == BATCH_SIZE) {
+					// Keep at most one batch in flight so memory stays bounded
+					if (pending != null) {
+						pending.join();
+					}
+					pending = this.pool.submit(new EvaluateLines(batch, 0, batch.size(), captured, report));
+					batch = new ArrayList<>(BATCH_SIZE);
+				}
+			}
+
+			if (pending != null) {
+				pending.join();
+			}
+			if (!batch.isEmpty()) {
+				this.pool.invoke(new EvaluateLines(batch, 0, batch.size(), captured, report));
+			}
+		}
+
+		report.finish(System.nanoTime() - start);
+		return report;
+	}
+
+	/**
+	 * A compressed file that is still being written, or was cut off by a
+	 * crash, ends without the gzip trailer; the lines up to there are kept.
+	 */
+	private static String readLine(BufferedReader reader, BenchmarkReport report) throws IOException {
+		try {
+			return reader.readLine();
+		} catch (EOFException e) {
+			report.markTruncated();
+			return null;
+		}
+	}
+
+	private static BufferedReader open(Path corpus) throws IOException {
+		InputStream in = Files.newInputStream(corpus);
+		if (corpus.getFileName().toString().endsWith(".gz")) {
+			in = new GZIPInputStream(in);
+		}
+		return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+	}
+
+	private class EvaluateLines extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final transient List<String> lines;
+		private final int from;
+		private final int to;
+		private final boolean captured;
+		private final transient BenchmarkReport report;
+
+		EvaluateLines(List<String> lines, int from, int to, boolean captured, BenchmarkReport report) {
+			this.lines = lines;
+			this.from = from;
+			this.to = to;
+			this.captured = captured;
+			this.report = report;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.to - this.from > SPLIT_THRESHOLD) {
+				int middle = (this.from + this.to) >>> 1;
+				invokeAll(
+					new EvaluateLines(this.lines, this.from, middle, this.captured, this.report),
+					new EvaluateLines(this.lines, middle, this.to, this.captured, this.report)
+				);
+				return;
+			}
+
+			for (int i = this.from; i < this.to; i++) {
+				try {
+					WordAction action = this.captured
+						? this.replay(CapturedMessage.parse(this.lines.get(i)))
+						: wordManager.processAllWords(this.lines.get(i), this.report);
+					this.report.recordLine(action == null ? null : action.getGroup());
+				} catch (Exception e) {
+					this.report.recordError();
+				}
+			}
+		}
+
+		private WordAction replay(CapturedMessage message) throws Exception {
+			if (message == null) {
+				throw new IllegalArgumentException("Not a captured message");
+			}
+			if (message.isCommand()) {
+				return wordManager.processWordsInCommand(message.getCommandName(), message.getMessage(), this.report);
+			}
+			return wordManager.processAllWords(message.getMessage(), this.report);
+		}
+	}
+}
@@ -0,0 +1,134 @@
+package io.github.mooeypoo.chatmonitor.capture;
+
+/**
+ * One line of a capture file: where the text came from, who sent it (as
+ * configured: the name, a hash, or nothing), the world, and the text itself.
+ *
+ * Fields are separated by tabs; tabs, line breaks and backslashes inside
+ * a field are escaped, so every message stays on a single line.
+ */
+public final class CapturedMessage {
+	/**
+	 * First line of every capture file, so readers can tell it from a plain corpus.
+	 */
+	public static final String HEADER = "#chatmonitor-capture 1\tsource\tplayer\tworld\tmessage";
+	public static final String CHAT = "chat";
+	public static final String COMMAND = "command";
+
+	private final String source;
+	private final String player;
+	private final String world;
+	private final String message;
+
+	/**
+	 * @param source  {@link #CHAT} or {@link #COMMAND}
+	 * @param player  The player, as configured; may be empty
+	 * @param world   The world the text was sent in; may be empty
+	 * @param message The text as sent, including the command name for commands
+	 */
+	public CapturedMessage(String source, String player, String world, String message) {
+		this.source = source;
+		this.player = player == null ? "" : player;
+		this.world = world == null ? "" : world;
+		this.message = message;
+	}
+
+	/**
+	 * @param line A line of a capture file, other than the header
+	 * @return The message, or null if the line is not a captured message
+	 */
+	public static CapturedMessage parse(String line) {
+		String[] fields = line.split("\t", -1);
+		if (fields.length != 4) {
+			return null;
+		}
+		return new CapturedMessage(unescape(fields[0]), unescape(fields[1]), unescape(fields[2]), unescape(fields[3]));
+	}
+
+	/**
+	 * @return The message as a line of a capture file, without the line break
+	 */
+	public String toLine() {
+		return escape(this.source) + '\t' + escape(this.player) + '\t' + escape(this.world) + '\t' + escape(this.message);
+	}
+
+	public String getSource() {
+		return this.source;
+	}
+
+	public boolean isCommand() {
+		return COMMAND.equals(this.source);
+	}
+
+	/**
+	 * @return The name of the command, without the slash, or null if this is not a command
+	 */
+	public String getCommandName() {
+		if (!this.isCommand()) {
+			return null;
+		}
+		int end = this.message.indexOf(' ');
+		String name = end < 0 ? this.message : this.message.substring(0, end);
+		return name.startsWith("/") ? name.substring(1) : name;
+	}
+
+	public String getPlayer() {
+		return this.player;
+	}
+
+	public String getWorld() {
+		return this.world;
+	}
+
+	public String getMessage() {
+		return this.message;
+	}
+
+	private static String escape(String field) {
+		StringBuilder escaped = null;
+		for (int i = 0; i < field.length(); i++) {
+			char c = field.charAt(i);
+			String replacement;
+			switch (c) {
+				case '\\': replacement = "\\\\"; break;
+				case '\t': replacement = "\\t"; break;
+				case '\n': replacement = "\\n"; break;
+				case '\r': replacement = "\\r"; break;
+				default: replacement = null;
+			}
+			if (replacement != null && escaped == null) {
+				escaped = new StringBuilder(field.length() + 8).append(field, 0, i);
+			}
+			if (escaped != null) {
+				if (replacement != null) {
+					escaped.append(replacement);
+				} else {
+					escaped.append(c);
+				}
+			}
+		}
+		return escaped == null ? field : escaped.toString();
+	}
+
+	private static String unescape(String field) {
+		if (field.indexOf('\\') < 0) {
+			return field;
+		}
+		StringBuilder unescaped = new StringBuilder(field.length());
+		for (int i = 0; i < field.length(); i++) {
+			char c = field.charAt(i);
+			if (c != '\\' || i + 1 == field.length()) {
+				unescaped.append(c);
+				continue;
+			}
+			char next = field.charAt(++i);
+			switch (next) {
+				case 't': unescaped.append('\t'); break;
+				case 'n': unescaped.append('\n'); break;
+				case 'r': unescaped.append('\r'); break;
+				default: unescaped.append(next);
+			}
+		}
+		return unescaped.toString();
+	}
+}
@@ -0,0 +1,320 @@
+package io.github.mooeypoo.chatmonitor.capture;
+
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes a sample of live chat and commands to disk, as a corpus for the
+ * benchmark and for replay tools.
+ *
+ * Sampled messages are handed to a single background thread through a
+ * bounded queue; when the queue is full the message is left out instead
+ * of waiting. Lines are written to gzip compressed files in the capture
+ * folder. Once a file reaches its size limit a new one is started, and
+ * only the newest files are kept.
+ */
+public class TrafficCapture {
+	public static final String FOLDER = "capture";
+	public static final String PREFIX = "chat-";
+	public static final String SUFFIX = ".tsv.gz";
+	private static final int QUEUE_SIZE = 4096;
+	private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS", Locale.ROOT);
+
+	/**
+	 * How players appear in the capture.
+	 */
+	public enum PlayerNames {
+		/** The player name as is */
+		NAME,
+		/** A short hash of the player id, the same for a player until the capture restarts */
+		HASH,
+		/** Nothing */
+		NONE;
+
+		/**
+		 * @param value Value from the config
+		 * @return The matching mode, or null if unknown
+		 */
+		public static PlayerNames fromConfig(String value) {
+			for (PlayerNames mode : values()) {
+				if (mode.name().equalsIgnoreCase(value)) {
+					return mode;
+				}
+			}
+			return null;
+		}
+	}
+
+	private final Path folder;
+	private final int samplePercent;
+	private final PlayerNames playerNames;
+	private final long maxFileBytes;
+	private final int maxFiles;
+	private final Logger logger;
+	private final byte[] salt = new byte[16];
+	private final ThreadPoolExecutor executor;
+
+	private final LongAdder captured = new LongAdder();
+	private final LongAdder dropped = new LongAdder();
+	private final LongAdder errors = new LongAdder();
+	private final LongAdder files = new LongAdder();
+
+	// Only used by the writer thread
+	private CountingStream counter = null;
+	private BufferedWriter writer = null;
+
+	/**
+	 * @param folder        Folder to write the capture files to
+	 * @param samplePercent Percentage of offered messages to write
+	 * @param playerNames   How players appear in the capture
+	 * @param maxFileBytes  Compressed size after which a new file is started; approximate, since the
+	 *                      writer and the compressor hold some data back before it reaches the file
+	 * @param maxFiles      Number of files to keep; older files are deleted
+	 * @param logger        Logger
+	 */
+	public TrafficCapture(Path folder, int samplePercent, PlayerNames playerNames, long maxFileBytes, int maxFiles, Logger logger) {
+		this.folder = folder;
+		this.samplePercent = Math.max(0, Math.min(100, samplePercent));
+		this.playerNames = playerNames;
+		this.maxFileBytes = Math.max(1, maxFileBytes);
+		this.maxFiles = Math.max(1, maxFiles);
+		this.logger = logger;
+		new SecureRandom().nextBytes(this.salt);
+		this.executor = new ThreadPoolExecutor(
+			1, 1, 0, TimeUnit.MILLISECONDS,
+			new ArrayBlockingQueue<>(QUEUE_SIZE),
+			runnable -> {
+				Thread thread = new Thread(runnable, "ChatMonitor-capture");
+				thread.setDaemon(true);
+				thread.setPriority(Thread.MIN_PRIORITY);
+				return thread;
+			},
+			(runnable, executor) -> this.dropped.increment()
+		) {
+			@Override
+			protected void terminated() {
+				// Runs once the queued messages are written
+				closeQuietly();
+			}
+		};
+	}
+
+	/**
+	 * Offer a message to the capture. Returns at once; the message is
+	 * written in the background, if it is sampled at all.
+	 *
+	 * @param source     {@link CapturedMessage#CHAT} or {@link CapturedMessage#COMMAND}
+	 * @param playerId   The id of the player
+	 * @param playerName The name of the player
+	 * @param worldName  The world the message was sent in, or null
+	 * @param message    The message as sent
+	 */
+	public void offer(String source, UUID playerId, String playerName, String worldName, String message) {
+		if (this.samplePercent < 100 && ThreadLocalRandom.current().nextInt(100) >= this.samplePercent) {
+			return;
+		}
+		if (this.executor.isShutdown()) {
+			return;
+		}
+
+		// Resolve the player now; the line is all the writer needs
+		CapturedMessage line = new CapturedMessage(source, this.describePlayer(playerId, playerName), worldName, message);
+		this.executor.execute(() -> this.write(line));
+	}
+
+	private String describePlayer(UUID playerId, String playerName) {
+		switch (this.playerNames) {
+			case NAME:
+				return playerName;
+			case HASH:
+				return playerId == null ? "" : this.hash(playerId);
+			default:
+				return "";
+		}
+	}
+
+	private String hash(UUID playerId) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			digest.update(this.salt);
+			digest.update(playerId.toString().getBytes(StandardCharsets.UTF_8));
+			byte[] hash = digest.digest();
+			StringBuilder hex = new StringBuilder(12);
+			for (int i = 0; i < 6; i++) {
+				hex.append(String.format("%02x", hash[i]));
+			}
+			return hex.toString();
+		} catch (NoSuchAlgorithmException e) {
+			// Every Java runtime has SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private void write(CapturedMessage message) {
+		try {
+			if (this.writer == null) {
+				this.openFile();
+			}
+			this.writer.write(message.toLine());
+			this.writer.newLine();
+			this.captured.increment();
+
+			if (this.counter.getCount() >= this.maxFileBytes) {
+				this.closeFile();
+			}
+		} catch (IOException e) {
+			if (this.errors.sum() == 0) {
+				this.logger.warning("Could not write chat capture: " + e.getMessage());
+			}
+			this.errors.increment();
+			this.closeQuietly();
+		}
+	}
+
+	private void openFile() throws IOException {
+		Files.createDirectories(this.folder);
+		// The names sort by the time the file was started
+		Path file = this.folder.resolve(String.format(
+			"%s%s-%04d%s", PREFIX, LocalDateTime.now().format(FILE_TIME), this.files.sum() % 10000, SUFFIX
+		));
+		this.counter = new CountingStream(Files.newOutputStream(file));
+		this.writer = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(this.counter), StandardCharsets.UTF_8));
+		this.writer.write(CapturedMessage.HEADER);
+		this.writer.newLine();
+		this.files.increment();
+		this.deleteOldFiles();
+	}
+
+	private void closeFile() throws IOException {
+		BufferedWriter current = this.writer;
+		this.writer = null;
+		this.counter = null;
+		current.close();
+	}
+
+	private void closeQuietly() {
+		if (this.writer == null) {
+			return;
+		}
+		try {
+			this.closeFile();
+		} catch (IOException e) {
+			// Nothing more to write to a broken file
+		}
+	}
+
+	private void deleteOldFiles() throws IOException {
+		List<Path> existing = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(this.folder, PREFIX + "*" + SUFFIX)) {
+			stream.forEach(existing::add);
+		}
+		Collections.sort(existing);
+		for (int i = 0; i < existing.size() - this.maxFiles; i++) {
+			Files.deleteIfExists(existing.get(i));
+		}
+	}
+
+	/**
+	 * Stop capturing and wait for the queued messages to be written
+	 * and the current file to be finished.
+	 *
+	 * @param timeout How long to wait
+	 * @param unit    Unit of the timeout
+	 * @return True if the capture finished in time
+	 * @throws InterruptedException If interrupted while waiting
+	 */
+	public boolean close(long timeout, TimeUnit unit) throws InterruptedException {
+		this.executor.shutdown();
+		return this.executor.awaitTermination(timeout, unit);
+	}
+
+	/**
+	 * Stop capturing. The queued messages are still written, and the
+	 * current file finished, in the background.
+	 */
+	public void stop() {
+		this.executor.shutdown();
+	}
+
+	public Path getFolder() {
+		return this.folder;
+	}
+
+	public int getSamplePercent() {
+		return this.samplePercent;
+	}
+
+	public PlayerNames getPlayerNames() {
+		return this.playerNames;
+	}
+
+	public long getCaptured() {
+		return this.captured.sum();
+	}
+
+	public long getDropped() {
+		return this.dropped.sum();
+	}
+
+	public long getErrors() {
+		return this.errors.sum();
+	}
+
+	/**
+	 * @return Number of files started since the capture began
+	 */
+	public long getFileCount() {
+		return this.files.sum();
+	}
+
+	/**
+	 * Counts the compressed bytes that reach the file.
+	 */
+	private static class CountingStream extends FilterOutputStream {
+		private long count = 0;
+
+		CountingStream(OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			this.out.write(b);
+			this.count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			this.out.write(b, off, len);
+			this.count += len;
+		}
+
+		long getCount() {
+			return this.count;
+		}
+	}
+}
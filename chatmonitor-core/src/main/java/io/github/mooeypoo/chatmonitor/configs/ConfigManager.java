@@ -0,0 +1,287 @@
+package io.github.mooeypoo.chatmonitor.configs;
+
+import static java.util.Collections.emptySet;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class ConfigManager {
+	private static final int MAX_LOADER_THREADS = 8;
+
+    private Path dataFolder;
+	private String prefix;
+	private RulesetCache cache;
+	private volatile boolean loadedFromCache = false;
+	private volatile byte[] groupsHash = null;
+	private volatile IOException cacheError = null;
+	private ConfigLoader<PluginConfigInterface> mainConfig = null;
+	// Replaced as a whole on reload, so readers on other threads never see a half-loaded set of groups
+	private volatile Map<String, GroupConfigInterface> configs = new HashMap<>();
+	private volatile List<ConfigurationException> groupErrors = new ArrayList<>();
+
+	public ConfigManager(Path dataFolder, String prefix) throws ConfigurationException {
+		this(dataFolder, prefix, null);
+	}
+
+	public ConfigManager(Path dataFolder, String prefix, RulesetCache cache) throws ConfigurationException {
+        this.dataFolder = dataFolder;
+        this.prefix = prefix;
+        this.cache = cache;
+        this.reload();
+    }
+
+	public synchronized void reload() throws ConfigurationException {
+		// Main config
+		if (this.mainConfig == null) {
+			this.mainConfig = ConfigLoader.create(this.dataFolder, "config.yml", PluginConfigInterface.class);
+		}
+		this.mainConfig.reloadConfig();
+
+		// Group configs
+		Map<String, GroupConfigInterface> configs = new HashMap<>();
+		List<ConfigurationException> groupErrors = new ArrayList<>();
+
+		Map<String, Path> groupFiles = new LinkedHashMap<>();
+		for (String groupName : this.mainConfig.getConfigData().groups()) {
+			groupFiles.put(groupName, this.dataFolder.resolve(this.getGroupFileName(groupName)));
+		}
+
+		byte[] hash = this.hashGroupFiles(groupFiles);
+		if (hash != null) {
+			Map<String, GroupConfigInterface> cached = this.cache.read(hash);
+			if (cached != null && cached.keySet().equals(groupFiles.keySet())) {
+				configs.putAll(cached);
+				this.swapGroups(configs, groupErrors, true);
+				this.groupsHash = hash;
+				return;
+			}
+		}
+
+		this.loadGroups(groupFiles.keySet(), configs, groupErrors);
+		this.swapGroups(configs, groupErrors, false);
+		this.groupsHash = null;
+		if (!groupErrors.isEmpty()) {
+			// Don't cache groups that fell back to defaults
+			return;
+		}
+
+		// Hash again for writing; loading may have filled in missing files or keys
+		hash = this.hashGroupFiles(groupFiles);
+		if (hash != null) {
+			try {
+				this.cache.write(hash, configs);
+				this.groupsHash = hash;
+				this.cacheError = null;
+			} catch (IOException e) {
+				// Not fatal; the groups will be parsed again on the next load
+				this.cacheError = e;
+			}
+		}
+	}
+
+	/**
+	 * Parse and validate the group files concurrently on a bounded pool.
+	 * A broken file does not stop the other groups from loading; its error
+	 * is collected, and the group uses its defaults if they could be loaded.
+	 *
+	 * @param groupNames  Names of the groups to load
+	 * @param configs     Receives the loaded groups
+	 * @param groupErrors Receives the errors of the groups that failed
+	 */
+	private void loadGroups(Set<String> groupNames, Map<String, GroupConfigInterface> configs, List<ConfigurationException> groupErrors) {
+		if (groupNames.isEmpty()) {
+			return;
+		}
+
+		List<Callable<GroupConfigInterface>> tasks = new ArrayList<>();
+		List<ConfigLoader<GroupConfigInterface>> loaders = new ArrayList<>();
+		for (String groupName : groupNames) {
+			ConfigLoader<GroupConfigInterface> groupConfig = ConfigLoader.create(
+				dataFolder,
+				this.getGroupFileName(groupName),
+				GroupConfigInterface.class
+			);
+			loaders.add(groupConfig);
+			tasks.add(() -> {
+				groupConfig.reloadConfig();
+				return GroupConfigSnapshot.of(groupConfig.getConfigData());
+			});
+		}
+
+		int threads = Math.min(groupNames.size(), Math.min(MAX_LOADER_THREADS, Runtime.getRuntime().availableProcessors()));
+		ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "ChatMonitor-config-loader");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		try {
+			List<Future<GroupConfigInterface>> results = pool.invokeAll(tasks);
+			int i = 0;
+			for (String groupName : groupNames) {
+				this.collectGroup(groupName, loaders.get(i), results.get(i), configs, groupErrors);
+				i++;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	private void collectGroup(
+		String groupName,
+		ConfigLoader<GroupConfigInterface> loader,
+		Future<GroupConfigInterface> result,
+		Map<String, GroupConfigInterface> configs,
+		List<ConfigurationException> groupErrors
+	) throws InterruptedException {
+		try {
+			configs.put(groupName, result.get());
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			ConfigurationException error = cause instanceof ConfigurationException
+				? (ConfigurationException) cause
+				: new ConfigurationException(
+					this.getGroupFileName(groupName), "There was a problem loading this file.",
+					cause instanceof Exception ? (Exception) cause : null
+				);
+			groupErrors.add(error);
+
+			try {
+				// The loader falls back to defaults for malformed files
+				configs.put(groupName, GroupConfigSnapshot.of(loader.getConfigData()));
+			} catch (ConfigurationException notLoaded) {
+				// Nothing usable for this group
+			}
+		}
+	}
+
+	/**
+	 * Make the newly loaded groups visible, all at once.
+	 *
+	 * @param configs         The loaded groups
+	 * @param groupErrors     The errors of the groups that failed
+	 * @param loadedFromCache Whether the groups came from the ruleset cache
+	 */
+	private void swapGroups(Map<String, GroupConfigInterface> configs, List<ConfigurationException> groupErrors, boolean loadedFromCache) {
+		this.groupErrors = groupErrors;
+		this.loadedFromCache = loadedFromCache;
+		this.configs = configs;
+	}
+
+	/**
+	 * Hash the group files for the ruleset cache.
+	 *
+	 * @param groupFiles Group names mapped to their config files
+	 * @return The content hash, or null if caching is disabled or not possible right now
+	 */
+	private byte[] hashGroupFiles(Map<String, Path> groupFiles) {
+		if (this.cache == null) {
+			return null;
+		}
+
+		try {
+			return RulesetCache.hashGroupFiles(groupFiles);
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	private String getGroupFileName(String groupName) {
+		return this.prefix + "_" + groupName + ".yml";
+	}
+
+	/**
+	 * @param groupName Name of a group
+	 * @return The config file of the group
+	 */
+	public Path getGroupFile(String groupName) {
+		return this.dataFolder.resolve(this.getGroupFileName(groupName));
+	}
+
+	/**
+	 * @return The folder that holds the config files
+	 */
+	public Path getDataFolder() {
+		return this.dataFolder;
+	}
+
+	public ConfigLoader<PluginConfigInterface> getMainConfig() {
+		return this.mainConfig;
+	}
+
+	public Map<String, GroupConfigInterface> getGroupConfigs() {
+		return this.configs;
+	}
+
+	/**
+	 * @return The cache of the parsed word groups, or null if caching is disabled
+	 */
+	public RulesetCache getCache() {
+		return this.cache;
+	}
+
+	/**
+	 * @return Hash of the group files the current groups were loaded from, if they
+	 * are in the ruleset cache; null otherwise
+	 */
+	public byte[] getGroupsHash() {
+		return this.groupsHash;
+	}
+
+	/**
+	 * @return Why the ruleset cache could not be written on the last reload that
+	 * parsed the groups, or null if it was written
+	 */
+	public IOException getCacheError() {
+		return this.cacheError;
+	}
+
+	/**
+	 * Whether the group configs of the last reload were restored from the ruleset cache
+	 * instead of being parsed from their files.
+	 *
+	 * @return True if the ruleset cache was used
+	 */
+	public boolean isLoadedFromCache() {
+		return this.loadedFromCache;
+	}
+
+	/**
+	 * Get the errors of the group files that failed to load on the last reload.
+	 *
+	 * @return One exception per group file that failed
+	 */
+	public List<ConfigurationException> getGroupErrors() {
+		return this.groupErrors;
+	}
+
+	public Set<String> getGroupNames() {
+		return this.configs.keySet();
+	}
+
+	public GroupConfigInterface getGroupConfigData(String groupName) throws ConfigurationException {
+		return this.configs.get(groupName);
+	}
+
+	public Set<String> getGroupWords(String groupName) throws ConfigurationException {
+		GroupConfigInterface groupConfigData = this.getGroupConfigData(groupName);
+		if (groupConfigData == null) {
+			return emptySet();
+		}
+
+		return groupConfigData.words();
+	}
+}
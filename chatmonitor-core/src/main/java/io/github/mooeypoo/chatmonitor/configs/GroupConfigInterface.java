@@ -4,6 +4,7 @@ import java.util.Set;
 
 import space.arim.dazzleconf.annote.ConfComments;
 import space.arim.dazzleconf.annote.ConfDefault.DefaultBoolean;
+import space.arim.dazzleconf.annote.ConfDefault.DefaultInteger;
 import space.arim.dazzleconf.annote.ConfDefault.DefaultString;
 import space.arim.dazzleconf.annote.ConfDefault.DefaultStrings;
 import space.arim.dazzleconf.annote.ConfKey;
@@ -15,8 +16,15 @@ public interface GroupConfigInterface {
 	 * message: String
 	 * preventsend: Boolean
 	 * broadcast: Boolean
+	 * broadcastimmediately: Boolean
+	 * muteseconds: Integer
 	 * includecommands: List<String>
+	 * includesources: List<String>
 	 * words: List<string>
+	 * literals: List<String>
+	 * wordfiles: List<String>
+	 * worlds: List<String>
+	 * exceptions: List<String>
 	 */
 	
 	@ConfKey("message")
@@ -51,12 +59,36 @@ public interface GroupConfigInterface {
 	})
 	@DefaultBoolean(false)
 	Boolean broadcast();
+
+	@ConfKey("broadcastimmediately")
+	@ConfComments({
+		"Broadcast every match of this group right away, even if 'digestseconds' in the main config",
+		"folds broadcasts into digests."
+	})
+	@DefaultBoolean(false)
+	Boolean broadcastImmediately();
+
+	@ConfKey("muteseconds")
+	@ConfComments({
+		"Mute the player for this many seconds after a match. While muted, their chat messages (and the",
+		"commands that word groups check) are blocked. Mutes are kept across restarts. Set to 0 to not mute."
+	})
+	@DefaultInteger(0)
+	Integer muteSeconds();
 	
 	@ConfKey("includecommands")
 	@ConfComments("A list of commands the plugin should look into when searching for word matches. Do not include the slash (Example: - tell)")
 	@DefaultStrings({"tell"})
 	Set<String> includeCommands();
 
+	@ConfKey("includesources")
+	@ConfComments({
+		"A list of other places the plugin should look into for word matches, besides chat and commands.",
+		"Possible values: sign (text written on signs), book (pages and titles of books) and anvil (item renames)."
+	})
+	@DefaultStrings({})
+	Set<String> includeSources();
+
 	@ConfKey("words")
 	@ConfComments({
 		"A list of words to trigger the behavior of this group. This is a regular expression list.",
@@ -67,6 +99,40 @@ public interface GroupConfigInterface {
 	@DefaultStrings({})
 	Set<String> words();
 
+	@ConfKey("literals")
+	@ConfComments({
+		"A list of plain words or phrases to trigger the behavior of this group. These are not regular expressions.",
+		"Literals match anywhere in the string and ignore case, like plain entries in 'words', but are stored in a",
+		"compact tree that is scanned in a single pass. Use this list for large imported block lists."
+	})
+	@DefaultStrings({})
+	Set<String> literals();
+
+	@ConfKey("wordfiles")
+	@ConfComments({
+		"A list of plain-text word list files, relative to the plugin folder (Example: - lists/blocklist.txt).",
+		"Each line of a file is one entry, handled like the entries in 'literals'. Empty lines and lines",
+		"starting with # are ignored. Files are only read again on reload if they changed."
+	})
+	@DefaultStrings({})
+	Set<String> wordFiles();
+
+	@ConfKey("worlds")
+	@ConfComments({
+		"A list of worlds this group applies to (Example: - world_nether). Chat and commands of players in other",
+		"worlds are not tested against the words of this group. Leave empty to apply the group in all worlds."
+	})
+	@DefaultStrings({})
+	Set<String> worlds();
+
+	@ConfKey("exceptions")
+	@ConfComments({
+		"A list of allowed words or phrases, matched like 'literals' (Example: - scunthorpe). A match of this group",
+		"that falls inside one of them is ignored, so rules don't need lookarounds to avoid false positives."
+	})
+	@DefaultStrings({})
+	Set<String> exceptions();
+
 	@ConfKey("runcommands")
 	@ConfComments({
 		"A list of raw commands to execute after a word is matched. Each entry will be executed after the word is matched.",
@@ -0,0 +1,150 @@
+package io.github.mooeypoo.chatmonitor.configs;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * An immutable, plain copy of a group configuration.
+ *
+ * Used when the group data does not come straight from its yaml file,
+ * for example when it was restored from the ruleset cache.
+ */
+public class GroupConfigSnapshot implements GroupConfigInterface {
+	private final String message;
+	private final boolean preventSend;
+	private final boolean broadcast;
+	private final boolean broadcastImmediately;
+	private final int muteSeconds;
+	private final Set<String> includeCommands;
+	private final Set<String> includeSources;
+	private final Set<String> words;
+	private final Set<String> literals;
+	private final Set<String> wordFiles;
+	private final Set<String> worlds;
+	private final Set<String> exceptions;
+	private final Set<String> runCommands;
+
+	public GroupConfigSnapshot(
+			String message,
+			boolean preventSend,
+			boolean broadcast,
+			boolean broadcastImmediately,
+			int muteSeconds,
+			Set<String> includeCommands,
+			Set<String> includeSources,
+			Set<String> words,
+			Set<String> literals,
+			Set<String> wordFiles,
+			Set<String> worlds,
+			Set<String> exceptions,
+			Set<String> runCommands
+	) {
+		this.message = message;
+		this.preventSend = preventSend;
+		this.broadcast = broadcast;
+		this.broadcastImmediately = broadcastImmediately;
+		this.muteSeconds = muteSeconds;
+		this.includeCommands = copyOf(includeCommands);
+		this.includeSources = copyOf(includeSources);
+		this.words = copyOf(words);
+		this.literals = copyOf(literals);
+		this.wordFiles = copyOf(wordFiles);
+		this.worlds = copyOf(worlds);
+		this.exceptions = copyOf(exceptions);
+		this.runCommands = copyOf(runCommands);
+	}
+
+	/**
+	 * Copy the values of the given group configuration.
+	 *
+	 * @param config Group configuration, usually backed by a config file
+	 * @return A snapshot of the configuration values
+	 */
+	public static GroupConfigSnapshot of(GroupConfigInterface config) {
+		return new GroupConfigSnapshot(
+			config.message(),
+			config.preventSend(),
+			config.broadcast(),
+			config.broadcastImmediately(),
+			config.muteSeconds(),
+			config.includeCommands(),
+			config.includeSources(),
+			config.words(),
+			config.literals(),
+			config.wordFiles(),
+			config.worlds(),
+			config.exceptions(),
+			config.runCommands()
+		);
+	}
+
+	private static Set<String> copyOf(Set<String> values) {
+		return Collections.unmodifiableSet(new LinkedHashSet<>(values));
+	}
+
+	@Override
+	public String message() {
+		return this.message;
+	}
+
+	@Override
+	public Boolean preventSend() {
+		return this.preventSend;
+	}
+
+	@Override
+	public Boolean broadcast() {
+		return this.broadcast;
+	}
+
+	@Override
+	public Boolean broadcastImmediately() {
+		return this.broadcastImmediately;
+	}
+
+	@Override
+	public Integer muteSeconds() {
+		return this.muteSeconds;
+	}
+
+	@Override
+	public Set<String> includeCommands() {
+		return this.includeCommands;
+	}
+
+	@Override
+	public Set<String> includeSources() {
+		return this.includeSources;
+	}
+
+	@Override
+	public Set<String> words() {
+		return this.words;
+	}
+
+	@Override
+	public Set<String> literals() {
+		return this.literals;
+	}
+
+	@Override
+	public Set<String> wordFiles() {
+		return this.wordFiles;
+	}
+
+	@Override
+	public Set<String> worlds() {
+		return this.worlds;
+	}
+
+	@Override
+	public Set<String> exceptions() {
+		return this.exceptions;
+	}
+
+	@Override
+	public Set<String> runCommands() {
+		return this.runCommands;
+	}
+}
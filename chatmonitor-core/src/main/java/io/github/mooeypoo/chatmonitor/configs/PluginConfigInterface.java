@@ -0,0 +1,157 @@
+package io.github.mooeypoo.chatmonitor.configs;
+
+import java.util.Set;
+
+import space.arim.dazzleconf.annote.ConfComments;
+import space.arim.dazzleconf.annote.ConfKey;
+import space.arim.dazzleconf.annote.ConfDefault.DefaultBoolean;
+import space.arim.dazzleconf.annote.ConfDefault.DefaultInteger;
+import space.arim.dazzleconf.annote.ConfDefault.DefaultString;
+import space.arim.dazzleconf.annote.ConfDefault.DefaultStrings;
+
+public interface PluginConfigInterface {
+	/*
+	 * Config file fileds
+	 * ---
+	 * defaultmessage: String
+	 * groups: List<String>
+	 * overloadlatency: Integer
+	 * overloadinflight: Integer
+	 * overloadholdnewplayers: Boolean
+	 * overloadnewplayerminutes: Integer
+	 * metricsport: Integer
+	 * shadowsamplepercent: Integer
+	 * capturepercent: Integer
+	 * captureplayers: String
+	 * capturefilekb: Integer
+	 * capturefiles: Integer
+	 * crossmessageseconds: Integer
+	 * raidthreshold: Integer
+	 * raidseconds: Integer
+	 * raidgroup: String
+	 * parallelrules: Integer
+	 * parallellength: Integer
+	 * digestseconds: Integer
+	 * digestpermission: String
+	 */
+	@ConfKey("defaultmessage")
+	@ConfComments("Default message to display to the user (or broadcast in general chat) if a word in any of the group lists matches user text. This message will be used if any of the groups uses an empty message.")
+	@DefaultString("This word (\"%word%\") is not allowed on this server.")
+	String defaultMessage();
+
+	@ConfKey("groups")
+	@ConfComments({
+		"A list of word-groups to use. Each group requires a separate config file.",
+		"the config files will be auto-generated on first-run of this list if they don't already exist,",
+		"and can be then edited to add specific behavior and a list of match words."
+	})
+	@DefaultStrings({"list"})
+	Set<String> groups();
+
+	@ConfKey("overloadlatency")
+	@ConfComments({
+		"Average time, in microseconds, that checking a chat message may take before the plugin switches to a degraded mode.",
+		"In degraded mode (for example during a bot raid), messages only get the cheap checks: plain whole words and literals,",
+		"and recently seen messages are answered from a cache. Regular expression rules are skipped. Full checks resume",
+		"automatically once the load is back to normal. Set to 0 to ignore the latency."
+	})
+	@DefaultInteger(5000)
+	Integer overloadLatency();
+
+	@ConfKey("overloadinflight")
+	@ConfComments("Number of chat messages checked at the same time before the plugin switches to degraded mode. Set to 0 to ignore.")
+	@DefaultInteger(64)
+	Integer overloadInFlight();
+
+	@ConfKey("overloadholdnewplayers")
+	@ConfComments({
+		"Whether to hold back chat messages from new players while in degraded mode. Players with the",
+		"chatmonitor.trusted permission are never held back."
+	})
+	@DefaultBoolean(false)
+	Boolean overloadHoldNewPlayers();
+
+	@ConfKey("overloadnewplayerminutes")
+	@ConfComments("How long, in minutes since their first join, a player counts as new for 'overloadholdnewplayers'.")
+	@DefaultInteger(30)
+	Integer overloadNewPlayerMinutes();
+
+	@ConfKey("metricsport")
+	@ConfComments({
+		"Local port to serve metrics on, in Prometheus text format, at http://127.0.0.1:<port>/metrics.",
+		"0 disables the metrics endpoint."
+	})
+	@DefaultInteger(0)
+	Integer metricsPort();
+
+	@ConfKey("shadowsamplepercent")
+	@ConfComments("Percentage of chat messages also checked against a candidate ruleset loaded with '/chatmonitor shadow load'.")
+	@DefaultInteger(10)
+	Integer shadowSamplePercent();
+
+	@ConfKey("capturepercent")
+	@ConfComments({
+		"Percentage of chat messages (and checked commands) to write to compressed files in the 'capture' folder,",
+		"as a corpus for '/chatmonitor bench'. 0 disables the capture."
+	})
+	@DefaultInteger(0)
+	Integer capturePercent();
+
+	@ConfKey("captureplayers")
+	@ConfComments({
+		"How players appear in the capture: 'hash' for a short hash that changes on every restart,",
+		"'name' for the player name, or 'none'."
+	})
+	@DefaultString("hash")
+	String capturePlayers();
+
+	@ConfKey("capturefilekb")
+	@ConfComments("Compressed size, in KiB, after which a new capture file is started. The size is checked as compressed data reaches the file, so a file can end up somewhat larger; small values overshoot the most.")
+	@DefaultInteger(1024)
+	Integer captureFileKb();
+
+	@ConfKey("capturefiles")
+	@ConfComments("Number of capture files to keep; the oldest are deleted.")
+	@DefaultInteger(10)
+	Integer captureFiles();
+
+	@ConfKey("crossmessageseconds")
+	@ConfComments("Also match words that a player splits across several chat messages sent within this many seconds of each other. 0 turns this off.")
+	@DefaultInteger(0)
+	Integer crossMessageSeconds();
+
+	@ConfKey("raidthreshold")
+	@ConfComments("Number of copies of the same chat message, from any players, allowed within 'raidseconds'. Further copies get the action of 'raidgroup'. 0 turns raid detection off.")
+	@DefaultInteger(0)
+	Integer raidThreshold();
+
+	@ConfKey("raidseconds")
+	@ConfComments("Length, in seconds, of the window copies of a message are counted in.")
+	@DefaultInteger(60)
+	Integer raidSeconds();
+
+	@ConfKey("raidgroup")
+	@ConfComments("Name of the word group whose message, preventsend, broadcast, muteseconds and runcommands apply to raid copies. The group must be listed in 'groups'.")
+	@DefaultString("")
+	String raidGroup();
+
+	@ConfKey("parallelrules")
+	@ConfComments("Check the regular expression rules of a group list in parallel, on a pool of its own, once it has at least this many of them. 0 always checks rules one after another.")
+	@DefaultInteger(0)
+	Integer parallelRules();
+
+	@ConfKey("parallellength")
+	@ConfComments("Only messages and commands of at least this many characters are checked in parallel; shorter ones are cheaper to check one rule after another.")
+	@DefaultInteger(128)
+	Integer parallelLength();
+
+	@ConfKey("digestseconds")
+	@ConfComments("Collect the broadcasts of matches and send them once every this many seconds, as one line per group (\"12 messages blocked from 7 players in group offensive\"). Groups with 'broadcastimmediately: true' still broadcast right away. 0 broadcasts every match right away.")
+	@DefaultInteger(0)
+	Integer digestSeconds();
+
+	@ConfKey("digestpermission")
+	@ConfComments("Only players with this permission get the digests. Leave empty to send them to everyone.")
+	@DefaultString("")
+	String digestPermission();
+}
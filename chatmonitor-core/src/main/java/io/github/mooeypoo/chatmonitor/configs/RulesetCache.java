@@ -0,0 +1,217 @@
+package io.github.mooeypoo.chatmonitor.configs;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Binary cache of the parsed word groups, stored in the data folder.
+ * The tries built from the groups are cached next to it, under the same
+ * engine version.
+ *
+ * Parsing every group file through dazzleconf is the expensive part of
+ * startup and reload. The cache is keyed by a hash of the engine version
+ * and the raw content of every group file, so it is only used when none
+ * of the files changed since it was written; otherwise the groups are
+ * parsed in full and the cache is rewritten.
+ */
+public class RulesetCache {
+	/**
+	 * Bump whenever the cached structure changes, to invalidate existing cache files.
+	 */
+	public static final int ENGINE_VERSION = 9;
+	private static final int MAGIC = 0x434D5243; // "CMRC"
+	private static final int HASH_LENGTH = 32;
+
+	private final Path cacheFile;
+
+	public RulesetCache(Path cacheFile) {
+		this.cacheFile = cacheFile;
+	}
+
+	public Path getCacheFile() {
+		return this.cacheFile;
+	}
+
+	/**
+	 * Hash the content of the given group files together with the engine version.
+	 *
+	 * @param groupFiles Group names mapped to their config files
+	 * @return The content hash, or null if any of the files does not exist yet
+	 * @throws IOException If a file could not be read
+	 */
+	public static byte[] hashGroupFiles(Map<String, Path> groupFiles) throws IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+
+		digest.update(ByteBuffer.allocate(4).putInt(ENGINE_VERSION).array());
+
+		// Sort for a stable key regardless of the order groups are listed in
+		List<String> names = groupFiles.keySet().stream().sorted().toList();
+		byte[] buffer = new byte[8192];
+		for (String name : names) {
+			Path file = groupFiles.get(name);
+			if (!Files.isRegularFile(file)) {
+				return null;
+			}
+			digest.update(name.getBytes(StandardCharsets.UTF_8));
+			digest.update((byte) 0);
+			try (InputStream in = Files.newInputStream(file)) {
+				int read;
+				while ((read = in.read(buffer)) != -1) {
+					digest.update(buffer, 0, read);
+				}
+			}
+			digest.update((byte) 0);
+		}
+
+		return digest.digest();
+	}
+
+	/**
+	 * Read the cached groups, if the cache was written for the given hash.
+	 *
+	 * @param hash Expected content hash
+	 * @return Group data by group name, or null if the cache is missing, stale or unreadable
+	 */
+	public Map<String, GroupConfigInterface> read(byte[] hash) {
+		if (hash == null || !Files.isRegularFile(this.cacheFile)) {
+			return null;
+		}
+
+		try {
+			// Read into the heap instead of mapping the file: a mapping stays
+			// alive until it is collected, and on Windows a mapped file can't
+			// be replaced when the cache is written again
+			ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(this.cacheFile));
+
+			if (buffer.getInt() != MAGIC || buffer.getInt() != ENGINE_VERSION) {
+				return null;
+			}
+			byte[] storedHash = new byte[HASH_LENGTH];
+			buffer.get(storedHash);
+			if (!Arrays.equals(storedHash, hash)) {
+				return null;
+			}
+
+			int groupCount = buffer.getInt();
+			Map<String, GroupConfigInterface> groups = new HashMap<>();
+			for (int i = 0; i < groupCount; i++) {
+				String name = readString(buffer);
+				groups.put(name, new GroupConfigSnapshot(
+					readString(buffer),
+					buffer.get() != 0,
+					buffer.get() != 0,
+					buffer.get() != 0,
+					buffer.getInt(),
+					readStrings(buffer),
+					readStrings(buffer),
+					readStrings(buffer),
+					readStrings(buffer),
+					readStrings(buffer),
+					readStrings(buffer),
+					readStrings(buffer),
+					readStrings(buffer)
+				));
+			}
+			return groups;
+		} catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+			// A broken cache is never fatal; the groups are parsed from their files instead
+			return null;
+		}
+	}
+
+	/**
+	 * Write the given groups to the cache file, replacing any previous cache.
+	 *
+	 * @param hash   Content hash the groups were parsed from
+	 * @param groups Group data by group name
+	 * @throws IOException If the cache could not be written
+	 */
+	public void write(byte[] hash, Map<String, GroupConfigInterface> groups) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeInt(MAGIC);
+			out.writeInt(ENGINE_VERSION);
+			out.write(hash);
+			out.writeInt(groups.size());
+			for (Map.Entry<String, GroupConfigInterface> entry : groups.entrySet()) {
+				GroupConfigInterface group = entry.getValue();
+				writeString(out, entry.getKey());
+				writeString(out, group.message());
+				out.writeBoolean(group.preventSend());
+				out.writeBoolean(group.broadcast());
+				out.writeBoolean(group.broadcastImmediately());
+				out.writeInt(group.muteSeconds());
+				writeStrings(out, group.includeCommands());
+				writeStrings(out, group.includeSources());
+				writeStrings(out, group.words());
+				writeStrings(out, group.literals());
+				writeStrings(out, group.wordFiles());
+				writeStrings(out, group.worlds());
+				writeStrings(out, group.exceptions());
+				writeStrings(out, group.runCommands());
+			}
+		}
+
+		// Write next to the cache and move it in place, so a reader never sees a partial file
+		Path temp = this.cacheFile.resolveSibling(this.cacheFile.getFileName() + ".tmp");
+		Files.write(temp, bytes.toByteArray());
+		Files.move(temp, this.cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(encoded.length);
+		out.write(encoded);
+	}
+
+	private static void writeStrings(DataOutputStream out, Set<String> values) throws IOException {
+		out.writeInt(values.size());
+		for (String value : values) {
+			writeString(out, value);
+		}
+	}
+
+	private static String readString(ByteBuffer buffer) {
+		int length = buffer.getInt();
+		if (length < 0 || length > buffer.remaining()) {
+			throw new IllegalArgumentException("Corrupt string length in ruleset cache");
+		}
+		ByteBuffer slice = buffer.slice();
+		slice.limit(length);
+		buffer.position(buffer.position() + length);
+		return StandardCharsets.UTF_8.decode(slice).toString();
+	}
+
+	private static Set<String> readStrings(ByteBuffer buffer) {
+		int count = buffer.getInt();
+		if (count < 0) {
+			throw new IllegalArgumentException("Corrupt list length in ruleset cache");
+		}
+		Set<String> values = new LinkedHashSet<>();
+		for (int i = 0; i < count; i++) {
+			values.add(readString(buffer));
+		}
+		return values;
+	}
+}
@@ -0,0 +1,93 @@
+package io.github.mooeypoo.chatmonitor.digest;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects the broadcasts of word group matches, to send them as a digest:
+ * one line per group for each interval, like "12 messages blocked from 7
+ * players in group offensive", instead of one broadcast per match. A group
+ * with a single match in the interval gets its response as usual.
+ *
+ * Matches can be added from any thread; the digest is taken by the task
+ * that sends it.
+ */
+public class BroadcastDigest {
+	private final Map<String, Tally> tallies = new LinkedHashMap<>();
+	private final LongAdder folded = new LongAdder();
+
+	/**
+	 * @param group    Name of the group that matched
+	 * @param blocked  Whether the message was blocked
+	 * @param playerId The player who sent the message
+	 * @param response The response that would have been broadcast
+	 */
+	public synchronized void add(String group, boolean blocked, UUID playerId, String response) {
+		Tally tally = this.tallies.computeIfAbsent(group, g -> new Tally(response));
+		tally.messages++;
+		if (blocked) {
+			tally.blocked++;
+		}
+		tally.players.add(playerId);
+		this.folded.increment();
+	}
+
+	/**
+	 * Take the lines of the digest, and start a new one.
+	 *
+	 * @return One line per group that matched since the last digest, in the order the groups first matched
+	 */
+	public List<String> drain() {
+		List<Map.Entry<String, Tally>> entries;
+		synchronized (this) {
+			if (this.tallies.isEmpty()) {
+				return List.of();
+			}
+			entries = new ArrayList<>(this.tallies.entrySet());
+			this.tallies.clear();
+		}
+
+		List<String> lines = new ArrayList<>(entries.size());
+		for (Map.Entry<String, Tally> entry : entries) {
+			Tally tally = entry.getValue();
+			if (tally.messages == 1) {
+				lines.add(tally.firstResponse);
+				continue;
+			}
+			int players = tally.players.size();
+			lines.add(String.format(
+				"%d messages %s from %d %s in group %s",
+				tally.messages,
+				tally.blocked == tally.messages ? "blocked" : "caught",
+				players,
+				players == 1 ? "player" : "players",
+				entry.getKey()
+			));
+		}
+		return lines;
+	}
+
+	/**
+	 * @return Number of broadcasts added to digests so far
+	 */
+	public long getFolded() {
+		return this.folded.sum();
+	}
+
+	private static class Tally {
+		private final String firstResponse;
+		private final Set<UUID> players = new HashSet<>();
+		private int messages = 0;
+		private int blocked = 0;
+
+		Tally(String firstResponse) {
+			this.firstResponse = firstResponse;
+		}
+	}
+}
@@ -0,0 +1,26 @@
+package io.github.mooeypoo.chatmonitor.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event for running one of the commands of a matched group.
+ */
+@Name("io.github.mooeypoo.chatmonitor.Dispatch")
+@Label("ChatMonitor Command Dispatch")
+@Category("ChatMonitor")
+@StackTrace(false)
+@Threshold("1 ms")
+public class DispatchEvent extends jdk.jfr.Event {
+	@Label("Command")
+	public String command;
+
+	@Label("Group")
+	public String group;
+
+	@Label("On Main Thread")
+	public boolean mainThread;
+}
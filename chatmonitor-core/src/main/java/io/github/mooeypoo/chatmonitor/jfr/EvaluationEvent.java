@@ -0,0 +1,34 @@
+package io.github.mooeypoo.chatmonitor.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event for checking one piece of text against a rule set.
+ * The text is checked exactly as without a recording; the cost of each
+ * rule is in a {@link RuleCostsEvent}, if enabled.
+ */
+@Name("io.github.mooeypoo.chatmonitor.Evaluation")
+@Label("ChatMonitor Evaluation")
+@Category("ChatMonitor")
+@Description("Checking a message, command or other player text against the word rules")
+@StackTrace(false)
+@Threshold("1 ms")
+public class EvaluationEvent extends jdk.jfr.Event {
+	@Label("Source")
+	@Description("Where the text came from: chat, a command, or another source")
+	public String source;
+
+	@Label("Message Length")
+	public int messageLength;
+
+	@Label("Matched Rule")
+	public String matchedRule;
+
+	@Label("Matched Group")
+	public String matchedGroup;
+}
@@ -0,0 +1,44 @@
+package io.github.mooeypoo.chatmonitor.jfr;
+
+import io.github.mooeypoo.chatmonitor.words.RuleCostRecorder;
+
+/**
+ * Counts the rules of one evaluation and keeps the slowest, for an
+ * {@link RuleCostsEvent}. Passes every cost on to another recorder, if any.
+ */
+public class EvaluationRecorder implements RuleCostRecorder {
+	private final RuleCostRecorder delegate;
+	private int rulesTried = 0;
+	private String slowestRule = null;
+	private long slowestNanos = -1;
+
+	/**
+	 * @param delegate Recorder that also receives every cost; may be null
+	 */
+	public EvaluationRecorder(RuleCostRecorder delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public void record(String rule, long nanos, boolean matched) {
+		this.rulesTried++;
+		if (nanos > this.slowestNanos) {
+			this.slowestNanos = nanos;
+			this.slowestRule = rule;
+		}
+		if (this.delegate != null) {
+			this.delegate.record(rule, nanos, matched);
+		}
+	}
+
+	/**
+	 * Fill in the rule statistics of the event.
+	 *
+	 * @param event The event of this evaluation
+	 */
+	public void fill(RuleCostsEvent event) {
+		event.rulesTried = this.rulesTried;
+		event.slowestRule = this.slowestRule;
+		event.slowestRuleDuration = Math.max(0, this.slowestNanos);
+	}
+}
@@ -0,0 +1,27 @@
+package io.github.mooeypoo.chatmonitor.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for reloading the word groups.
+ */
+@Name("io.github.mooeypoo.chatmonitor.Reload")
+@Label("ChatMonitor Reload")
+@Category("ChatMonitor")
+@StackTrace(false)
+public class ReloadEvent extends jdk.jfr.Event {
+	@Label("Groups")
+	public int groups;
+
+	@Label("Rules")
+	public int rules;
+
+	@Label("Literals")
+	public int literals;
+
+	@Label("From Cache")
+	public boolean fromCache;
+}
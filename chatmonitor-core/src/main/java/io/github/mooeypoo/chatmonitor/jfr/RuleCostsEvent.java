@@ -0,0 +1,39 @@
+package io.github.mooeypoo.chatmonitor.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event with the cost of every rule of one evaluation.
+ * Off unless a recording asks for it: timing rules one by one checks them
+ * on the calling thread, without the parallel evaluation of large rule sets.
+ */
+@Name("io.github.mooeypoo.chatmonitor.RuleCosts")
+@Label("ChatMonitor Rule Costs")
+@Category("ChatMonitor")
+@Description("The rules tried while checking a text, timed one by one")
+@StackTrace(false)
+@Threshold("1 ms")
+@Enabled(false)
+public class RuleCostsEvent extends jdk.jfr.Event {
+	@Label("Source")
+	@Description("Where the text came from: chat, a command, or another source")
+	public String source;
+
+	@Label("Rules Tried")
+	@Description("Number of rules and rule tiers evaluated")
+	public int rulesTried;
+
+	@Label("Slowest Rule")
+	public String slowestRule;
+
+	@Label("Slowest Rule Duration")
+	@Timespan(Timespan.NANOSECONDS)
+	public long slowestRuleDuration;
+}
@@ -0,0 +1,193 @@
+package io.github.mooeypoo.chatmonitor.load;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Watches the cost of chat evaluation and switches to a degraded mode when
+ * the server can't keep up, for example during a bot raid.
+ *
+ * The controller tracks a moving average of the time a full evaluation
+ * takes, and the number of messages being evaluated at the same time.
+ * Past either threshold, messages only get the cheap checks; every
+ * {@link #PROBE_INTERVAL}th message is still evaluated in full, so the
+ * average keeps measuring the real cost. Once both are well below their
+ * thresholds, and the degraded mode has lasted long enough not to flap,
+ * full evaluation resumes.
+ */
+public class OverloadController {
+	public static final int PROBE_INTERVAL = 16;
+	private static final double SMOOTHING = 0.1;
+	private static final long MIN_DEGRADED_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+	public enum Mode {
+		FULL,
+		DEGRADED
+	}
+
+	private final Logger logger;
+	private volatile long latencyThresholdNanos;
+	private volatile int inFlightThreshold;
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicLong averageNanosBits = new AtomicLong(Double.doubleToLongBits(0));
+	private final AtomicLong probeCounter = new AtomicLong();
+	private volatile Mode mode = Mode.FULL;
+	private long degradedSince = 0;
+
+	private final AtomicLong modeChanges = new AtomicLong();
+	private final LongAdder fullEvaluations = new LongAdder();
+	private final LongAdder quickEvaluations = new LongAdder();
+	private final LongAdder heldBack = new LongAdder();
+
+	/**
+	 * @param logger                 Receives a line on every mode change
+	 * @param latencyThresholdMicros Average evaluation time that triggers the degraded mode; 0 to ignore latency
+	 * @param inFlightThreshold      Messages evaluated at the same time that trigger the degraded mode; 0 to ignore
+	 */
+	public OverloadController(Logger logger, long latencyThresholdMicros, int inFlightThreshold) {
+		this.logger = logger;
+		this.configure(latencyThresholdMicros, inFlightThreshold);
+	}
+
+	/**
+	 * Change the thresholds, for example after a config reload.
+	 *
+	 * @param latencyThresholdMicros Average evaluation time that triggers the degraded mode; 0 to ignore latency
+	 * @param inFlightThreshold      Messages evaluated at the same time that trigger the degraded mode; 0 to ignore
+	 */
+	public void configure(long latencyThresholdMicros, int inFlightThreshold) {
+		this.latencyThresholdNanos = TimeUnit.MICROSECONDS.toNanos(Math.max(0, latencyThresholdMicros));
+		this.inFlightThreshold = Math.max(0, inFlightThreshold);
+	}
+
+	/**
+	 * Start evaluating a message. Every call must be followed by {@link #exit(boolean, long)}.
+	 *
+	 * @return True if the message should be evaluated in full, false if only the cheap checks should run
+	 */
+	public boolean enter() {
+		int current = this.inFlight.incrementAndGet();
+		if (this.mode == Mode.FULL) {
+			if (this.inFlightThreshold > 0 && current > this.inFlightThreshold) {
+				this.switchMode(Mode.DEGRADED);
+			} else {
+				return true;
+			}
+		}
+
+		// Keep sampling the cost of a full evaluation while degraded
+		return this.probeCounter.incrementAndGet() % PROBE_INTERVAL == 0;
+	}
+
+	/**
+	 * Finish evaluating a message.
+	 *
+	 * @param full  Whether the message was evaluated in full
+	 * @param nanos Time the evaluation took, without whatever is done with the
+	 *              verdict afterwards, like running the group's commands
+	 */
+	public void exit(boolean full, long nanos) {
+		int current = this.inFlight.decrementAndGet();
+		double average;
+		if (full) {
+			this.fullEvaluations.increment();
+			average = this.updateAverage(nanos);
+		} else {
+			this.quickEvaluations.increment();
+			average = this.getAverageNanos();
+		}
+
+		long latencyThreshold = this.latencyThresholdNanos;
+		if (this.mode == Mode.FULL) {
+			if (latencyThreshold > 0 && average > latencyThreshold) {
+				this.switchMode(Mode.DEGRADED);
+			}
+			return;
+		}
+
+		boolean latencyRecovered = latencyThreshold == 0 || average < latencyThreshold / 2.0;
+		boolean inFlightRecovered = this.inFlightThreshold == 0 || current <= this.inFlightThreshold / 2;
+		if (latencyRecovered && inFlightRecovered) {
+			this.switchMode(Mode.FULL);
+		}
+	}
+
+	/**
+	 * Count a message that was held back while degraded.
+	 */
+	public void recordHeldBack() {
+		this.heldBack.increment();
+	}
+
+	private double updateAverage(long nanos) {
+		while (true) {
+			long bits = this.averageNanosBits.get();
+			double previous = Double.longBitsToDouble(bits);
+			double next = previous == 0 ? nanos : previous + SMOOTHING * (nanos - previous);
+			if (this.averageNanosBits.compareAndSet(bits, Double.doubleToLongBits(next))) {
+				return next;
+			}
+		}
+	}
+
+	private synchronized void switchMode(Mode target) {
+		if (this.mode == target) {
+			return;
+		}
+
+		long now = System.nanoTime();
+		if (target == Mode.FULL && now - this.degradedSince < MIN_DEGRADED_NANOS) {
+			return;
+		}
+
+		if (target == Mode.DEGRADED) {
+			this.degradedSince = now;
+			this.logger.warning(String.format(
+				"Chat load is too high (average evaluation %d microseconds, %d messages in flight); switching to degraded mode.",
+				TimeUnit.NANOSECONDS.toMicros((long) this.getAverageNanos()), this.inFlight.get()
+			));
+		} else {
+			this.logger.info(String.format(
+				"Chat load is back to normal after %d seconds; switching to full mode.",
+				TimeUnit.NANOSECONDS.toSeconds(now - this.degradedSince)
+			));
+		}
+		this.mode = target;
+		this.modeChanges.incrementAndGet();
+	}
+
+	public Mode getMode() {
+		return this.mode;
+	}
+
+	/**
+	 * @return Moving average of the time a full evaluation takes, in nanoseconds
+	 */
+	public double getAverageNanos() {
+		return Double.longBitsToDouble(this.averageNanosBits.get());
+	}
+
+	public int getInFlight() {
+		return this.inFlight.get();
+	}
+
+	public long getModeChanges() {
+		return this.modeChanges.get();
+	}
+
+	public long getFullEvaluations() {
+		return this.fullEvaluations.sum();
+	}
+
+	public long getQuickEvaluations() {
+		return this.quickEvaluations.sum();
+	}
+
+	public long getHeldBack() {
+		return this.heldBack.sum();
+	}
+}
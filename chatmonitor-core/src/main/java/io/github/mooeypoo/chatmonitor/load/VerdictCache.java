@@ -0,0 +1,76 @@
+package io.github.mooeypoo.chatmonitor.load;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.github.mooeypoo.chatmonitor.words.WordAction;
+
+/**
+ * A bounded cache of evaluation results by message text, used while the
+ * server is overloaded. Raids tend to repeat the same few messages, so
+ * most of them are answered without evaluating anything.
+ *
+ * The cache is tied to the rules it was filled with; once the rules are
+ * reloaded, it starts over.
+ */
+public class VerdictCache {
+	private static final WordAction CLEAN = new WordAction(null, null, null, false, false, null, null);
+
+	private final int maxEntries;
+	private final Map<String, WordAction> verdicts = new ConcurrentHashMap<>();
+	private volatile Object rules = null;
+
+	/**
+	 * @param maxEntries Number of messages to remember before starting over
+	 */
+	public VerdictCache(int maxEntries) {
+		this.maxEntries = maxEntries;
+	}
+
+	/**
+	 * @param rules     The rules currently in use; a different object than last time clears the cache
+	 * @param worldName The world the message was sent in, or null
+	 * @param message   The message
+	 * @return The cached action, a clean result (see {@link #isClean(WordAction)}), or null if unknown
+	 */
+	public WordAction get(Object rules, String worldName, String message) {
+		if (this.rules != rules) {
+			return null;
+		}
+		return this.verdicts.get(key(worldName, message));
+	}
+
+	/**
+	 * @param rules     The rules the result was computed with
+	 * @param worldName The world the message was sent in, or null
+	 * @param message   The message
+	 * @param action    The result, or null if the message was clean
+	 */
+	public void put(Object rules, String worldName, String message, WordAction action) {
+		if (this.rules != rules) {
+			this.verdicts.clear();
+			this.rules = rules;
+		}
+		if (this.verdicts.size() >= this.maxEntries) {
+			// Cheaper than tracking recency, and a raid refills it quickly
+			this.verdicts.clear();
+		}
+		this.verdicts.put(key(worldName, message), action == null ? CLEAN : action);
+	}
+
+	/**
+	 * @param cached A result returned by {@link #get(Object, String, String)}
+	 * @return Whether the cached result says the message was clean
+	 */
+	public static boolean isClean(WordAction cached) {
+		return cached == CLEAN;
+	}
+
+	public int size() {
+		return this.verdicts.size();
+	}
+
+	private static String key(String worldName, String message) {
+		return worldName == null ? message : worldName + '\u0000' + message;
+	}
+}
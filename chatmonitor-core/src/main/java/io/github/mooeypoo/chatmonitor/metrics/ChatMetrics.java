@@ -0,0 +1,143 @@
+package io.github.mooeypoo.chatmonitor.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.github.mooeypoo.chatmonitor.load.OverloadController;
+
+/**
+ * Counters and histograms of ChatMonitor's work, for the metrics endpoint.
+ *
+ * Recording only increments striped counters, and a scrape only reads
+ * them, so scraping never blocks or slows down the chat path. A scrape
+ * may see counters from slightly different moments.
+ */
+public class ChatMetrics {
+	private final Map<String, LongAdder> scanned = new ConcurrentHashMap<>();
+	private final Map<String, LongAdder> matches = new ConcurrentHashMap<>();
+	private final LatencyHistogram evaluationLatency = new LatencyHistogram();
+	private final LongAdder dispatchQueued = new LongAdder();
+	private final LongAdder dispatched = new LongAdder();
+	private final LongAdder reloads = new LongAdder();
+	private volatile long lastReloadNanos = 0;
+
+	/**
+	 * Record a text checked against the rules.
+	 *
+	 * @param source Where the text came from, like "chat" or "command"
+	 * @param group  Group of the match, or null if nothing matched
+	 * @param nanos  Time the check took
+	 */
+	public void recordEvaluation(String source, String group, long nanos) {
+		this.scanned.computeIfAbsent(source, s -> new LongAdder()).increment();
+		if (group != null) {
+			this.matches.computeIfAbsent(group, g -> new LongAdder()).increment();
+		}
+		this.evaluationLatency.record(nanos);
+	}
+
+	/**
+	 * Count a command waiting to be run on the main thread.
+	 */
+	public void dispatchQueued() {
+		this.dispatchQueued.increment();
+	}
+
+	/**
+	 * Count a command that was run, after waiting on the main thread or not.
+	 *
+	 * @param wasQueued Whether the command was counted by {@link #dispatchQueued()}
+	 */
+	public void dispatched(boolean wasQueued) {
+		if (wasQueued) {
+			this.dispatchQueued.decrement();
+		}
+		this.dispatched.increment();
+	}
+
+	/**
+	 * @param nanos Time a reload of the word groups took
+	 */
+	public void recordReload(long nanos) {
+		this.lastReloadNanos = nanos;
+		this.reloads.increment();
+	}
+
+	public long getScanned(String source) {
+		LongAdder count = this.scanned.get(source);
+		return count == null ? 0 : count.sum();
+	}
+
+	public long getMatches(String group) {
+		LongAdder count = this.matches.get(group);
+		return count == null ? 0 : count.sum();
+	}
+
+	public long getDispatchQueueDepth() {
+		return this.dispatchQueued.sum();
+	}
+
+	/**
+	 * Write all metrics in Prometheus text format.
+	 *
+	 * @param out      Receives the metrics
+	 * @param overload Load controller to report the mode of; may be null
+	 */
+	public void writeTo(StringBuilder out, OverloadController overload) {
+		header(out, "chatmonitor_messages_scanned_total", "counter", "Texts checked against the word rules, by source.");
+		for (Map.Entry<String, LongAdder> entry : new TreeMap<>(this.scanned).entrySet()) {
+			sample(out, "chatmonitor_messages_scanned_total", "source", entry.getKey(), entry.getValue().sum());
+		}
+
+		header(out, "chatmonitor_matches_total", "counter", "Texts that matched a rule, by group.");
+		for (Map.Entry<String, LongAdder> entry : new TreeMap<>(this.matches).entrySet()) {
+			sample(out, "chatmonitor_matches_total", "group", entry.getKey(), entry.getValue().sum());
+		}
+
+		header(out, "chatmonitor_evaluation_seconds", "histogram", "Time spent checking a text against the word rules.");
+		this.evaluationLatency.writeTo(out, "chatmonitor_evaluation_seconds");
+
+		header(out, "chatmonitor_dispatch_queue_depth", "gauge", "Commands from runcommands waiting for the main thread.");
+		out.append("chatmonitor_dispatch_queue_depth ").append(Math.max(0, this.dispatchQueued.sum())).append('\n');
+
+		header(out, "chatmonitor_dispatched_commands_total", "counter", "Commands from runcommands that were run.");
+		out.append("chatmonitor_dispatched_commands_total ").append(this.dispatched.sum()).append('\n');
+
+		header(out, "chatmonitor_reloads_total", "counter", "Reloads of the word groups.");
+		out.append("chatmonitor_reloads_total ").append(this.reloads.sum()).append('\n');
+
+		header(out, "chatmonitor_last_reload_seconds", "gauge", "Time the last reload of the word groups took.");
+		out.append("chatmonitor_last_reload_seconds ").append(this.lastReloadNanos / 1e9).append('\n');
+
+		if (overload != null) {
+			header(out, "chatmonitor_load_degraded", "gauge", "1 while chat is in degraded mode because of high load.");
+			out.append("chatmonitor_load_degraded ").append(overload.getMode() == OverloadController.Mode.DEGRADED ? 1 : 0).append('\n');
+
+			header(out, "chatmonitor_held_back_total", "counter", "Chat messages held back while in degraded mode.");
+			out.append("chatmonitor_held_back_total ").append(overload.getHeldBack()).append('\n');
+		}
+	}
+
+	private static void header(StringBuilder out, String name, String type, String help) {
+		out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+		out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+	}
+
+	private static void sample(StringBuilder out, String name, String label, String value, long count) {
+		out.append(name).append('{').append(label).append("=\"");
+		// Escape the label value as the exposition format requires
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '\\' || c == '"') {
+				out.append('\\').append(c);
+			} else if (c == '\n') {
+				out.append("\\n");
+			} else {
+				out.append(c);
+			}
+		}
+		out.append("\"} ").append(count).append('\n');
+	}
+}
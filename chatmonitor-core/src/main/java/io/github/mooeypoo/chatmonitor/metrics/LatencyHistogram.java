@@ -0,0 +1,75 @@
+package io.github.mooeypoo.chatmonitor.metrics;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed-bucket latency histogram. Recording only touches striped
+ * counters, so it never contends with other recording threads or with
+ * a scrape reading the buckets.
+ */
+public class LatencyHistogram {
+	private static final long[] BOUNDS_NANOS = {
+		TimeUnit.MICROSECONDS.toNanos(10),
+		TimeUnit.MICROSECONDS.toNanos(25),
+		TimeUnit.MICROSECONDS.toNanos(50),
+		TimeUnit.MICROSECONDS.toNanos(100),
+		TimeUnit.MICROSECONDS.toNanos(250),
+		TimeUnit.MICROSECONDS.toNanos(500),
+		TimeUnit.MILLISECONDS.toNanos(1),
+		TimeUnit.MICROSECONDS.toNanos(2500),
+		TimeUnit.MILLISECONDS.toNanos(5),
+		TimeUnit.MILLISECONDS.toNanos(10),
+		TimeUnit.MILLISECONDS.toNanos(25),
+		TimeUnit.MILLISECONDS.toNanos(50),
+		TimeUnit.MILLISECONDS.toNanos(100)
+	};
+	private static final String[] BOUND_LABELS = new String[BOUNDS_NANOS.length];
+
+	static {
+		for (int i = 0; i < BOUNDS_NANOS.length; i++) {
+			BOUND_LABELS[i] = BigDecimal.valueOf(BOUNDS_NANOS[i], 9).stripTrailingZeros().toPlainString();
+		}
+	}
+
+	// One more bucket than bounds, for everything above the last bound
+	private final LongAdder[] buckets = new LongAdder[BOUNDS_NANOS.length + 1];
+	private final LongAdder sumNanos = new LongAdder();
+
+	public LatencyHistogram() {
+		for (int i = 0; i < this.buckets.length; i++) {
+			this.buckets[i] = new LongAdder();
+		}
+	}
+
+	/**
+	 * @param nanos Duration to record
+	 */
+	public void record(long nanos) {
+		int bucket = 0;
+		while (bucket < BOUNDS_NANOS.length && nanos > BOUNDS_NANOS[bucket]) {
+			bucket++;
+		}
+		this.buckets[bucket].increment();
+		this.sumNanos.add(nanos);
+	}
+
+	/**
+	 * Write the histogram in Prometheus text format.
+	 *
+	 * @param out  Receives the metric lines
+	 * @param name Metric name, without the _bucket, _sum or _count suffix
+	 */
+	void writeTo(StringBuilder out, String name) {
+		long cumulative = 0;
+		for (int i = 0; i < BOUNDS_NANOS.length; i++) {
+			cumulative += this.buckets[i].sum();
+			out.append(name).append("_bucket{le=\"").append(BOUND_LABELS[i]).append("\"} ").append(cumulative).append('\n');
+		}
+		cumulative += this.buckets[BOUNDS_NANOS.length].sum();
+		out.append(name).append("_bucket{le=\"+Inf\"} ").append(cumulative).append('\n');
+		out.append(name).append("_sum ").append(this.sumNanos.sum() / 1e9).append('\n');
+		out.append(name).append("_count ").append(cumulative).append('\n');
+	}
+}
@@ -0,0 +1,105 @@
+package io.github.mooeypoo.chatmonitor.metrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import io.github.mooeypoo.chatmonitor.load.OverloadController;
+
+/**
+ * Serves {@link ChatMetrics} in Prometheus text format on a local port,
+ * from the JDK's built-in HTTP server. Scrapes are answered on a single
+ * thread of their own, never on a server or chat thread.
+ */
+public class MetricsExporter {
+	public static final String PATH = "/metrics";
+	private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+	private final ChatMetrics metrics;
+	private final OverloadController overload;
+	private HttpServer server = null;
+	private ExecutorService executor = null;
+
+	/**
+	 * @param metrics  Metrics to serve
+	 * @param overload Load controller to report the mode of; may be null
+	 */
+	public MetricsExporter(ChatMetrics metrics, OverloadController overload) {
+		this.metrics = metrics;
+		this.overload = overload;
+	}
+
+	/**
+	 * Start serving on the loopback address.
+	 *
+	 * @param port Port to listen on; 0 picks a free port
+	 * @throws IOException If the port could not be bound
+	 */
+	public synchronized void start(int port) throws IOException {
+		this.stop();
+
+		HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		server.createContext(PATH, this::handle);
+		this.executor = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "ChatMonitor-metrics");
+			thread.setDaemon(true);
+			return thread;
+		});
+		server.setExecutor(this.executor);
+		server.start();
+		this.server = server;
+	}
+
+	/**
+	 * Stop serving, if started.
+	 */
+	public synchronized void stop() {
+		if (this.server != null) {
+			this.server.stop(0);
+			this.server = null;
+		}
+		if (this.executor != null) {
+			this.executor.shutdownNow();
+			this.executor = null;
+		}
+	}
+
+	/**
+	 * @return The port being served on, or 0 if not started
+	 */
+	public synchronized int getPort() {
+		return this.server == null ? 0 : this.server.getAddress().getPort();
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		try {
+			if (!"GET".equals(exchange.getRequestMethod()) && !"HEAD".equals(exchange.getRequestMethod())) {
+				exchange.sendResponseHeaders(405, -1);
+				return;
+			}
+
+			StringBuilder out = new StringBuilder(4096);
+			this.metrics.writeTo(out, this.overload);
+			byte[] body = out.toString().getBytes(StandardCharsets.UTF_8);
+
+			exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+			if ("HEAD".equals(exchange.getRequestMethod())) {
+				exchange.sendResponseHeaders(200, -1);
+				return;
+			}
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream stream = exchange.getResponseBody()) {
+				stream.write(body);
+			}
+		} finally {
+			exchange.close();
+		}
+	}
+}
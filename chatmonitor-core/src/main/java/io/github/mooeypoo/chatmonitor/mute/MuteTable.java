@@ -0,0 +1,268 @@
+package io.github.mooeypoo.chatmonitor.mute;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+/**
+ * Players muted by a word group, until a given time.
+ *
+ * Checking whether a player is muted is a single lookup in a concurrent
+ * map, so chat can be rejected before any rule is evaluated. Mutes expire
+ * through a hashed timing wheel that is advanced by one periodic task,
+ * instead of a scheduled task per mute.
+ *
+ * Every change is saved to a file in the background; saves that are
+ * asked for while one is running are folded into the next one.
+ */
+public class MuteTable {
+	public static final String FILE = "mutes.txt";
+	private static final int WHEEL_SLOTS = 512;
+	private static final long TICK_MILLIS = 1000;
+
+	private final Path file;
+	private final Logger logger;
+	private final Map<UUID, Long> mutes = new ConcurrentHashMap<>();
+	// Names at the time of the mute, so an offline player can be unmuted by name
+	private final Map<UUID, String> names = new ConcurrentHashMap<>();
+	private final TimingWheel<UUID> wheel;
+	private final ExecutorService saver;
+	private final AtomicBoolean savePending = new AtomicBoolean();
+
+	/**
+	 * @param file   File to keep the mutes in
+	 * @param logger Logger
+	 */
+	public MuteTable(Path file, Logger logger) {
+		this.file = file;
+		this.logger = logger;
+		this.wheel = new TimingWheel<>(WHEEL_SLOTS, TICK_MILLIS, System.currentTimeMillis());
+		this.saver = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "ChatMonitor-mutes");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Read the mutes saved by a previous run. Mutes that ran out meanwhile are dropped.
+	 *
+	 * @param now Current time, in milliseconds
+	 * @throws IOException If the file exists but could not be read
+	 */
+	public void load(long now) throws IOException {
+		List<String> lines;
+		try {
+			lines = Files.readAllLines(this.file, StandardCharsets.UTF_8);
+		} catch (NoSuchFileException e) {
+			return;
+		}
+
+		for (String line : lines) {
+			String[] fields = line.trim().split("\\s+");
+			// Files of earlier versions have no names
+			if (line.startsWith("#") || fields.length < 2 || fields.length > 3) {
+				continue;
+			}
+			try {
+				this.muteUntil(UUID.fromString(fields[0]), fields.length == 3 ? fields[2] : null, Long.parseLong(fields[1]), now);
+			} catch (IllegalArgumentException e) {
+				this.logger.warning("Skipping invalid line in '" + this.file.getFileName() + "': " + line);
+			}
+		}
+	}
+
+	/**
+	 * Mute a player. An existing longer mute is kept.
+	 *
+	 * @param playerId   The player
+	 * @param playerName Name of the player
+	 * @param millis     How long to mute the player
+	 * @param now        Current time, in milliseconds
+	 * @return The time the player is muted until
+	 */
+	public long mute(UUID playerId, String playerName, long millis, long now) {
+		long until = this.muteUntil(playerId, playerName, now + millis, now);
+		this.save();
+		return until;
+	}
+
+	private long muteUntil(UUID playerId, String playerName, long until, long now) {
+		if (until <= now) {
+			return until;
+		}
+		synchronized (this.wheel) {
+			Long current = this.mutes.get(playerId);
+			if (current != null && current >= until) {
+				return current;
+			}
+			this.mutes.put(playerId, until);
+			if (playerName != null) {
+				this.names.put(playerId, playerName);
+			}
+			this.wheel.schedule(playerId, until);
+			return until;
+		}
+	}
+
+	/**
+	 * @param playerId The player
+	 * @return True if the player was muted
+	 */
+	public boolean unmute(UUID playerId) {
+		boolean removed;
+		synchronized (this.wheel) {
+			// The wheel entry expires on its own and finds nothing to remove
+			removed = this.mutes.remove(playerId) != null;
+			this.names.remove(playerId);
+		}
+		if (removed) {
+			this.save();
+		}
+		return removed;
+	}
+
+	/**
+	 * Find a muted player without asking the server, which may look up an
+	 * unknown name online.
+	 *
+	 * @param player Name the player had when muted, in any case, or their id
+	 * @return The id of the muted player, or null if no such player is muted
+	 */
+	public UUID findMuted(String player) {
+		try {
+			UUID playerId = UUID.fromString(player);
+			return this.mutes.containsKey(playerId) ? playerId : null;
+		} catch (IllegalArgumentException e) {
+			// Not an id, so a name
+		}
+
+		for (Map.Entry<UUID, String> entry : this.names.entrySet()) {
+			if (entry.getValue().equalsIgnoreCase(player) && this.mutes.containsKey(entry.getKey())) {
+				return entry.getKey();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @param playerId The player
+	 * @param now      Current time, in milliseconds
+	 * @return True if the player is muted
+	 */
+	public boolean isMuted(UUID playerId, long now) {
+		return this.getRemainingMillis(playerId, now) > 0;
+	}
+
+	/**
+	 * @param playerId The player
+	 * @param now      Current time, in milliseconds
+	 * @return How long the player stays muted, or 0 if not muted
+	 */
+	public long getRemainingMillis(UUID playerId, long now) {
+		if (this.mutes.isEmpty()) {
+			return 0;
+		}
+		Long until = this.mutes.get(playerId);
+		// A mute may run out a moment before the wheel gets to it
+		return until == null ? 0 : Math.max(0, until - now);
+	}
+
+	/**
+	 * Expire the mutes that ran out. Call this regularly, about once a second.
+	 *
+	 * @param now Current time, in milliseconds
+	 */
+	public void advance(long now) {
+		boolean changed;
+		synchronized (this.wheel) {
+			int before = this.mutes.size();
+			// Only remove the mute the entry was scheduled for, not a longer one that replaced it
+			this.wheel.advance(now, (playerId, until) -> {
+				if (this.mutes.remove(playerId, until)) {
+					this.names.remove(playerId);
+				}
+			});
+			changed = this.mutes.size() != before;
+		}
+		if (changed) {
+			this.save();
+		}
+	}
+
+	/**
+	 * @return Number of muted players
+	 */
+	public int size() {
+		return this.mutes.size();
+	}
+
+	/**
+	 * Save the mutes in the background.
+	 */
+	private void save() {
+		if (!this.savePending.compareAndSet(false, true)) {
+			// A save is already queued, and will see this change
+			return;
+		}
+		try {
+			this.saver.execute(() -> {
+				this.savePending.set(false);
+				this.write();
+			});
+		} catch (RuntimeException e) {
+			// Closed; the final save already ran
+			this.savePending.set(false);
+		}
+	}
+
+	private void write() {
+		Map<UUID, Long> copy = new HashMap<>(this.mutes);
+		Map<UUID, String> names = new HashMap<>(this.names);
+		Path temporary = this.file.resolveSibling(this.file.getFileName() + ".tmp");
+		try {
+			Files.createDirectories(this.file.toAbsolutePath().getParent());
+			try (BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+				writer.write("# Muted players: player id, muted until (milliseconds since 1970), player name");
+				writer.newLine();
+				for (Map.Entry<UUID, Long> entry : copy.entrySet()) {
+					String name = names.get(entry.getKey());
+					writer.write(entry.getKey() + " " + entry.getValue() + (name == null ? "" : " " + name));
+					writer.newLine();
+				}
+			}
+			// Move in place, so a reader never sees a partial file
+			Files.move(temporary, this.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			this.logger.warning("Could not save mutes: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Stop saving in the background, after a last save.
+	 *
+	 * @param timeout How long to wait for the last save
+	 * @param unit    Unit of the timeout
+	 * @return True if the last save finished in time
+	 * @throws InterruptedException If interrupted while waiting
+	 */
+	public boolean close(long timeout, TimeUnit unit) throws InterruptedException {
+		this.saver.execute(this::write);
+		this.saver.shutdown();
+		return this.saver.awaitTermination(timeout, unit);
+	}
+}
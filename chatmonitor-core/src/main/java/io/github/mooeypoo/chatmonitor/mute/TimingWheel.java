@@ -0,0 +1,118 @@
+package io.github.mooeypoo.chatmonitor.mute;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * A hashed timing wheel: a ring of slots, one per tick, that entries are
+ * hashed into by their deadline. Scheduling an entry and expiring it are
+ * constant time, however many entries there are; advancing the wheel only
+ * looks at the slots of the ticks that passed. Entries more than one turn
+ * away wait in their slot for the number of turns left.
+ *
+ * Not thread safe; callers hold a lock.
+ *
+ * @param <T> Type of the entries
+ */
+class TimingWheel<T> {
+	private final long tickMillis;
+	private final int mask;
+	private final List<List<Entry<T>>> slots;
+	private long currentTick;
+	private int size = 0;
+
+	/**
+	 * @param slotCount  Number of slots, rounded up to a power of two
+	 * @param tickMillis Length of a tick
+	 * @param now        Current time, in milliseconds
+	 */
+	TimingWheel(int slotCount, long tickMillis, long now) {
+		int count = Integer.highestOneBit(Math.max(1, slotCount - 1)) << 1;
+		this.tickMillis = tickMillis;
+		this.mask = count - 1;
+		this.slots = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			this.slots.add(new ArrayList<>(0));
+		}
+		this.currentTick = now / tickMillis;
+	}
+
+	/**
+	 * Schedule an entry. It expires on the first tick at or after its deadline.
+	 *
+	 * @param value    The entry
+	 * @param deadline Time to expire at, in milliseconds
+	 */
+	void schedule(T value, long deadline) {
+		// Round up, so an entry never expires early
+		long tick = Math.max(this.currentTick, (deadline + this.tickMillis - 1) / this.tickMillis);
+		long turns = (tick - this.currentTick) / this.slots.size();
+		this.slots.get((int) (tick & this.mask)).add(new Entry<>(value, deadline, turns));
+		this.size++;
+	}
+
+	/**
+	 * Move the wheel up to the given time, handing every expired entry to the consumer.
+	 *
+	 * @param now     Current time, in milliseconds
+	 * @param expired Receives each expired entry and its deadline
+	 */
+	void advance(long now, BiConsumer<T, Long> expired) {
+		long target = now / this.tickMillis;
+		if (target - this.currentTick >= this.slots.size()) {
+			// After a long pause every slot is due; sort all entries out again
+			List<Entry<T>> all = new ArrayList<>(this.size);
+			for (List<Entry<T>> slot : this.slots) {
+				all.addAll(slot);
+				slot.clear();
+			}
+			this.size = 0;
+			this.currentTick = target + 1;
+			for (Entry<T> entry : all) {
+				if (entry.deadline <= now) {
+					expired.accept(entry.value, entry.deadline);
+				} else {
+					this.schedule(entry.value, entry.deadline);
+				}
+			}
+			return;
+		}
+
+		for (long tick = this.currentTick; tick <= target; tick++) {
+			List<Entry<T>> slot = this.slots.get((int) (tick & this.mask));
+			int kept = 0;
+			for (int i = 0; i < slot.size(); i++) {
+				Entry<T> entry = slot.get(i);
+				if (entry.turns == 0) {
+					expired.accept(entry.value, entry.deadline);
+					this.size--;
+				} else {
+					entry.turns--;
+					slot.set(kept++, entry);
+				}
+			}
+			slot.subList(kept, slot.size()).clear();
+		}
+		this.currentTick = target + 1;
+	}
+
+	/**
+	 * @return Number of scheduled entries
+	 */
+	int size() {
+		return this.size;
+	}
+
+	private static class Entry<T> {
+		private final T value;
+		private final long deadline;
+		private long turns;
+
+		Entry(T value, long deadline, long turns) {
+			this.value = value;
+			this.deadline = deadline;
+			this.turns = turns;
+		}
+	}
+}
@@ -0,0 +1,74 @@
+package io.github.mooeypoo.chatmonitor.raid;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * A count-min sketch: a few rows of counters, each indexed by its own hash
+ * of the item. Adding an item increments one counter per row; the count of
+ * an item is the smallest of its counters, which can only overestimate.
+ * The size is fixed, however many different items are added.
+ *
+ * Adding is conservative: a counter is only raised as far as the new
+ * smallest count, which keeps the overestimates of rare items low.
+ *
+ * Counters are updated atomically, so items can be added from any thread.
+ */
+class CountMinSketch {
+	private final int depth;
+	private final int mask;
+	private final AtomicIntegerArray counters;
+
+	/**
+	 * @param depth Number of rows
+	 * @param width Counters per row, rounded up to a power of two
+	 */
+	CountMinSketch(int depth, int width) {
+		int columns = Integer.highestOneBit(Math.max(2, width) - 1) << 1;
+		this.depth = depth;
+		this.mask = columns - 1;
+		this.counters = new AtomicIntegerArray(depth * columns);
+	}
+
+	/**
+	 * @param hash 64-bit hash of the item
+	 */
+	void add(long hash) {
+		int smallest = Integer.MAX_VALUE;
+		for (int row = 0; row < this.depth; row++) {
+			smallest = Math.min(smallest, this.counters.get(this.index(row, hash)));
+		}
+		int target = smallest + 1;
+		for (int row = 0; row < this.depth; row++) {
+			this.counters.accumulateAndGet(this.index(row, hash), target, Math::max);
+		}
+	}
+
+	/**
+	 * @param row  A row
+	 * @param hash 64-bit hash of the item
+	 * @return The counter of the item in the row
+	 */
+	int count(int row, long hash) {
+		return this.counters.get(this.index(row, hash));
+	}
+
+	void clear() {
+		for (int i = 0; i < this.counters.length(); i++) {
+			this.counters.set(i, 0);
+		}
+	}
+
+	/**
+	 * @return Number of counters
+	 */
+	int size() {
+		return this.counters.length();
+	}
+
+	private int index(int row, long hash) {
+		// Double hashing: one 64-bit hash gives every row its own column
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32) | 1;
+		return row * (this.mask + 1) + ((h1 + row * h2) & this.mask);
+	}
+}
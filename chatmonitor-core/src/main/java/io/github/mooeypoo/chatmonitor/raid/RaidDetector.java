@@ -0,0 +1,177 @@
+package io.github.mooeypoo.chatmonitor.raid;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Spots bot raids: the same message, or nearly the same, sent many times
+ * within a short window, usually from many fresh accounts. Each copy
+ * looks harmless on its own, so no rule catches it.
+ *
+ * Messages are reduced to a fingerprint (letters only, case folded,
+ * repeated letters collapsed), and the fingerprints are counted in a
+ * {@link CountMinSketch} per time slice. The window is a ring of slices;
+ * the oldest slice is cleared when a new one starts, so memory use stays
+ * fixed however many different messages arrive. Counts are estimates that
+ * can only be too high, by a small amount.
+ */
+public class RaidDetector {
+	/**
+	 * The rule shown for matches of raid copies.
+	 */
+	public static final String RULE = "[raid]";
+
+	private static final int SLICES = 6;
+	private static final int DEPTH = 4;
+	private static final int WIDTH = 4096;
+	private static final int MIN_LETTERS = 4;
+
+	private final String group;
+	private final int threshold;
+	private final long windowMillis;
+	private final long sliceMillis;
+	private final CountMinSketch[] sketches = new CountMinSketch[SLICES];
+	private final AtomicLongArray sliceIds = new AtomicLongArray(SLICES);
+	private final LongAdder copies = new LongAdder();
+
+	/**
+	 * @param group        Name of the word group whose action applies to raid copies
+	 * @param threshold    Copies within the window that are still allowed
+	 * @param windowMillis Length of the window
+	 */
+	public RaidDetector(String group, int threshold, long windowMillis) {
+		this.group = group;
+		this.threshold = threshold;
+		this.sliceMillis = Math.max(1, windowMillis / SLICES);
+		this.windowMillis = this.sliceMillis * SLICES;
+		for (int i = 0; i < SLICES; i++) {
+			this.sketches[i] = new CountMinSketch(DEPTH, WIDTH);
+			this.sliceIds.set(i, -1);
+		}
+	}
+
+	/**
+	 * Count a message, and tell whether it is one copy too many.
+	 *
+	 * @param message The message
+	 * @param now     Current time, in milliseconds
+	 * @return Whether the message was sent more often than the threshold within the window
+	 */
+	public boolean isRaid(String message, long now) {
+		if (this.record(message, now) <= this.threshold) {
+			return false;
+		}
+		this.copies.increment();
+		return true;
+	}
+
+	/**
+	 * Count a message.
+	 *
+	 * @param message The message
+	 * @param now     Current time, in milliseconds
+	 * @return Estimated number of times the message was sent within the window,
+	 * this one included, or 0 if the message is too short to tell apart
+	 */
+	public int record(String message, long now) {
+		long fingerprint = fingerprint(message);
+		if (fingerprint == 0) {
+			return 0;
+		}
+
+		long sliceId = now / this.sliceMillis;
+		this.sliceFor(sliceId).add(fingerprint);
+
+		int estimate = Integer.MAX_VALUE;
+		for (int row = 0; row < DEPTH; row++) {
+			int sum = 0;
+			for (int i = 0; i < SLICES; i++) {
+				if (this.sliceIds.get(i) > sliceId - SLICES) {
+					sum += this.sketches[i].count(row, fingerprint);
+				}
+			}
+			estimate = Math.min(estimate, sum);
+		}
+		return estimate;
+	}
+
+	/**
+	 * The sketch of the given slice, cleared first if it still holds an older slice.
+	 */
+	private CountMinSketch sliceFor(long sliceId) {
+		int index = (int) (sliceId % SLICES);
+		if (this.sliceIds.get(index) != sliceId) {
+			synchronized (this.sketches[index]) {
+				if (this.sliceIds.get(index) < sliceId) {
+					// Counts added meanwhile by a slow thread may be lost; they are estimates anyway
+					this.sketches[index].clear();
+					this.sliceIds.set(index, sliceId);
+				}
+			}
+		}
+		return this.sketches[index];
+	}
+
+	/**
+	 * @param message A message
+	 * @return A 64-bit hash of the letters of the message, case folded and without
+	 * repeats, or 0 if the message has too few letters
+	 */
+	static long fingerprint(String message) {
+		// FNV-1a
+		long hash = 0xcbf29ce484222325L;
+		int letters = 0;
+		char previous = 0;
+		for (int i = 0; i < message.length(); i++) {
+			char c = message.charAt(i);
+			if (!Character.isLetter(c)) {
+				continue;
+			}
+			c = Character.toLowerCase(Character.toUpperCase(c));
+			if (c == previous) {
+				continue;
+			}
+			previous = c;
+			letters++;
+			hash = (hash ^ c) * 0x100000001b3L;
+		}
+		if (letters < MIN_LETTERS) {
+			return 0;
+		}
+
+		// Spread the bits, so the low and high halves both vary
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		return hash == 0 ? 1 : hash;
+	}
+
+	/**
+	 * @return Name of the word group whose action applies to raid copies
+	 */
+	public String getGroup() {
+		return this.group;
+	}
+
+	public int getThreshold() {
+		return this.threshold;
+	}
+
+	public long getWindowMillis() {
+		return this.windowMillis;
+	}
+
+	/**
+	 * @return Number of messages found to be raid copies
+	 */
+	public long getCopies() {
+		return this.copies.sum();
+	}
+
+	/**
+	 * @return Memory used by the counters, in bytes
+	 */
+	public long getMemoryBytes() {
+		return (long) SLICES * this.sketches[0].size() * Integer.BYTES;
+	}
+}
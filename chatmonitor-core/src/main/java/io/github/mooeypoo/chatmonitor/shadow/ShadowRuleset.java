@@ -0,0 +1,445 @@
+package io.github.mooeypoo.chatmonitor.shadow;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import io.github.mooeypoo.chatmonitor.configs.ConfigurationException;
+import io.github.mooeypoo.chatmonitor.words.WordAction;
+import io.github.mooeypoo.chatmonitor.words.WordManager;
+
+/**
+ * A candidate ruleset, evaluated next to the active one on a sample of
+ * live chat, so a new list can be judged on real traffic before it goes live.
+ *
+ * Sampled messages are handed to a single background thread through a
+ * bounded queue; when the queue is full the message is dropped from the
+ * sample instead of waiting. The real verdict is decided before the
+ * message is offered, and is never affected by the candidate.
+ */
+public class ShadowRuleset {
+	public static final String FOLDER = "shadow";
+	private static final String MAIN_CONFIG = "config.yml";
+	private static final String STAGING_PREFIX = ".promote";
+	private static final int QUEUE_SIZE = 1024;
+	private static final int RECENT_DISAGREEMENTS = 5;
+
+	private final WordManager candidate;
+	private final int samplePercent;
+	private final ThreadPoolExecutor executor;
+
+	private final LongAdder sampled = new LongAdder();
+	private final LongAdder dropped = new LongAdder();
+	private final LongAdder errors = new LongAdder();
+	private final LongAdder evaluated = new LongAdder();
+	private final LongAdder activeMatches = new LongAdder();
+	private final LongAdder candidateMatches = new LongAdder();
+	private final LongAdder newMatches = new LongAdder();
+	private final LongAdder lostMatches = new LongAdder();
+	private final LongAdder changedVerdicts = new LongAdder();
+	private final LongAdder activeNanos = new LongAdder();
+	private final LongAdder candidateNanos = new LongAdder();
+	private final LongAccumulator activeMaxNanos = new LongAccumulator(Math::max, 0);
+	private final LongAccumulator candidateMaxNanos = new LongAccumulator(Math::max, 0);
+	private final Deque<String> recentDisagreements = new ArrayDeque<>();
+
+	/**
+	 * @param candidate     The candidate rules
+	 * @param samplePercent Percentage of offered messages to evaluate against the candidate
+	 */
+	public ShadowRuleset(WordManager candidate, int samplePercent) {
+		this.candidate = candidate;
+		this.samplePercent = Math.max(0, Math.min(100, samplePercent));
+		this.executor = new ThreadPoolExecutor(
+			1, 1, 0, TimeUnit.MILLISECONDS,
+			new ArrayBlockingQueue<>(QUEUE_SIZE),
+			runnable -> {
+				Thread thread = new Thread(runnable, "ChatMonitor-shadow");
+				thread.setDaemon(true);
+				thread.setPriority(Thread.MIN_PRIORITY);
+				return thread;
+			},
+			(runnable, executor) -> this.dropped.increment()
+		);
+	}
+
+	/**
+	 * Load the candidate rules from the shadow folder inside the data folder.
+	 * The shadow folder has the same layout as the data folder: a config.yml
+	 * listing the groups, and a file per group.
+	 *
+	 * @param dataFolder    The data folder of the active rules
+	 * @param logger        Logger
+	 * @param samplePercent Percentage of offered messages to evaluate against the candidate
+	 * @return The candidate ruleset
+	 * @throws ConfigurationException If the candidate config could not be loaded
+	 */
+	public static ShadowRuleset load(Path dataFolder, Logger logger, int samplePercent) throws ConfigurationException {
+		return new ShadowRuleset(new WordManager(dataFolder.resolve(FOLDER), logger), samplePercent);
+	}
+
+	/**
+	 * Offer a checked message to the sample. Returns at once; the candidate
+	 * is evaluated in the background, if the message is sampled at all.
+	 *
+	 * @param worldName   The world the message was sent in
+	 * @param message     The message
+	 * @param active      The verdict of the active rules, or null if none matched
+	 * @param activeNanos Time the active rules took
+	 */
+	public void offer(String worldName, String message, WordAction active, long activeNanos) {
+		if (this.samplePercent < 100 && ThreadLocalRandom.current().nextInt(100) >= this.samplePercent) {
+			return;
+		}
+		if (this.executor.isShutdown()) {
+			return;
+		}
+
+		this.sampled.increment();
+		this.executor.execute(() -> this.compare(worldName, message, active, activeNanos));
+	}
+
+	private void compare(String worldName, String message, WordAction active, long activeNanos) {
+		WordAction candidate;
+		long start = System.nanoTime();
+		try {
+			candidate = this.candidate.processWordsInWorld(worldName, message);
+		} catch (Exception e) {
+			this.errors.increment();
+			return;
+		}
+		long candidateNanos = System.nanoTime() - start;
+
+		this.evaluated.increment();
+		this.activeNanos.add(activeNanos);
+		this.activeMaxNanos.accumulate(activeNanos);
+		this.candidateNanos.add(candidateNanos);
+		this.candidateMaxNanos.accumulate(candidateNanos);
+
+		if (active != null) {
+			this.activeMatches.increment();
+		}
+		if (candidate != null) {
+			this.candidateMatches.increment();
+		}
+
+		if (active == null && candidate == null) {
+			return;
+		}
+		if (active == null) {
+			this.newMatches.increment();
+		} else if (candidate == null) {
+			this.lostMatches.increment();
+		} else if (active.isPreventSend() != candidate.isPreventSend()) {
+			this.changedVerdicts.increment();
+		} else {
+			return;
+		}
+
+		synchronized (this.recentDisagreements) {
+			if (this.recentDisagreements.size() == RECENT_DISAGREEMENTS) {
+				this.recentDisagreements.removeFirst();
+			}
+			this.recentDisagreements.addLast(String.format(
+				"'%s': active %s, candidate %s", message, describe(active), describe(candidate)
+			));
+		}
+	}
+
+	private static String describe(WordAction action) {
+		if (action == null) {
+			return "no match";
+		}
+		return action.getGroup() + (action.isPreventSend() ? " (blocked)" : "");
+	}
+
+	/**
+	 * Stop sampling, and wait for the sampled messages to be evaluated.
+	 *
+	 * @param timeout How long to wait
+	 * @param unit    Unit of the timeout
+	 * @return True if every sampled message was evaluated in time
+	 * @throws InterruptedException If interrupted while waiting
+	 */
+	public boolean close(long timeout, TimeUnit unit) throws InterruptedException {
+		this.executor.shutdown();
+		return this.executor.awaitTermination(timeout, unit);
+	}
+
+	/**
+	 * Stop sampling at once; messages still waiting are not evaluated.
+	 */
+	public void stop() {
+		this.executor.shutdownNow();
+	}
+
+	/**
+	 * Make the candidate the active ruleset. Its group and word list files
+	 * are copied into the data folder, and its list of groups replaces the
+	 * one in the main config; the other settings of the main config are
+	 * kept. Then the active rules are reloaded from the data folder, so
+	 * they stay active after a restart.
+	 *
+	 * Every file is first copied to a staging folder, and only moved into
+	 * place once all copies succeeded. If moving fails, the files already
+	 * moved are put back.
+	 *
+	 * @param active The active rules
+	 * @throws IOException If the candidate files could not be copied; the active rules are unchanged
+	 * @throws ConfigurationException If the candidate config could not be read
+	 */
+	public void promote(WordManager active) throws IOException, ConfigurationException {
+		Path target = active.configManager.getDataFolder();
+		List<Path> files = this.candidateFiles();
+
+		Path staging = Files.createTempDirectory(target, STAGING_PREFIX);
+		try {
+			Path staged = staging.resolve("new");
+			for (Path file : files) {
+				copy(file, staged.resolve(file.toString()));
+			}
+			Path mainConfig = staged.resolve(MAIN_CONFIG);
+			Files.createDirectories(staged);
+			Files.write(mainConfig, withGroups(
+				Files.readAllLines(target.resolve(MAIN_CONFIG), StandardCharsets.UTF_8),
+				this.candidate.configManager.getMainConfig().getConfigData().groups()
+			), StandardCharsets.UTF_8);
+
+			List<Path> replaced = new ArrayList<>(files);
+			replaced.add(Paths.get(MAIN_CONFIG));
+			moveIntoPlace(staged, staging.resolve("old"), target, replaced);
+		} finally {
+			deleteFolder(staging);
+		}
+
+		this.stop();
+		active.wordCollector.reload();
+	}
+
+	/**
+	 * @return The group and word list files of the candidate that lie inside
+	 * the shadow folder, relative to it
+	 * @throws ConfigurationException If the candidate config could not be read
+	 */
+	private List<Path> candidateFiles() throws ConfigurationException {
+		Path source = this.candidate.configManager.getDataFolder().normalize();
+		Set<Path> files = new LinkedHashSet<>();
+		for (String groupName : this.candidate.configManager.getGroupNames()) {
+			files.add(this.candidate.configManager.getGroupFile(groupName).normalize());
+			for (String fileName : this.candidate.configManager.getGroupConfigData(groupName).wordFiles()) {
+				files.add(source.resolve(fileName).normalize());
+			}
+		}
+
+		List<Path> relative = new ArrayList<>();
+		for (Path file : files) {
+			// A word list outside the shadow folder is shared with the active rules
+			if (file.startsWith(source)) {
+				relative.add(source.relativize(file));
+			}
+		}
+		return relative;
+	}
+
+	private void copy(Path relative, Path copy) throws IOException {
+		Files.createDirectories(copy.getParent());
+		Files.copy(this.candidate.configManager.getDataFolder().resolve(relative.toString()), copy);
+	}
+
+	/**
+	 * Move the staged files over the files in the data folder, keeping the
+	 * replaced files aside until every move succeeded.
+	 *
+	 * @param staged  Folder with the new files
+	 * @param old     Folder that receives the replaced files
+	 * @param target  The data folder
+	 * @param files   The files to move, relative to the folders
+	 * @throws IOException If a file could not be moved; the data folder is restored
+	 */
+	private static void moveIntoPlace(Path staged, Path old, Path target, List<Path> files) throws IOException {
+		List<Path> moved = new ArrayList<>();
+		try {
+			for (Path file : files) {
+				Path current = target.resolve(file.toString());
+				moved.add(file);
+				if (Files.exists(current)) {
+					Path kept = old.resolve(file.toString());
+					Files.createDirectories(kept.getParent());
+					Files.move(current, kept);
+				}
+				Files.createDirectories(current.getParent());
+				Files.move(staged.resolve(file.toString()), current);
+			}
+		} catch (IOException e) {
+			for (int i = moved.size() - 1; i >= 0; i--) {
+				Path current = target.resolve(moved.get(i).toString());
+				Path kept = old.resolve(moved.get(i).toString());
+				try {
+					if (Files.exists(kept)) {
+						Files.move(kept, current, StandardCopyOption.REPLACE_EXISTING);
+					} else {
+						Files.deleteIfExists(current);
+					}
+				} catch (IOException notRestored) {
+					e.addSuppressed(notRestored);
+				}
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Replace the list of groups in the lines of a main config, keeping
+	 * every other line as it is.
+	 *
+	 * @param lines  Lines of the main config
+	 * @param groups The new list of groups
+	 * @return The lines of the new main config
+	 */
+	static List<String> withGroups(List<String> lines, Set<String> groups) {
+		List<String> groupLines = new ArrayList<>();
+		groupLines.add("groups:");
+		for (String group : groups) {
+			groupLines.add("  - '" + group.replace("'", "''") + "'");
+		}
+
+		List<String> merged = new ArrayList<>();
+		boolean found = false;
+		int i = 0;
+		while (i < lines.size()) {
+			String line = lines.get(i++);
+			if (found || !line.startsWith("groups:")) {
+				merged.add(line);
+				continue;
+			}
+
+			// The list runs on while its lines are indented or list items
+			found = true;
+			merged.addAll(groupLines);
+			while (i < lines.size() && (lines.get(i).startsWith(" ") || lines.get(i).startsWith("-"))) {
+				i++;
+			}
+		}
+		if (!found) {
+			merged.addAll(groupLines);
+		}
+		return merged;
+	}
+
+	private static void deleteFolder(Path folder) throws IOException {
+		try (Stream<Path> walk = Files.walk(folder)) {
+			for (Path path : walk.sorted(Comparator.reverseOrder()).toArray(Path[]::new)) {
+				Files.deleteIfExists(path);
+			}
+		}
+	}
+
+	public WordManager getCandidate() {
+		return this.candidate;
+	}
+
+	public int getSamplePercent() {
+		return this.samplePercent;
+	}
+
+	public long getSampled() {
+		return this.sampled.sum();
+	}
+
+	public long getDropped() {
+		return this.dropped.sum();
+	}
+
+	public long getEvaluated() {
+		return this.evaluated.sum();
+	}
+
+	public long getActiveMatches() {
+		return this.activeMatches.sum();
+	}
+
+	public long getCandidateMatches() {
+		return this.candidateMatches.sum();
+	}
+
+	/**
+	 * @return Sampled messages only the candidate matched
+	 */
+	public long getNewMatches() {
+		return this.newMatches.sum();
+	}
+
+	/**
+	 * @return Sampled messages only the active rules matched
+	 */
+	public long getLostMatches() {
+		return this.lostMatches.sum();
+	}
+
+	/**
+	 * @return Sampled messages both matched, but only one of them blocked
+	 */
+	public long getChangedVerdicts() {
+		return this.changedVerdicts.sum();
+	}
+
+	/**
+	 * Produce a human readable comparison of the candidate and the active rules.
+	 *
+	 * @return Lines of the comparison, ready to be sent to a console or player
+	 */
+	public List<String> toLines() {
+		List<String> output = new ArrayList<>();
+		long total = this.getEvaluated();
+
+		output.add(String.format(
+			"Candidate ruleset: %d of %d sampled messages evaluated (%d%% sample), %d dropped while busy, %d errors.",
+			total, this.getSampled(), this.samplePercent, this.getDropped(), this.errors.sum()
+		));
+		output.add(String.format(
+			"Latency: active %.1f us average (%.1f max), candidate %.1f us average (%.1f max)",
+			average(this.activeNanos.sum(), total) / 1000, this.activeMaxNanos.get() / 1000.0,
+			average(this.candidateNanos.sum(), total) / 1000, this.candidateMaxNanos.get() / 1000.0
+		));
+		output.add(String.format(
+			"Match rate: active %.3f%%, candidate %.3f%%",
+			average(this.getActiveMatches() * 100, total), average(this.getCandidateMatches() * 100, total)
+		));
+		output.add(String.format(
+			"Disagreements: %d only matched by the candidate, %d only matched by the active rules, %d blocked by only one",
+			this.getNewMatches(), this.getLostMatches(), this.getChangedVerdicts()
+		));
+
+		synchronized (this.recentDisagreements) {
+			if (!this.recentDisagreements.isEmpty()) {
+				output.add("Recent disagreements:");
+				for (String disagreement : this.recentDisagreements) {
+					output.add("* " + disagreement);
+				}
+			}
+		}
+		return output;
+	}
+
+	private static double average(long sum, long count) {
+		return count == 0 ? 0 : sum / (double) count;
+	}
+}
@@ -0,0 +1,163 @@
+package io.github.mooeypoo.chatmonitor.words;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Checks the pages of a book, stopping at the first match that blocks the
+ * edit. A book without a blocking match reports its first match, if any.
+ *
+ * Short books are checked page by page on the calling thread. Large books
+ * are split across a fork/join pool; once any page blocks, the remaining
+ * work past that page is skipped.
+ */
+class BookEvaluator {
+	static final int FORK_THRESHOLD = 16;
+	private static final int PAGES_PER_TASK = 4;
+
+	/**
+	 * Checks a single page.
+	 */
+	interface PageCheck {
+		WordAction check(String page) throws Exception;
+	}
+
+	private final ForkJoinPool pool;
+	private final PageCheck check;
+
+	BookEvaluator(ForkJoinPool pool, PageCheck check) {
+		this.pool = pool;
+		this.check = check;
+	}
+
+	/**
+	 * @param pages The pages of the book
+	 * @return The first blocking match, else the first match, or null if no page matched
+	 * @throws Exception If a page could not be checked
+	 */
+	WordAction evaluate(List<String> pages) throws Exception {
+		if (pages.size() < FORK_THRESHOLD) {
+			WordAction firstMatch = null;
+			for (String page : pages) {
+				WordAction action = this.check.check(page);
+				if (action == null) {
+					continue;
+				}
+				if (action.isPreventSend()) {
+					return action;
+				}
+				if (firstMatch == null) {
+					firstMatch = action;
+				}
+			}
+			return firstMatch;
+		}
+
+		try {
+			PageMatch match = this.pool.invoke(new PagesTask(pages, 0, pages.size(), new AtomicInteger(Integer.MAX_VALUE)));
+			return match == null ? null : match.action;
+		} catch (PageCheckException e) {
+			throw (Exception) e.getCause();
+		}
+	}
+
+	private static class PageMatch {
+		private final int page;
+		private final WordAction action;
+
+		PageMatch(int page, WordAction action) {
+			this.page = page;
+			this.action = action;
+		}
+
+		boolean isBlocking() {
+			return this.action.isPreventSend();
+		}
+
+		/**
+		 * @return The better of two matches: blocking first, then the earlier page
+		 */
+		static PageMatch better(PageMatch a, PageMatch b) {
+			if (a == null) {
+				return b;
+			}
+			if (b == null) {
+				return a;
+			}
+			if (a.isBlocking() != b.isBlocking()) {
+				return a.isBlocking() ? a : b;
+			}
+			return a.page <= b.page ? a : b;
+		}
+	}
+
+	private static class PageCheckException extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+
+		PageCheckException(Exception cause) {
+			super(cause);
+		}
+	}
+
+	private class PagesTask extends RecursiveTask<PageMatch> {
+		private static final long serialVersionUID = 1L;
+
+		private final List<String> pages;
+		private final int from;
+		private final int to;
+		private final AtomicInteger firstBlockingPage;
+
+		PagesTask(List<String> pages, int from, int to, AtomicInteger firstBlockingPage) {
+			this.pages = pages;
+			this.from = from;
+			this.to = to;
+			this.firstBlockingPage = firstBlockingPage;
+		}
+
+		@Override
+		protected PageMatch compute() {
+			if (this.to - this.from <= PAGES_PER_TASK) {
+				return this.checkPages();
+			}
+
+			int middle = (this.from + this.to) >>> 1;
+			PagesTask left = new PagesTask(this.pages, this.from, middle, this.firstBlockingPage);
+			PagesTask right = new PagesTask(this.pages, middle, this.to, this.firstBlockingPage);
+			right.fork();
+			PageMatch leftMatch = left.compute();
+			return PageMatch.better(leftMatch, right.join());
+		}
+
+		private PageMatch checkPages() {
+			PageMatch firstMatch = null;
+			for (int i = this.from; i < this.to; i++) {
+				if (i > this.firstBlockingPage.get()) {
+					// An earlier page already blocks the book
+					break;
+				}
+
+				WordAction action;
+				try {
+					action = BookEvaluator.this.check.check(this.pages.get(i));
+				} catch (Exception e) {
+					throw new PageCheckException(e);
+				}
+				if (action == null) {
+					continue;
+				}
+
+				PageMatch match = new PageMatch(i, action);
+				if (match.isBlocking()) {
+					this.firstBlockingPage.accumulateAndGet(i, Math::min);
+					return match;
+				}
+				if (firstMatch == null) {
+					firstMatch = match;
+				}
+			}
+			return firstMatch;
+		}
+	}
+}
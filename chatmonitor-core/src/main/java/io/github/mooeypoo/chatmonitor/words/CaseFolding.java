@@ -0,0 +1,39 @@
+package io.github.mooeypoo.chatmonitor.words;
+
+/**
+ * Locale-independent case folding for the match path.
+ *
+ * ASCII characters are folded with a range check; anything else falls back
+ * to Unicode simple case folding, which is what case-insensitive regular
+ * expressions with {@code UNICODE_CASE} use. Folding never depends on the
+ * default locale, so a Turkish server folds 'I' to 'i' like every other.
+ */
+final class CaseFolding {
+	private CaseFolding() {
+		// Utility class should never be constructed
+	}
+
+	static char fold(char c) {
+		if (c < 128) {
+			return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+		}
+		return Character.toLowerCase(Character.toUpperCase(c));
+	}
+
+	static String fold(String value) {
+		StringBuilder folded = new StringBuilder(value.length());
+		for (int i = 0; i < value.length(); i++) {
+			folded.append(fold(value.charAt(i)));
+		}
+		return folded.toString();
+	}
+
+	static boolean isAscii(CharSequence value) {
+		for (int i = 0; i < value.length(); i++) {
+			if (value.charAt(i) >= 128) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,136 @@
+package io.github.mooeypoo.chatmonitor.words;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.SortedMap;
+
+import io.github.mooeypoo.chatmonitor.configs.RulesetCache;
+
+/**
+ * Binary cache of the built literal and exception tries, next to the
+ * ruleset cache of the parsed word groups.
+ *
+ * Building the tries of very large word lists, and reading their word list
+ * files, is the expensive part of loading them. The cache is keyed by the
+ * hash of the group files, which covers the engine version, and by the
+ * path, size and modification time of every word list file. When the key
+ * matches, the file is read in one go and the trie arrays are read from
+ * it in bulk.
+ */
+class CompiledTrieCache {
+	static final String FILE = "ruleset-tries.cache";
+	private static final int MAGIC = 0x434D5454; // "CMTT"
+	private static final int HASH_LENGTH = 32;
+
+	private final Path cacheFile;
+
+	/**
+	 * @param rulesetCache The cache of the parsed word groups; the tries are stored next to it
+	 */
+	CompiledTrieCache(RulesetCache rulesetCache) {
+		this.cacheFile = rulesetCache.getCacheFile().resolveSibling(FILE);
+	}
+
+	/**
+	 * @param groupsHash Hash of the group files the groups were loaded from
+	 * @param wordFiles  Word list files of every group, by group name, in a stable order
+	 * @return The key of the tries built from these files, or null if a word list file can't be read
+	 */
+	static byte[] key(byte[] groupsHash, SortedMap<String, Path[]> wordFiles) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+
+		digest.update(groupsHash);
+		ByteBuffer numbers = ByteBuffer.allocate(2 * Long.BYTES);
+		for (Map.Entry<String, Path[]> group : wordFiles.entrySet()) {
+			digest.update(group.getKey().getBytes(StandardCharsets.UTF_8));
+			digest.update((byte) 0);
+			for (Path file : group.getValue()) {
+				BasicFileAttributes attributes;
+				try {
+					attributes = Files.readAttributes(file, BasicFileAttributes.class);
+				} catch (IOException e) {
+					return null;
+				}
+				digest.update(file.toString().getBytes(StandardCharsets.UTF_8));
+				digest.update((byte) 0);
+				numbers.clear();
+				numbers.putLong(attributes.size()).putLong(attributes.lastModifiedTime().toMillis());
+				digest.update(numbers.array());
+			}
+		}
+		return digest.digest();
+	}
+
+	/**
+	 * Read the cached tries, if they were written for the given key.
+	 *
+	 * @param key Expected key, from {@link #key(byte[], SortedMap)}
+	 * @return The literal trie and the exception trie, or null if the cache is missing, stale or unreadable
+	 */
+	LiteralTrie[] read(byte[] key) {
+		if (key == null || !Files.isRegularFile(this.cacheFile)) {
+			return null;
+		}
+
+		try {
+			// Not mapped, so the file can be replaced on Windows (see RulesetCache)
+			ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(this.cacheFile));
+
+			if (buffer.getInt() != MAGIC || buffer.getInt() != RulesetCache.ENGINE_VERSION) {
+				return null;
+			}
+			byte[] storedKey = new byte[HASH_LENGTH];
+			buffer.get(storedKey);
+			if (!Arrays.equals(storedKey, key)) {
+				return null;
+			}
+
+			LiteralTrie literals = LiteralTrie.readFrom(buffer);
+			LiteralTrie exceptions = LiteralTrie.readFrom(buffer);
+			return new LiteralTrie[] { literals, exceptions };
+		} catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+			// A broken cache is never fatal; the tries are built from the groups instead
+			return null;
+		}
+	}
+
+	/**
+	 * Write the given tries to the cache file, replacing any previous cache.
+	 *
+	 * @param key        Key the tries were built for
+	 * @param literals   The literal trie
+	 * @param exceptions The exception trie
+	 * @throws IOException If the cache could not be written
+	 */
+	void write(byte[] key, LiteralTrie literals, LiteralTrie exceptions) throws IOException {
+		// Write next to the cache and move it in place, so a reader never sees a partial file
+		Path temp = this.cacheFile.resolveSibling(this.cacheFile.getFileName() + ".tmp");
+		try (OutputStream file = Files.newOutputStream(temp);
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+			out.writeInt(MAGIC);
+			out.writeInt(RulesetCache.ENGINE_VERSION);
+			out.write(key);
+			literals.writeTo(out);
+			exceptions.writeTo(out);
+		}
+		Files.move(temp, this.cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+}
@@ -0,0 +1,47 @@
+package io.github.mooeypoo.chatmonitor.words;
+
+/**
+ * The occurrences of the group exceptions in one message, found in a single
+ * scan the first time a match has to be checked against them.
+ */
+class ExceptionSpans {
+	private final LiteralTrie exceptions;
+	private final CharSequence text;
+	// Shared by the shards of a parallel evaluation
+	private volatile long[] found = null;
+
+	ExceptionSpans(LiteralTrie exceptions, CharSequence text) {
+		this.exceptions = exceptions;
+		this.text = text;
+	}
+
+	/**
+	 * @param start Start of the match, inclusive
+	 * @param end   End of the match, exclusive
+	 * @param group Group of the match; a match without a group is never an exception
+	 * @return Whether the match falls inside an exception of its group; an exception
+	 * listed by several groups covers the matches of each of them
+	 */
+	boolean covers(int start, int end, String group) {
+		int groupId = group == null ? -1 : this.exceptions.groupId(group);
+		if (groupId < 0) {
+			// The group has no exceptions
+			return false;
+		}
+		long[] found = this.found;
+		if (found == null) {
+			found = this.exceptions.findAll(this.text, null);
+			this.found = found;
+		}
+
+		for (long occurrence : found) {
+			int node = LiteralTrie.nodeOf(occurrence);
+			int exceptionEnd = LiteralTrie.endOf(occurrence);
+			if (exceptionEnd - this.exceptions.lengthAt(node) <= start && end <= exceptionEnd
+					&& this.exceptions.isOwnedBy(node, groupId)) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
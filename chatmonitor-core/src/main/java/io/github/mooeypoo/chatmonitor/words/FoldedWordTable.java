@@ -0,0 +1,94 @@
+package io.github.mooeypoo.chatmonitor.words;
+
+import java.util.Map;
+
+/**
+ * An open-addressing hash table from words to rules, looked up by a range
+ * of the original message with case folding applied on the fly, so no
+ * lowercase copy or substring of the message is ever created.
+ */
+final class FoldedWordTable {
+	private final char[][] keys;
+	private final String[] rules;
+	private final int mask;
+
+	FoldedWordTable(Map<String, String> words) {
+		int capacity = Integer.highestOneBit(Math.max(4, words.size() * 2) - 1) << 1;
+		this.keys = new char[capacity][];
+		this.rules = new String[capacity];
+		this.mask = capacity - 1;
+
+		for (Map.Entry<String, String> entry : words.entrySet()) {
+			char[] key = CaseFolding.fold(entry.getKey()).toCharArray();
+			int slot = hash(key, 0, key.length) & this.mask;
+			while (this.keys[slot] != null && !equal(this.keys[slot], key, 0, key.length)) {
+				slot = (slot + 1) & this.mask;
+			}
+			this.keys[slot] = key;
+			this.rules[slot] = entry.getValue();
+		}
+	}
+
+	/**
+	 * Look up the word at the given range of the text.
+	 *
+	 * @param text  Original text
+	 * @param start Start of the word, inclusive
+	 * @param end   End of the word, exclusive
+	 * @return The rule for this word, or null if it is not in the table
+	 */
+	String get(CharSequence text, int start, int end) {
+		int slot = hash(text, start, end) & this.mask;
+		while (this.keys[slot] != null) {
+			if (equal(this.keys[slot], text, start, end)) {
+				return this.rules[slot];
+			}
+			slot = (slot + 1) & this.mask;
+		}
+		return null;
+	}
+
+	private static int hash(char[] key, int start, int end) {
+		int h = 0;
+		for (int i = start; i < end; i++) {
+			h = 31 * h + key[i];
+		}
+		return spread(h);
+	}
+
+	private static int hash(CharSequence text, int start, int end) {
+		int h = 0;
+		for (int i = start; i < end; i++) {
+			h = 31 * h + CaseFolding.fold(text.charAt(i));
+		}
+		return spread(h);
+	}
+
+	private static int spread(int h) {
+		return h ^ (h >>> 16);
+	}
+
+	private static boolean equal(char[] key, char[] other, int start, int end) {
+		if (key.length != end - start) {
+			return false;
+		}
+		for (int i = 0; i < key.length; i++) {
+			if (key[i] != other[start + i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean equal(char[] key, CharSequence text, int start, int end) {
+		if (key.length != end - start) {
+			return false;
+		}
+		for (int i = 0; i < key.length; i++) {
+			if (key[i] != CaseFolding.fold(text.charAt(start + i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,102 @@
+package io.github.mooeypoo.chatmonitor.words;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import io.github.mooeypoo.chatmonitor.configs.GroupConfigInterface;
+
+/**
+ * What a group does when one of its rules matches: the response message,
+ * whether the text is blocked or broadcast (and whether broadcasts skip
+ * the digest), how long the player is muted, and the commands to run.
+ *
+ * Read from the group config once, when the rules are compiled, and shared
+ * by every match of the group; checking a message never goes back to the
+ * config files.
+ */
+public final class GroupAction {
+	/**
+	 * The action of a rule whose group is not known.
+	 */
+	static final GroupAction NONE = new GroupAction(null, null, false, false, false, 0, Collections.emptySet());
+
+	private final String name;
+	private final String message;
+	private final boolean preventSend;
+	private final boolean broadcast;
+	private final boolean broadcastImmediately;
+	private final int muteSeconds;
+	private final Set<String> commands;
+
+	GroupAction(
+			String name,
+			String message,
+			boolean preventSend,
+			boolean broadcast,
+			boolean broadcastImmediately,
+			int muteSeconds,
+			Set<String> commands
+	) {
+		this.name = name;
+		this.message = message;
+		this.preventSend = preventSend;
+		this.broadcast = broadcast;
+		this.broadcastImmediately = broadcastImmediately;
+		this.muteSeconds = Math.max(0, muteSeconds);
+		this.commands = commands == null
+			? Collections.emptySet()
+			: Collections.unmodifiableSet(new LinkedHashSet<>(commands));
+	}
+
+	/**
+	 * @param name   Name of the group
+	 * @param config Config of the group
+	 * @return The action of the group
+	 */
+	static GroupAction of(String name, GroupConfigInterface config) {
+		return new GroupAction(
+			name,
+			config.message(),
+			Boolean.TRUE.equals(config.preventSend()),
+			Boolean.TRUE.equals(config.broadcast()),
+			Boolean.TRUE.equals(config.broadcastImmediately()),
+			config.muteSeconds() == null ? 0 : config.muteSeconds(),
+			config.runCommands()
+		);
+	}
+
+	public String getName() {
+		return this.name;
+	}
+
+	public String getMessage() {
+		return this.message;
+	}
+
+	public boolean isPreventSend() {
+		return this.preventSend;
+	}
+
+	public boolean isBroadcast() {
+		return this.broadcast;
+	}
+
+	/**
+	 * @return Whether broadcasts go out right away instead of into the digest
+	 */
+	public boolean isBroadcastImmediately() {
+		return this.broadcastImmediately;
+	}
+
+	/**
+	 * @return How long to mute the player, in seconds; 0 to not mute
+	 */
+	public int getMuteSeconds() {
+		return this.muteSeconds;
+	}
+
+	public Set<String> getCommands() {
+		return this.commands;
+	}
+}
@@ -0,0 +1,724 @@
+package io.github.mooeypoo.chatmonitor.words;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A compact, array-backed trie of literal (non-regex) entries, scanned as an
+ * Aho-Corasick automaton.
+ *
+ * Every node is a slot in a handful of primitive arrays, and the groups
+ * that list an entry are stored as ids in one flat array, indexed from its
+ * final node, so very large word lists cost a few bytes per character
+ * instead of a String and a map entry per word. An entry listed by several
+ * groups is stored once, with all of them.
+ * A message is scanned once, left to right, no matter how many entries
+ * there are. Entries are case folded and match anywhere in the text.
+ *
+ * Since the trie is nothing but arrays, a built trie can be written to the
+ * ruleset cache and read back without building it again.
+ */
+public class LiteralTrie {
+	public static final LiteralTrie EMPTY = new Builder().build();
+
+	static final int ROOT = 0;
+	private static final int NONE = -1;
+	private static final long[] NO_MATCHES = new long[0];
+
+	private final String[] groups;
+	// Children of node n are childLabels/childTargets[childStart[n] .. childStart[n + 1]), sorted by label
+	private final int[] childStart;
+	private final char[] childLabels;
+	private final int[] childTargets;
+	private final int[] fail;
+	private final int[] outputLink;
+	// Groups of the entry ending at node n are owners[ownerStart[n] .. ownerStart[n + 1]), sorted by name
+	private final int[] ownerStart;
+	private final int[] owners;
+	private final int[] parent;
+	private final char[] label;
+	private final int[] depth;
+	private final int entryCount;
+	private final Set<String> requiredGrams;
+	private final boolean hasShortEntries;
+	private final int maxLength;
+
+	private LiteralTrie(Builder builder) {
+		int nodes = builder.count;
+		this.groups = builder.groupNames.toArray(new String[0]);
+		this.ownerStart = new int[nodes + 1];
+		this.owners = new int[builder.ownerCount];
+		int owner = 0;
+		for (int node = 0; node < nodes; node++) {
+			this.ownerStart[node] = owner;
+			int first = owner;
+			for (int link = builder.firstOwner[node]; link != NONE; link = builder.nextOwner[link]) {
+				// Insertion sort by name, so the order of the groups does not depend on load order
+				int at = owner++;
+				int id = builder.ownerGroup[link];
+				while (at > first && this.groups[this.owners[at - 1]].compareTo(this.groups[id]) > 0) {
+					this.owners[at] = this.owners[at - 1];
+					at--;
+				}
+				this.owners[at] = id;
+			}
+		}
+		this.ownerStart[nodes] = owner;
+		this.parent = Arrays.copyOf(builder.parent, nodes);
+		this.label = Arrays.copyOf(builder.label, nodes);
+		this.depth = Arrays.copyOf(builder.depth, nodes);
+		this.entryCount = builder.entryCount;
+		this.requiredGrams = Collections.unmodifiableSet(builder.requiredGrams);
+		this.hasShortEntries = builder.hasShortEntries;
+		int longest = 0;
+		for (int d : this.depth) {
+			longest = Math.max(longest, d);
+		}
+		this.maxLength = longest;
+
+		// Flatten the sibling lists into sorted child arrays
+		this.childStart = new int[nodes + 1];
+		this.childLabels = new char[Math.max(0, nodes - 1)];
+		this.childTargets = new int[Math.max(0, nodes - 1)];
+		int edge = 0;
+		for (int node = 0; node < nodes; node++) {
+			this.childStart[node] = edge;
+			int first = edge;
+			for (int child = builder.firstChild[node]; child != NONE; child = builder.nextSibling[child]) {
+				// Insertion sort; most nodes have very few children
+				int at = edge++;
+				while (at > first && this.childLabels[at - 1] > builder.label[child]) {
+					this.childLabels[at] = this.childLabels[at - 1];
+					this.childTargets[at] = this.childTargets[at - 1];
+					at--;
+				}
+				this.childLabels[at] = builder.label[child];
+				this.childTargets[at] = child;
+			}
+		}
+		this.childStart[nodes] = edge;
+
+		// Failure and output links, breadth first so shallower nodes are done first
+		this.fail = new int[nodes];
+		this.outputLink = new int[nodes];
+		this.outputLink[ROOT] = NONE;
+		int[] queue = new int[nodes];
+		int head = 0;
+		int tail = 0;
+		queue[tail++] = ROOT;
+		while (head < tail) {
+			int node = queue[head++];
+			for (int e = this.childStart[node]; e < this.childStart[node + 1]; e++) {
+				int child = this.childTargets[e];
+				char c = this.childLabels[e];
+				int target = ROOT;
+				if (node != ROOT) {
+					int f = this.fail[node];
+					int next = this.findChild(f, c);
+					while (next == NONE && f != ROOT) {
+						f = this.fail[f];
+						next = this.findChild(f, c);
+					}
+					target = next == NONE ? ROOT : next;
+				}
+				this.fail[child] = target;
+				this.outputLink[child] = this.isEntry(child) ? child : this.outputLink[target];
+				queue[tail++] = child;
+			}
+		}
+	}
+
+	private LiteralTrie(
+			String[] groups,
+			int[] childStart,
+			char[] childLabels,
+			int[] childTargets,
+			int[] fail,
+			int[] outputLink,
+			int[] ownerStart,
+			int[] owners,
+			int[] parent,
+			char[] label,
+			int[] depth,
+			int entryCount,
+			Set<String> requiredGrams,
+			boolean hasShortEntries
+	) {
+		int nodes = label.length;
+		if (nodes == 0 || childStart.length != nodes + 1 || ownerStart.length != nodes + 1
+				|| fail.length != nodes || outputLink.length != nodes || parent.length != nodes || depth.length != nodes
+				|| childLabels.length != childTargets.length || ownerStart[nodes] != owners.length) {
+			throw new IllegalArgumentException("Inconsistent trie arrays");
+		}
+		checkRange(childTargets, 1, nodes);
+		checkRange(fail, ROOT, nodes);
+		checkRange(outputLink, NONE, nodes);
+		checkRange(parent, NONE, nodes);
+		checkRange(ownerStart, 0, owners.length + 1);
+		checkRange(owners, 0, groups.length);
+		this.groups = groups;
+		this.childStart = childStart;
+		this.childLabels = childLabels;
+		this.childTargets = childTargets;
+		this.fail = fail;
+		this.outputLink = outputLink;
+		this.ownerStart = ownerStart;
+		this.owners = owners;
+		this.parent = parent;
+		this.label = label;
+		this.depth = depth;
+		this.entryCount = entryCount;
+		this.requiredGrams = Collections.unmodifiableSet(requiredGrams);
+		this.hasShortEntries = hasShortEntries;
+		int longest = 0;
+		for (int d : depth) {
+			longest = Math.max(longest, d);
+		}
+		this.maxLength = longest;
+	}
+
+	/**
+	 * Write the trie, as built, for {@link #readFrom(ByteBuffer)}.
+	 *
+	 * @param out Stream to write to
+	 * @throws IOException If writing failed
+	 */
+	void writeTo(DataOutputStream out) throws IOException {
+		out.writeInt(this.groups.length);
+		for (String group : this.groups) {
+			writeString(out, group);
+		}
+		out.writeInt(this.requiredGrams.size());
+		for (String gram : this.requiredGrams) {
+			writeString(out, gram);
+		}
+		out.writeInt(this.entryCount);
+		out.writeBoolean(this.hasShortEntries);
+		writeChars(out, this.label);
+		writeInts(out, this.parent);
+		writeInts(out, this.depth);
+		writeInts(out, this.childStart);
+		writeChars(out, this.childLabels);
+		writeInts(out, this.childTargets);
+		writeInts(out, this.fail);
+		writeInts(out, this.outputLink);
+		writeInts(out, this.ownerStart);
+		writeInts(out, this.owners);
+	}
+
+	/**
+	 * Read a trie written by {@link #writeTo(DataOutputStream)}, in bulk, from
+	 * a cache file; nothing is built again.
+	 *
+	 * @param buffer Buffer positioned at the trie; left positioned after it
+	 * @return The trie
+	 * @throws IllegalArgumentException If the data is not a consistent trie
+	 * @throws java.nio.BufferUnderflowException If the data ends early
+	 */
+	static LiteralTrie readFrom(ByteBuffer buffer) {
+		String[] groups = new String[readLength(buffer)];
+		for (int i = 0; i < groups.length; i++) {
+			groups[i] = readString(buffer);
+		}
+		int gramCount = readLength(buffer);
+		Set<String> grams = new HashSet<>();
+		for (int i = 0; i < gramCount; i++) {
+			grams.add(readString(buffer));
+		}
+		int entryCount = buffer.getInt();
+		boolean hasShortEntries = buffer.get() != 0;
+		char[] label = readChars(buffer);
+		int[] parent = readInts(buffer);
+		int[] depth = readInts(buffer);
+		int[] childStart = readInts(buffer);
+		char[] childLabels = readChars(buffer);
+		int[] childTargets = readInts(buffer);
+		int[] fail = readInts(buffer);
+		int[] outputLink = readInts(buffer);
+		int[] ownerStart = readInts(buffer);
+		int[] owners = readInts(buffer);
+		return new LiteralTrie(
+			groups, childStart, childLabels, childTargets, fail, outputLink, ownerStart, owners,
+			parent, label, depth, entryCount, grams, hasShortEntries
+		);
+	}
+
+	/**
+	 * A corrupt cache must fail on load, not while scanning a message.
+	 */
+	private static void checkRange(int[] values, int min, int max) {
+		for (int value : values) {
+			if (value < min || value >= max) {
+				throw new IllegalArgumentException("Trie node out of range");
+			}
+		}
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(encoded.length);
+		out.write(encoded);
+	}
+
+	private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+		out.writeInt(values.length);
+		for (int value : values) {
+			out.writeInt(value);
+		}
+	}
+
+	private static void writeChars(DataOutputStream out, char[] values) throws IOException {
+		out.writeInt(values.length);
+		for (char value : values) {
+			out.writeChar(value);
+		}
+	}
+
+	private static int readLength(ByteBuffer buffer) {
+		int length = buffer.getInt();
+		if (length < 0 || length > buffer.remaining()) {
+			throw new IllegalArgumentException("Corrupt length in trie data");
+		}
+		return length;
+	}
+
+	private static String readString(ByteBuffer buffer) {
+		byte[] encoded = new byte[readLength(buffer)];
+		buffer.get(encoded);
+		return new String(encoded, StandardCharsets.UTF_8);
+	}
+
+	private static int[] readInts(ByteBuffer buffer) {
+		int[] values = new int[readLength(buffer)];
+		buffer.asIntBuffer().get(values);
+		buffer.position(buffer.position() + values.length * Integer.BYTES);
+		return values;
+	}
+
+	private static char[] readChars(ByteBuffer buffer) {
+		char[] values = new char[readLength(buffer)];
+		buffer.asCharBuffer().get(values);
+		buffer.position(buffer.position() + values.length * Character.BYTES);
+		return values;
+	}
+
+	/**
+	 * Collects entries and builds the trie.
+	 */
+	public static class Builder {
+		private int[] firstChild = new int[16];
+		private int[] nextSibling = new int[16];
+		private int[] firstOwner = new int[16];
+		private int[] parent = new int[16];
+		private char[] label = new char[16];
+		private int[] depth = new int[16];
+		private int count = 0;
+		private int entryCount = 0;
+		// Owners of each node, as linked lists of (group, next) links
+		private int[] ownerGroup = new int[16];
+		private int[] nextOwner = new int[16];
+		private int ownerCount = 0;
+		private final List<String> groupNames = new ArrayList<>();
+		private final Map<String, Integer> groupIds = new HashMap<>();
+		private final Set<String> requiredGrams = new HashSet<>();
+		private boolean hasShortEntries = false;
+
+		public Builder() {
+			this.newNode(NONE, (char) 0);
+		}
+
+		public Builder add(String literal, String groupName) {
+			return this.add(literal, 0, literal.length(), groupName);
+		}
+
+		/**
+		 * Add the entry found in the given range of characters, without
+		 * creating a String for it.
+		 *
+		 * @param text      Characters holding the entry
+		 * @param start     Start of the entry, inclusive
+		 * @param end       End of the entry, exclusive
+		 * @param groupName Group the entry belongs to; an entry can belong to several groups
+		 * @return This builder
+		 */
+		public Builder add(CharSequence text, int start, int end, String groupName) {
+			if (start >= end) {
+				return this;
+			}
+
+			int groupId = this.groupIds.computeIfAbsent(groupName, name -> {
+				this.groupNames.add(name);
+				return this.groupNames.size() - 1;
+			});
+
+			int node = ROOT;
+			for (int i = start; i < end; i++) {
+				char c = CaseFolding.fold(text.charAt(i));
+				int child = this.firstChild[node];
+				while (child != NONE && this.label[child] != c) {
+					child = this.nextSibling[child];
+				}
+				if (child == NONE) {
+					child = this.newNode(node, c);
+				}
+				node = child;
+			}
+
+			this.addOwner(node, groupId);
+
+			if (end - start >= NgramPrefilter.GRAM_LENGTH) {
+				this.requiredGrams.add(new String(new char[] {
+					CaseFolding.fold(text.charAt(start)),
+					CaseFolding.fold(text.charAt(start + 1)),
+					CaseFolding.fold(text.charAt(start + 2))
+				}));
+			} else {
+				this.hasShortEntries = true;
+			}
+			return this;
+		}
+
+		public LiteralTrie build() {
+			return new LiteralTrie(this);
+		}
+
+		private void addOwner(int node, int groupId) {
+			if (this.firstOwner[node] == NONE) {
+				this.entryCount++;
+			}
+			for (int link = this.firstOwner[node]; link != NONE; link = this.nextOwner[link]) {
+				if (this.ownerGroup[link] == groupId) {
+					return;
+				}
+			}
+
+			if (this.ownerCount == this.ownerGroup.length) {
+				this.ownerGroup = Arrays.copyOf(this.ownerGroup, this.ownerCount * 2);
+				this.nextOwner = Arrays.copyOf(this.nextOwner, this.ownerCount * 2);
+			}
+			int link = this.ownerCount++;
+			this.ownerGroup[link] = groupId;
+			this.nextOwner[link] = this.firstOwner[node];
+			this.firstOwner[node] = link;
+		}
+
+		private int newNode(int parentNode, char c) {
+			if (this.count == this.label.length) {
+				int size = this.count * 2;
+				this.firstChild = Arrays.copyOf(this.firstChild, size);
+				this.nextSibling = Arrays.copyOf(this.nextSibling, size);
+				this.firstOwner = Arrays.copyOf(this.firstOwner, size);
+				this.parent = Arrays.copyOf(this.parent, size);
+				this.label = Arrays.copyOf(this.label, size);
+				this.depth = Arrays.copyOf(this.depth, size);
+			}
+
+			int node = this.count++;
+			this.firstChild[node] = NONE;
+			this.firstOwner[node] = NONE;
+			this.parent[node] = parentNode;
+			this.label[node] = c;
+			if (parentNode == NONE) {
+				this.nextSibling[node] = NONE;
+				this.depth[node] = 0;
+			} else {
+				this.nextSibling[node] = this.firstChild[parentNode];
+				this.firstChild[parentNode] = node;
+				this.depth[node] = this.depth[parentNode] + 1;
+			}
+			return node;
+		}
+	}
+
+	/**
+	 * Scan the text for the first entry that belongs to at least one of the allowed groups.
+	 *
+	 * @param text          Text to scan; case is folded on the fly
+	 * @param allowedGroups Allowed groups by group id, or null to allow all groups
+	 * @return The matching node and the end of the match, packed by {@link #pack(int, int)},
+	 * or -1 if nothing matched
+	 */
+	long find(CharSequence text, boolean[] allowedGroups) {
+		if (this.entryCount == 0) {
+			return NONE;
+		}
+
+		int state = ROOT;
+		for (int i = 0; i < text.length(); i++) {
+			state = this.step(state, CaseFolding.fold(text.charAt(i)));
+			for (int out = this.outputLink[state]; out != NONE; out = this.outputLink[this.fail[out]]) {
+				if (this.isAllowed(out, allowedGroups)) {
+					return pack(out, i + 1);
+				}
+			}
+		}
+		return NONE;
+	}
+
+	/**
+	 * Scan the text for every occurrence of an entry that belongs to at least one of the allowed groups.
+	 *
+	 * @param text          Text to scan; case is folded on the fly
+	 * @param allowedGroups Allowed groups by group id, or null to allow all groups
+	 * @return The matching nodes and the ends of the matches, each packed by {@link #pack(int, int)},
+	 * in the order {@link #find(CharSequence, boolean[])} would find them
+	 */
+	long[] findAll(CharSequence text, boolean[] allowedGroups) {
+		if (this.entryCount == 0) {
+			return NO_MATCHES;
+		}
+
+		long[] found = NO_MATCHES;
+		int count = 0;
+		int state = ROOT;
+		for (int i = 0; i < text.length(); i++) {
+			state = this.step(state, CaseFolding.fold(text.charAt(i)));
+			for (int out = this.outputLink[state]; out != NONE; out = this.outputLink[this.fail[out]]) {
+				if (this.isAllowed(out, allowedGroups)) {
+					if (count == found.length) {
+						found = Arrays.copyOf(found, Math.max(4, count * 2));
+					}
+					found[count++] = pack(out, i + 1);
+				}
+			}
+		}
+		return count == found.length ? found : Arrays.copyOf(found, count);
+	}
+
+	/**
+	 * Continue a scan that ended in the given state, as if the text followed
+	 * the earlier text directly, and find the first entry that starts in the
+	 * earlier text and ends in this one. Entries that lie inside this text
+	 * are not reported. Only the start of the text is scanned.
+	 *
+	 * @param state         State the earlier scan ended in
+	 * @param text          Text to scan; case is folded on the fly
+	 * @param allowedGroups Allowed groups by group id, or null to allow all groups
+	 * @return The matching node and the end of the match in this text, packed by
+	 * {@link #pack(int, int)}, or -1 if nothing matched
+	 */
+	long findAcross(int state, CharSequence text, boolean[] allowedGroups) {
+		if (this.entryCount == 0 || state == ROOT) {
+			return NONE;
+		}
+
+		// Past this point, a match can no longer start in the earlier text
+		int limit = Math.min(text.length(), this.maxLength - 1);
+		for (int i = 0; i < limit; i++) {
+			state = this.step(state, CaseFolding.fold(text.charAt(i)));
+			for (int out = this.outputLink[state]; out != NONE; out = this.outputLink[this.fail[out]]) {
+				if (this.depth[out] > i + 1 && this.isAllowed(out, allowedGroups)) {
+					return pack(out, i + 1);
+				}
+			}
+		}
+		return NONE;
+	}
+
+	/**
+	 * The state a scan is in after the given text. Only the end of the text
+	 * is scanned, since the state never reaches back further than the longest entry.
+	 *
+	 * @param state State before the text
+	 * @param text  Text to scan; case is folded on the fly
+	 * @return The state after the text
+	 */
+	int stateAfter(int state, CharSequence text) {
+		if (this.entryCount == 0) {
+			return ROOT;
+		}
+
+		int from = 0;
+		if (text.length() >= this.maxLength) {
+			state = ROOT;
+			from = text.length() - this.maxLength;
+		}
+		for (int i = from; i < text.length(); i++) {
+			state = this.step(state, CaseFolding.fold(text.charAt(i)));
+		}
+		return state;
+	}
+
+	/**
+	 * Advance the automaton by one case folded character.
+	 *
+	 * @param state Current node
+	 * @param c     Next character, already case folded
+	 * @return The next node
+	 */
+	int step(int state, char c) {
+		int node = state;
+		int next = this.findChild(node, c);
+		while (next == NONE && node != ROOT) {
+			node = this.fail[node];
+			next = this.findChild(node, c);
+		}
+		return next == NONE ? ROOT : next;
+	}
+
+	private boolean isEntry(int node) {
+		return this.ownerStart[node] < this.ownerStart[node + 1];
+	}
+
+	private boolean isAllowed(int node, boolean[] allowedGroups) {
+		if (allowedGroups == null) {
+			return true;
+		}
+		for (int i = this.ownerStart[node]; i < this.ownerStart[node + 1]; i++) {
+			if (allowedGroups[this.owners[i]]) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private int findChild(int node, char c) {
+		int low = this.childStart[node];
+		int high = this.childStart[node + 1] - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			char found = this.childLabels[middle];
+			if (found < c) {
+				low = middle + 1;
+			} else if (found > c) {
+				high = middle - 1;
+			} else {
+				return this.childTargets[middle];
+			}
+		}
+		return NONE;
+	}
+
+	static long pack(int node, int end) {
+		return ((long) node << 32) | (end & 0xffffffffL);
+	}
+
+	static int nodeOf(long packed) {
+		return (int) (packed >>> 32);
+	}
+
+	static int endOf(long packed) {
+		return (int) packed;
+	}
+
+	/**
+	 * @param node Node that ends an entry
+	 * @return The case folded entry, rebuilt from the path to the node
+	 */
+	String entryAt(int node) {
+		char[] entry = new char[this.depth[node]];
+		for (int n = node; n != ROOT; n = this.parent[n]) {
+			entry[this.depth[n] - 1] = this.label[n];
+		}
+		return new String(entry);
+	}
+
+	int lengthAt(int node) {
+		return this.depth[node];
+	}
+
+	/**
+	 * @param node Node that ends an entry
+	 * @return Number of groups that list the entry
+	 */
+	int ownerCountAt(int node) {
+		return this.ownerStart[node + 1] - this.ownerStart[node];
+	}
+
+	/**
+	 * @param node  Node that ends an entry
+	 * @param index Index of the owner, below {@link #ownerCountAt(int)}
+	 * @return Id of the group; the groups of an entry are in order of their names
+	 */
+	int ownerIdAt(int node, int index) {
+		return this.owners[this.ownerStart[node] + index];
+	}
+
+	/**
+	 * @param node    Node that ends an entry
+	 * @param groupId Id of a group
+	 * @return Whether the group lists the entry
+	 */
+	boolean isOwnedBy(int node, int groupId) {
+		for (int i = this.ownerStart[node]; i < this.ownerStart[node + 1]; i++) {
+			if (this.owners[i] == groupId) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @param groupId Id of a group
+	 * @return Name of the group
+	 */
+	String groupName(int groupId) {
+		return this.groups[groupId];
+	}
+
+	/**
+	 * @param groupName Group name
+	 * @return The id of the group, or -1 if the group has no entries
+	 */
+	int groupId(String groupName) {
+		for (int i = 0; i < this.groups.length; i++) {
+			if (this.groups[i].equals(groupName)) {
+				return i;
+			}
+		}
+		return NONE;
+	}
+
+	int getGroupCount() {
+		return this.groups.length;
+	}
+
+	/**
+	 * @return The first trigram of every entry that has one, for the prefilter
+	 */
+	Set<String> getRequiredGrams() {
+		return this.requiredGrams;
+	}
+
+	/**
+	 * @return Length of the longest entry
+	 */
+	int getMaxLength() {
+		return this.maxLength;
+	}
+
+	/**
+	 * @return Whether any entry is too short to be covered by the prefilter
+	 */
+	boolean hasShortEntries() {
+		return this.hasShortEntries;
+	}
+
+	public int getEntryCount() {
+		return this.entryCount;
+	}
+
+	public int getNodeCount() {
+		return this.label.length;
+	}
+
+	/**
+	 * @return Approximate size of the trie arrays, in bytes
+	 */
+	public long getMemoryFootprint() {
+		long ints = (long) this.childStart.length + this.childTargets.length + this.fail.length
+			+ this.outputLink.length + this.ownerStart.length + this.owners.length + this.parent.length + this.depth.length;
+		long chars = (long) this.childLabels.length + this.label.length;
+		return ints * Integer.BYTES + chars * Character.BYTES;
+	}
+}
@@ -0,0 +1,95 @@
+package io.github.mooeypoo.chatmonitor.words;
+
+/**
+ * What a player said last, carried over to their next message, so a word
+ * split across several messages ("f", "u", "c", "k") is still matched.
+ *
+ * Only the state of the literal scan and a short tail of the earlier text
+ * are kept, so a stream stays small however much the player says. A stream
+ * is forgotten after a pause, and after every match.
+ *
+ * Checks of one stream are serialized on the stream; different players
+ * are checked in parallel.
+ */
+public class MessageStream {
+	/**
+	 * Number of characters of earlier text that are kept.
+	 */
+	static final int TAIL_LENGTH = 32;
+
+	private RuleSet rules = null;
+	private int state = LiteralTrie.ROOT;
+	private String tail = "";
+	private long messageStarts = 0;
+	private long lastMillis = 0;
+
+	/**
+	 * @param now          Current time, in milliseconds
+	 * @param maxGapMillis Longest pause that still joins two messages
+	 * @return Whether the last message is too long ago to be joined
+	 */
+	public synchronized boolean isExpired(long now, long maxGapMillis) {
+		return now - this.lastMillis > maxGapMillis;
+	}
+
+	/**
+	 * Forget the earlier text.
+	 */
+	public synchronized void reset() {
+		this.rules = null;
+		this.state = LiteralTrie.ROOT;
+		this.tail = "";
+		this.messageStarts = 0;
+	}
+
+	/**
+	 * @param rules The rules the next message is checked against
+	 * @return Whether the carried state belongs to these rules
+	 */
+	boolean isFor(RuleSet rules) {
+		return this.rules == rules;
+	}
+
+	int getState() {
+		return this.state;
+	}
+
+	String getTail() {
+		return this.tail;
+	}
+
+	/**
+	 * @param index Position in the tail
+	 * @return Whether a message starts at this position
+	 */
+	boolean isMessageStart(int index) {
+		return (this.messageStarts & (1L << index)) != 0;
+	}
+
+	/**
+	 * Carry the state after a message over to the next one.
+	 *
+	 * @param rules        The rules the message was checked against
+	 * @param state        State of the literal scan after the message
+	 * @param text         The earlier tail and the message, joined
+	 * @param messageStart Where the message starts in the joined text
+	 * @param now          Current time, in milliseconds
+	 */
+	void carry(RuleSet rules, int state, String text, int messageStart, long now) {
+		long starts = this.messageStarts | (1L << messageStart);
+		int cut = Math.max(0, text.length() - TAIL_LENGTH);
+		this.rules = rules;
+		this.state = state;
+		this.tail = text.substring(cut);
+		// A shift by 64 or more would wrap around instead of clearing the bits
+		this.messageStarts = cut >= Long.SIZE ? 0 : starts >>> cut;
+		this.lastMillis = now;
+	}
+
+	/**
+	 * @param now Current time, in milliseconds
+	 */
+	void touch(long now) {
+		this.lastMillis = now;
+	}
+}
@@ -0,0 +1,315 @@
+package io.github.mooeypoo.chatmonitor.words;
+
+import java.util.Collection;
+
+/**
+ * A Bloom filter over character trigrams that every rule requires.
+ *
+ * Each rule contributes one trigram that any matching text must contain.
+ * If none of the trigrams of a message are in the filter, none of those
+ * rules can match and the message can be declared clean without running
+ * them. The filter can answer "maybe" for a clean message (a false positive),
+ * but never "no" for a message that one of its rules would match.
+ */
+public class NgramPrefilter {
+	public static final int GRAM_LENGTH = 3;
+	private static final double TARGET_FALSE_POSITIVE_RATE = 0.01;
+	private static final int MIN_BITS = 64;
+
+	private final long[] bits;
+	private final int bitCount;
+	private final int hashCount;
+	private final int entryCount;
+
+	private NgramPrefilter(int expectedEntries) {
+		// Standard sizing for the target false positive rate
+		double ln2 = Math.log(2);
+		int optimalBits = (int) Math.ceil(-expectedEntries * Math.log(TARGET_FALSE_POSITIVE_RATE) / (ln2 * ln2));
+		this.bitCount = Math.max(MIN_BITS, (optimalBits + 63) & ~63);
+		this.hashCount = Math.max(1, (int) Math.round((double) this.bitCount / expectedEntries * ln2));
+		this.bits = new long[this.bitCount / 64];
+		this.entryCount = expectedEntries;
+	}
+
+	/**
+	 * Build a filter from the given trigrams.
+	 *
+	 * @param grams Case folded strings of exactly {@link #GRAM_LENGTH} characters
+	 * @return The filter, or null if there are no trigrams to filter on
+	 */
+	static NgramPrefilter build(Collection<String> grams) {
+		if (grams.isEmpty()) {
+			return null;
+		}
+
+		NgramPrefilter filter = new NgramPrefilter(grams.size());
+		for (String gram : grams) {
+			filter.add(key(gram.charAt(0), gram.charAt(1), gram.charAt(2)));
+		}
+		return filter;
+	}
+
+	/**
+	 * Check whether any trigram of the given string may be in the filter.
+	 *
+	 * @param testString String to test; case is folded on the fly
+	 * @return False if none of the rules behind this filter can match the string
+	 */
+	boolean mightMatch(String testString) {
+		if (testString.length() < GRAM_LENGTH) {
+			return false;
+		}
+
+		// Slide over the string, folding every character only once
+		char first = CaseFolding.fold(testString.charAt(0));
+		char second = CaseFolding.fold(testString.charAt(1));
+		for (int i = GRAM_LENGTH - 1; i < testString.length(); i++) {
+			char third = CaseFolding.fold(testString.charAt(i));
+			if (this.mightContain(key(first, second, third))) {
+				return true;
+			}
+			first = second;
+			second = third;
+		}
+		return false;
+	}
+
+	/**
+	 * @return Size of the filter in bits
+	 */
+	public int getBitCount() {
+		return this.bitCount;
+	}
+
+	/**
+	 * @return Number of hash functions per trigram
+	 */
+	public int getHashCount() {
+		return this.hashCount;
+	}
+
+	/**
+	 * @return Number of trigrams in the filter
+	 */
+	public int getEntryCount() {
+		return this.entryCount;
+	}
+
+	/**
+	 * @return Expected false positive rate for a single trigram lookup
+	 */
+	public double getFalsePositiveRate() {
+		return Math.pow(1 - Math.exp(-(double) this.hashCount * this.entryCount / this.bitCount), this.hashCount);
+	}
+
+	/**
+	 * Find one trigram that any text matched by the given rule must contain.
+	 *
+	 * The rule is scanned conservatively: only characters that are always
+	 * required, in sequence, count. Anything the scan does not understand
+	 * (alternation, inline flags, quoting) means no trigram is found, and the
+	 * rule is then always evaluated.
+	 *
+	 * @param rule Regular expression rule
+	 * @return A required case folded trigram, or null if none could be found
+	 */
+	static String requiredGram(String rule) {
+		String literal = longestRequiredLiteral(rule);
+		if (literal == null || literal.length() < GRAM_LENGTH) {
+			return null;
+		}
+		return literal.substring(0, GRAM_LENGTH);
+	}
+
+	private static String longestRequiredLiteral(String rule) {
+		StringBuilder run = new StringBuilder();
+		String best = "";
+		int i = 0;
+
+		while (i < rule.length()) {
+			char c = rule.charAt(i);
+			Character literal = null;
+
+			// Read one atom
+			if (c == '\\') {
+				if (i + 1 >= rule.length()) {
+					return null;
+				}
+				char escaped = rule.charAt(i + 1);
+				if (Character.isDigit(escaped) || "xucpPkNQE".indexOf(escaped) >= 0) {
+					// Numeric escapes, back references, properties and quoting
+					return null;
+				}
+				if (!Character.isLetter(escaped)) {
+					literal = escaped;
+				}
+				// Other letters are classes or assertions
+				i += 2;
+			} else if (c == '[') {
+				i = skipClass(rule, i);
+			} else if (c == '(') {
+				if (i + 2 < rule.length() && rule.charAt(i + 1) == '?'
+						&& (Character.isLetter(rule.charAt(i + 2)) || rule.charAt(i + 2) == '-')) {
+					// Inline flags may change what a literal means
+					return null;
+				}
+				i = skipGroup(rule, i);
+			} else if (c == '.' || c == '^' || c == '$') {
+				i++;
+			} else if ("|)]?*+{".indexOf(c) >= 0) {
+				// Alternation, or something we can't follow
+				return null;
+			} else {
+				literal = c;
+				i++;
+			}
+
+			if (i < 0) {
+				return null;
+			}
+
+			// Apply the quantifier that follows the atom, if any
+			char quantifier = i < rule.length() ? rule.charAt(i) : 0;
+			if (quantifier == '?' || quantifier == '*' || quantifier == '{' || quantifier == '+') {
+				i = skipQuantifier(rule, i);
+				if (i < 0) {
+					return null;
+				}
+				if (quantifier == '+' && literal != null) {
+					// Required, but what follows may come after repeats of it
+					run.append(CaseFolding.fold(literal));
+					best = longer(best, run);
+					run.setLength(0);
+					run.append(CaseFolding.fold(literal));
+				} else {
+					best = longer(best, run);
+					run.setLength(0);
+				}
+				continue;
+			}
+
+			if (literal != null) {
+				run.append(CaseFolding.fold(literal));
+			} else {
+				// Classes, groups and assertions break the sequence
+				best = longer(best, run);
+				run.setLength(0);
+			}
+		}
+
+		return longer(best, run);
+	}
+
+	private static String longer(String best, StringBuilder run) {
+		return run.length() > best.length() ? run.toString() : best;
+	}
+
+	private static int skipClass(String rule, int start) {
+		int i = start + 1;
+		if (i < rule.length() && rule.charAt(i) == '^') {
+			i++;
+		}
+		if (i < rule.length() && rule.charAt(i) == ']') {
+			i++;
+		}
+		int depth = 1;
+		while (i < rule.length()) {
+			char c = rule.charAt(i);
+			if (c == '\\') {
+				i += 2;
+				continue;
+			}
+			if (c == '[') {
+				depth++;
+			} else if (c == ']' && --depth == 0) {
+				return i + 1;
+			}
+			i++;
+		}
+		return -1;
+	}
+
+	private static int skipGroup(String rule, int start) {
+		int depth = 0;
+		int i = start;
+		while (i < rule.length()) {
+			char c = rule.charAt(i);
+			if (c == '\\') {
+				i += 2;
+				continue;
+			}
+			if (c == '[') {
+				i = skipClass(rule, i);
+				if (i < 0) {
+					return -1;
+				}
+				continue;
+			}
+			if (c == '(') {
+				depth++;
+			} else if (c == ')' && --depth == 0) {
+				return i + 1;
+			}
+			i++;
+		}
+		return -1;
+	}
+
+	private static int skipQuantifier(String rule, int start) {
+		int i = start;
+		if (rule.charAt(i) == '{') {
+			int end = rule.indexOf('}', i);
+			if (end < 0) {
+				return -1;
+			}
+			i = end + 1;
+		} else {
+			i++;
+		}
+		// Lazy or possessive modifier
+		if (i < rule.length() && (rule.charAt(i) == '?' || rule.charAt(i) == '+')) {
+			i++;
+		}
+		return i;
+	}
+
+	private static long key(char a, char b, char c) {
+		return ((long) a << 32) | ((long) b << 16) | c;
+	}
+
+	private void add(long key) {
+		long hash = mix(key);
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		for (int i = 0; i < this.hashCount; i++) {
+			int bit = Math.floorMod(h1 + i * h2, this.bitCount);
+			this.bits[bit >>> 6] |= 1L << bit;
+		}
+	}
+
+	private boolean mightContain(long key) {
+		long hash = mix(key);
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		for (int i = 0; i < this.hashCount; i++) {
+			int bit = Math.floorMod(h1 + i * h2, this.bitCount);
+			if ((this.bits[bit >>> 6] & (1L << bit)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 64-bit finalizer from MurmurHash3.
+	 */
+	private static long mix(long key) {
+		long h = key;
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+}
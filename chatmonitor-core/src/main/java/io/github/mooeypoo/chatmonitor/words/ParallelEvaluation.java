@@ -0,0 +1,211 @@
+package io.github.mooeypoo.chatmonitor.words;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Checks the regular expression rules of large rule sets in parallel, shard
+ * by shard, on a dedicated work-stealing pool.
+ *
+ * Only sets with at least {@code minRules} regular expression rules, and
+ * texts of at least {@code minLength} characters, are split up; anything
+ * smaller is cheaper to check on the calling thread. The verdict is the
+ * same as when checking the rules one after another: the first rule that
+ * matches. Once a rule matches, the shards stop checking the rules past it,
+ * so a match early in the set cancels the remaining shards.
+ */
+public class ParallelEvaluation {
+	private final int minRules;
+	private final int minLength;
+	private final ForkJoinPool pool;
+
+	/**
+	 * @param minRules  Number of regular expression rules a set needs to be checked in parallel
+	 * @param minLength Length a text needs to be checked in parallel
+	 * @param threads   Number of threads in the pool
+	 */
+	public ParallelEvaluation(int minRules, int minLength, int threads) {
+		this.minRules = Math.max(1, minRules);
+		this.minLength = Math.max(0, minLength);
+		this.pool = new ForkJoinPool(Math.max(1, threads), pool -> {
+			ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+			thread.setName("ChatMonitor-rules-" + thread.getPoolIndex());
+			thread.setDaemon(true);
+			return thread;
+		}, null, false);
+	}
+
+	/**
+	 * @param ruleCount Number of regular expression rules in the set
+	 * @param length    Length of the text
+	 * @return Whether the set is checked in parallel for this text
+	 */
+	boolean appliesTo(int ruleCount, int length) {
+		return ruleCount >= this.minRules && length >= this.minLength;
+	}
+
+	/**
+	 * Check the regular expression rules of the set.
+	 *
+	 * @param rules      The rule set
+	 * @param testString String to test, as sent
+	 * @param candidate  Whether the trigram filter let the string through
+	 * @param spans      Exceptions in the string, or null if there are none
+	 * @return The first rule that matches, or null if none was matched
+	 * @throws Exception If a rule that had to be evaluated is not a valid regular expression
+	 */
+	WordAction evaluate(RuleSet rules, String testString, boolean candidate, ExceptionSpans spans) throws Exception {
+		List<Pattern> compiled = rules.patternsFor(testString);
+		ShardResult result = this.pool.invoke(new ShardsTask(
+			rules, testString, candidate, compiled, spans, 0, rules.getShardCount(), new AtomicInteger(Integer.MAX_VALUE)
+		));
+		if (result == null) {
+			return null;
+		}
+		if (result.error != null) {
+			throw result.error;
+		}
+		return result.action;
+	}
+
+	public int getMinRules() {
+		return this.minRules;
+	}
+
+	public int getMinLength() {
+		return this.minLength;
+	}
+
+	public int getThreads() {
+		return this.pool.getParallelism();
+	}
+
+	/**
+	 * Stop the threads of the pool, once running checks are done.
+	 *
+	 * @param timeout How long to wait
+	 * @param unit    Unit of the timeout
+	 * @return True if the pool stopped in time
+	 * @throws InterruptedException If interrupted while waiting
+	 */
+	public boolean close(long timeout, TimeUnit unit) throws InterruptedException {
+		this.stop();
+		return this.pool.awaitTermination(timeout, unit);
+	}
+
+	/**
+	 * Stop the threads of the pool, once running checks are done, without waiting.
+	 */
+	public void stop() {
+		this.pool.shutdown();
+	}
+
+	/**
+	 * The first match in a range of rules: the rule that matched, or the
+	 * invalid rule that had to be checked first.
+	 */
+	private static class ShardResult {
+		private final int index;
+		private final WordAction action;
+		private final Exception error;
+
+		ShardResult(int index, WordAction action, Exception error) {
+			this.index = index;
+			this.action = action;
+			this.error = error;
+		}
+
+		static ShardResult first(ShardResult a, ShardResult b) {
+			if (a == null) {
+				return b;
+			}
+			if (b == null) {
+				return a;
+			}
+			return a.index <= b.index ? a : b;
+		}
+	}
+
+	private static class ShardsTask extends RecursiveTask<ShardResult> {
+		private static final long serialVersionUID = 1L;
+
+		private final RuleSet rules;
+		private final String testString;
+		private final boolean candidate;
+		private final List<Pattern> compiled;
+		private final ExceptionSpans spans;
+		private final int fromShard;
+		private final int toShard;
+		private final AtomicInteger firstMatch;
+
+		ShardsTask(
+				RuleSet rules,
+				String testString,
+				boolean candidate,
+				List<Pattern> compiled,
+				ExceptionSpans spans,
+				int fromShard,
+				int toShard,
+				AtomicInteger firstMatch
+		) {
+			this.rules = rules;
+			this.testString = testString;
+			this.candidate = candidate;
+			this.compiled = compiled;
+			this.spans = spans;
+			this.fromShard = fromShard;
+			this.toShard = toShard;
+			this.firstMatch = firstMatch;
+		}
+
+		@Override
+		protected ShardResult compute() {
+			if (this.toShard - this.fromShard <= 1) {
+				return this.checkShard();
+			}
+
+			int middle = (this.fromShard + this.toShard) >>> 1;
+			ShardsTask left = this.split(this.fromShard, middle);
+			ShardsTask right = this.split(middle, this.toShard);
+			right.fork();
+			ShardResult leftResult = left.compute();
+			return ShardResult.first(leftResult, right.join());
+		}
+
+		private ShardsTask split(int from, int to) {
+			return new ShardsTask(this.rules, this.testString, this.candidate, this.compiled, this.spans, from, to, this.firstMatch);
+		}
+
+		private ShardResult checkShard() {
+			int end = this.rules.getShardStart(this.fromShard + 1);
+			for (int i = this.rules.getShardStart(this.fromShard); i < end; i++) {
+				if (i > this.firstMatch.get()) {
+					// An earlier rule already matched
+					return null;
+				}
+				if (!this.candidate && this.rules.isGated(i)) {
+					continue;
+				}
+
+				ShardResult result;
+				try {
+					WordAction action = this.rules.matchRule(i, this.testString, this.compiled, this.spans, null);
+					result = action == null ? null : new ShardResult(i, action, null);
+				} catch (Exception e) {
+					// Reported only if no earlier rule matches, like in a sequential check
+					result = new ShardResult(i, null, e);
+				}
+				if (result != null) {
+					this.firstMatch.accumulateAndGet(i, Math::min);
+					return result;
+				}
+			}
+			return null;
+		}
+	}
+}
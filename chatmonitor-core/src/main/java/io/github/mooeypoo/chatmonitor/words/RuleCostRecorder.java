@@ -0,0 +1,16 @@
+package io.github.mooeypoo.chatmonitor.words;
+
+/**
+ * Receives the cost of every rule that was evaluated against a message.
+ * Used by the offline benchmark to attribute evaluation time to specific rules.
+ */
+public interface RuleCostRecorder {
+	/**
+	 * Record a single rule evaluation.
+	 *
+	 * @param rule    The rule that was evaluated
+	 * @param nanos   Time spent evaluating the rule, in nanoseconds
+	 * @param matched Whether the rule matched the message
+	 */
+	void record(String rule, long nanos, boolean matched);
+}
@@ -0,0 +1,177 @@
+package io.github.mooeypoo.chatmonitor.words;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+import io.github.mooeypoo.chatmonitor.configs.GroupConfigInterface;
+
+/**
+ * The compiled rules of the groups that apply in one scope (all worlds, or a
+ * single world): one rule set for chat, one per included command, and one
+ * per included text source.
+ */
+class RuleScope {
+	static final RuleScope EMPTY = new RuleScope(RuleSet.EMPTY, Collections.emptyMap(), new EnumMap<>(TextSource.class));
+
+	private final RuleSet chatRules;
+	private final Map<String, RuleSet> commandRules;
+	private final Map<TextSource, RuleSet> sourceRules;
+
+	private RuleScope(RuleSet chatRules, Map<String, RuleSet> commandRules, Map<TextSource, RuleSet> sourceRules) {
+		this.chatRules = chatRules;
+		this.commandRules = commandRules;
+		this.sourceRules = sourceRules;
+	}
+
+	/**
+	 * Compile the rules of the groups that apply to this scope.
+	 *
+	 * @param groups     Group configs by group name
+	 * @param actions    Group actions by group name, shared by all scopes
+	 * @param literals   Literal entries of all groups
+	 * @param exceptions Exceptions of all groups
+	 * @param applies    Whether a group applies to this scope
+	 * @return The compiled scope
+	 */
+	static RuleScope compile(
+			Map<String, GroupConfigInterface> groups,
+			Map<String, GroupAction> actions,
+			LiteralTrie literals,
+			LiteralTrie exceptions,
+			Predicate<GroupConfigInterface> applies
+	) {
+		Map<String, List<GroupAction>> chatRules = new HashMap<>();
+		Map<String, GroupAction> literalGroups = new HashMap<>();
+		Map<String, Map<String, List<GroupAction>>> commandRules = new HashMap<>();
+		Map<String, Map<String, GroupAction>> commandLiteralGroups = new HashMap<>();
+		Map<TextSource, Map<String, List<GroupAction>>> sourceRules = new EnumMap<>(TextSource.class);
+		Map<TextSource, Map<String, GroupAction>> sourceLiteralGroups = new EnumMap<>(TextSource.class);
+
+		// Sorted, so the groups of a shared rule always come in the same order
+		for (Map.Entry<String, GroupConfigInterface> entry : new TreeMap<>(groups).entrySet()) {
+			String groupName = entry.getKey();
+			GroupConfigInterface config = entry.getValue();
+			if (!applies.test(config)) {
+				continue;
+			}
+			GroupAction action = actions.get(groupName);
+
+			boolean hasLiterals = !config.literals().isEmpty() || !config.wordFiles().isEmpty();
+			for (String word : config.words()) {
+				addOwner(chatRules, word, action);
+			}
+			if (hasLiterals) {
+				literalGroups.put(groupName, action);
+			}
+
+			for (String command : config.includeCommands()) {
+				if (command == null || command.isBlank()) {
+					continue;
+				}
+				for (String word : config.words()) {
+					addOwner(commandRules.computeIfAbsent(command, c -> new HashMap<>()), word, action);
+				}
+				if (hasLiterals) {
+					commandLiteralGroups.computeIfAbsent(command, c -> new HashMap<>()).put(groupName, action);
+				}
+			}
+
+			for (String sourceName : config.includeSources()) {
+				TextSource source = sourceName == null ? null : TextSource.fromConfigName(sourceName);
+				if (source == null) {
+					continue;
+				}
+				for (String word : config.words()) {
+					addOwner(sourceRules.computeIfAbsent(source, s -> new HashMap<>()), word, action);
+				}
+				if (hasLiterals) {
+					sourceLiteralGroups.computeIfAbsent(source, s -> new HashMap<>()).put(groupName, action);
+				}
+			}
+		}
+
+		Set<String> commands = new HashSet<>(commandRules.keySet());
+		commands.addAll(commandLiteralGroups.keySet());
+
+		Map<String, RuleSet> compiledCommandRules = new HashMap<>();
+		for (String command : commands) {
+			compiledCommandRules.put(command, RuleSet.compile(
+				commandRules.getOrDefault(command, Collections.emptyMap()),
+				literals,
+				commandLiteralGroups.getOrDefault(command, Collections.emptyMap()),
+				exceptions
+			));
+		}
+
+		Map<TextSource, RuleSet> compiledSourceRules = new EnumMap<>(TextSource.class);
+		for (TextSource source : TextSource.values()) {
+			if (sourceRules.containsKey(source) || sourceLiteralGroups.containsKey(source)) {
+				compiledSourceRules.put(source, RuleSet.compile(
+					sourceRules.getOrDefault(source, Collections.emptyMap()),
+					literals,
+					sourceLiteralGroups.getOrDefault(source, Collections.emptyMap()),
+					exceptions
+				));
+			}
+		}
+
+		return new RuleScope(
+			RuleSet.compile(chatRules, literals, literalGroups, exceptions),
+			Collections.unmodifiableMap(compiledCommandRules),
+			compiledSourceRules
+		);
+	}
+
+	/**
+	 * Add a group to the owners of a rule; a rule listed in several groups is compiled once.
+	 */
+	private static void addOwner(Map<String, List<GroupAction>> rules, String rule, GroupAction action) {
+		List<GroupAction> owners = rules.computeIfAbsent(rule, r -> new ArrayList<>(1));
+		if (!owners.contains(action)) {
+			owners.add(action);
+		}
+	}
+
+	RuleSet getChatRules() {
+		return this.chatRules;
+	}
+
+	/**
+	 * @param commandName The name of the command
+	 * @return The compiled rules of the groups that include this command
+	 */
+	RuleSet getRulesForCommand(String commandName) {
+		return this.commandRules.getOrDefault(commandName, RuleSet.EMPTY);
+	}
+
+	/**
+	 * @param source A text source
+	 * @return The compiled rules of the groups that include this source
+	 */
+	RuleSet getRulesForSource(TextSource source) {
+		return this.sourceRules.getOrDefault(source, RuleSet.EMPTY);
+	}
+
+	/**
+	 * @param source A text source
+	 * @return Whether any group in this scope includes the source
+	 */
+	boolean hasSource(TextSource source) {
+		return this.sourceRules.containsKey(source);
+	}
+
+	/**
+	 * @return Names of the commands that have rules in this scope
+	 */
+	Set<String> getCommands() {
+		return this.commandRules.keySet();
+	}
+}
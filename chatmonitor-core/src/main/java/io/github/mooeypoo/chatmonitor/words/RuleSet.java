@@ -0,0 +1,683 @@
+package io.github.mooeypoo.chatmonitor.words;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * A compiled list of rules, ready to be tested against messages.
+ *
+ * Rules that are a plain whole word (like {@code \bword\b}) are collected
+ * into a single hash table; the message is split into words once and every
+ * word is looked up directly. All other rules are compiled once and kept
+ * as regular expressions.
+ *
+ * Matching ignores case without copying the message: words and trigrams
+ * are folded on the fly, and the regular expressions are compiled case
+ * insensitive. Messages that are pure ASCII (most chat) use the cheaper
+ * ASCII-only case insensitivity; only messages with other characters pay
+ * for full Unicode case folding.
+ *
+ * Literal entries (the {@code literals} of the groups) are not rules of
+ * their own here; they live in a shared {@link LiteralTrie}, and each set
+ * only scans it for the groups it covers.
+ *
+ * A rule or literal listed in several groups is compiled and evaluated
+ * once; its match carries the actions of all the groups that own it and
+ * that the set covers.
+ *
+ * The {@code exceptions} of the groups live in a trie of their own. A match
+ * that falls inside an exception of its group is skipped, and matching goes
+ * on from there; the exceptions are only scanned for, once, when a message
+ * has a match at all.
+ *
+ * In front of all of them sits an {@link NgramPrefilter}: most chat is clean, and a
+ * message that contains none of the trigrams the rules require is declared
+ * clean without any lookups or regular expressions.
+ *
+ * The regular expression rules are split into shards of {@link #SHARD_SIZE}
+ * rules on load, so that a {@link ParallelEvaluation} can check the shards of
+ * a large set in parallel.
+ */
+public class RuleSet {
+	public static final RuleSet EMPTY = new RuleSet(
+		Collections.emptyMap(), null, true, LiteralTrie.EMPTY, null, null, LiteralTrie.EMPTY,
+		Collections.emptyList(), Collections.emptyList(), Collections.emptyList(), new boolean[0], null
+	);
+
+	static final int SHARD_SIZE = 32;
+	private static final List<GroupAction> NO_OWNERS = Collections.singletonList(GroupAction.NONE);
+
+	private static final Pattern WHOLE_WORD_RULE = Pattern.compile("\\\\b([a-z0-9_]+)\\\\b");
+
+	private final Map<String, String> wholeWords;
+	private final Map<String, List<GroupAction>> ruleOwners;
+	private final FoldedWordTable wholeWordTable;
+	private final boolean wholeWordsGated;
+	private final LiteralTrie literals;
+	private final boolean[] literalGroups;
+	private final GroupAction[] literalActions;
+	private final boolean literalsGated;
+	private final LiteralTrie exceptions;
+	private final List<String> rules;
+	private final List<Pattern> patterns;
+	private final List<Pattern> unicodePatterns;
+	private final boolean[] gated;
+	private final int ungatedCount;
+	private final NgramPrefilter prefilter;
+	private final String wholeWordsLabel;
+	private final String literalsLabel;
+	private final int[] shardStarts;
+
+	private RuleSet(
+			Map<String, String> wholeWords,
+			Map<String, List<GroupAction>> ruleOwners,
+			boolean wholeWordsGated,
+			LiteralTrie literals,
+			boolean[] literalGroups,
+			GroupAction[] literalActions,
+			LiteralTrie exceptions,
+			List<String> rules,
+			List<Pattern> patterns,
+			List<Pattern> unicodePatterns,
+			boolean[] gated,
+			NgramPrefilter prefilter
+	) {
+		this.wholeWords = wholeWords;
+		this.ruleOwners = ruleOwners;
+		this.wholeWordTable = new FoldedWordTable(wholeWords);
+		this.rules = rules;
+		this.patterns = patterns;
+		this.unicodePatterns = unicodePatterns;
+		this.prefilter = prefilter;
+		// Without a filter, nothing can be skipped
+		this.wholeWordsGated = prefilter != null && wholeWordsGated;
+		this.literals = literals;
+		this.literalGroups = literalGroups;
+		this.literalActions = literalActions;
+		this.literalsGated = prefilter != null && !literals.hasShortEntries();
+		this.exceptions = exceptions;
+		this.gated = gated;
+
+		int ungated = this.wholeWordsGated || wholeWords.isEmpty() ? 0 : wholeWords.size();
+		if (!this.literalsGated) {
+			ungated += literals.getEntryCount();
+		}
+		for (boolean isGated : gated) {
+			if (prefilter == null || !isGated) {
+				ungated++;
+			}
+		}
+		this.ungatedCount = ungated;
+		this.wholeWordsLabel = "[" + wholeWords.size() + " whole-word rules]";
+		this.literalsLabel = "[" + literals.getEntryCount() + " literals]";
+
+		this.shardStarts = new int[(rules.size() + SHARD_SIZE - 1) / SHARD_SIZE + 1];
+		for (int shard = 0; shard < this.shardStarts.length; shard++) {
+			this.shardStarts[shard] = Math.min(rules.size(), shard * SHARD_SIZE);
+		}
+	}
+
+	/**
+	 * Compile the given rules.
+	 *
+	 * @param rules Rules, as written in the group configs
+	 * @return The compiled rules
+	 */
+	public static RuleSet compile(Collection<String> rules) {
+		return compile(rules, null, LiteralTrie.EMPTY, null, LiteralTrie.EMPTY);
+	}
+
+	/**
+	 * Compile the given rules, each owned by one or more groups, next to the literals of the given groups.
+	 * Matches carry the actions of the groups that own the rule.
+	 *
+	 * @param ruleOwners    Rules, as written in the group configs, mapped to the actions of the groups that list them
+	 * @param literals      Literal entries of all groups
+	 * @param literalGroups Actions of the groups whose literals apply to this set, by group name
+	 * @return The compiled rules
+	 */
+	public static RuleSet compile(Map<String, List<GroupAction>> ruleOwners, LiteralTrie literals, Map<String, GroupAction> literalGroups) {
+		return compile(ruleOwners, literals, literalGroups, LiteralTrie.EMPTY);
+	}
+
+	/**
+	 * Compile the given rules, each owned by one or more groups, next to the literals of the given groups.
+	 * Matches carry the actions of the groups that own the rule; a match inside an exception of one
+	 * of those groups only leaves that group out, and is skipped if it is inside an exception of all of them.
+	 *
+	 * @param ruleOwners    Rules, as written in the group configs, mapped to the actions of the groups that list them
+	 * @param literals      Literal entries of all groups
+	 * @param literalGroups Actions of the groups whose literals apply to this set, by group name
+	 * @param exceptions    Exceptions of all groups
+	 * @return The compiled rules
+	 */
+	public static RuleSet compile(
+			Map<String, List<GroupAction>> ruleOwners,
+			LiteralTrie literals,
+			Map<String, GroupAction> literalGroups,
+			LiteralTrie exceptions
+	) {
+		Map<String, List<GroupAction>> owners = new HashMap<>();
+		ruleOwners.forEach((rule, actions) -> owners.put(rule, Collections.unmodifiableList(new ArrayList<>(actions))));
+		return compile(ruleOwners.keySet(), Collections.unmodifiableMap(owners), literals, literalGroups, exceptions);
+	}
+
+	/**
+	 * Compile the given rules, next to the literals of the given groups.
+	 *
+	 * @param rules         Rules, as written in the group configs
+	 * @param literals      Literal entries of all groups
+	 * @param literalGroups Groups whose literals apply to this set, or null for all groups
+	 * @return The compiled rules
+	 */
+	public static RuleSet compile(Collection<String> rules, LiteralTrie literals, Set<String> literalGroups) {
+		Map<String, GroupAction> groups = null;
+		if (literalGroups != null) {
+			groups = new HashMap<>();
+			for (String group : literalGroups) {
+				groups.put(group, new GroupAction(group, null, false, false, false, 0, null));
+			}
+		}
+		return compile(rules, null, literals, groups, LiteralTrie.EMPTY);
+	}
+
+	private static RuleSet compile(
+			Collection<String> rules,
+			Map<String, List<GroupAction>> ruleOwners,
+			LiteralTrie literals,
+			Map<String, GroupAction> literalGroups,
+			LiteralTrie exceptions
+	) {
+		boolean[] allowedGroups = null;
+		GroupAction[] literalActions = null;
+		if (literalGroups != null) {
+			allowedGroups = new boolean[literals.getGroupCount()];
+			literalActions = new GroupAction[literals.getGroupCount()];
+			boolean any = false;
+			for (Map.Entry<String, GroupAction> group : literalGroups.entrySet()) {
+				int id = literals.groupId(group.getKey());
+				if (id >= 0) {
+					allowedGroups[id] = true;
+					literalActions[id] = group.getValue();
+					any = true;
+				}
+			}
+			if (!any) {
+				literals = LiteralTrie.EMPTY;
+				allowedGroups = null;
+				literalActions = null;
+			}
+		}
+
+		Map<String, String> wholeWords = new HashMap<>();
+		boolean wholeWordsGated = true;
+		List<String> regexRules = new ArrayList<>();
+		List<Pattern> patterns = new ArrayList<>();
+		List<Pattern> unicodePatterns = new ArrayList<>();
+		List<Boolean> gated = new ArrayList<>();
+		Set<String> grams = new HashSet<>();
+
+		for (String rule : rules) {
+			Matcher wholeWord = WHOLE_WORD_RULE.matcher(rule);
+			if (wholeWord.matches()) {
+				String word = wholeWord.group(1);
+				wholeWords.put(word, rule);
+				if (word.length() >= NgramPrefilter.GRAM_LENGTH) {
+					grams.add(word.substring(0, NgramPrefilter.GRAM_LENGTH));
+				} else {
+					wholeWordsGated = false;
+				}
+				continue;
+			}
+
+			regexRules.add(rule);
+			String gram = null;
+			try {
+				patterns.add(Pattern.compile(rule, Pattern.CASE_INSENSITIVE));
+				unicodePatterns.add(Pattern.compile(rule, Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE));
+				gram = NgramPrefilter.requiredGram(rule);
+			} catch (PatternSyntaxException e) {
+				// Reported when the rule is reached, like it always was
+				patterns.add(null);
+				unicodePatterns.add(null);
+			}
+			gated.add(gram != null);
+			if (gram != null) {
+				grams.add(gram);
+			}
+		}
+
+		grams.addAll(literals.getRequiredGrams());
+
+		boolean[] gatedRules = new boolean[gated.size()];
+		for (int i = 0; i < gatedRules.length; i++) {
+			gatedRules[i] = gated.get(i);
+		}
+
+		return new RuleSet(
+			wholeWords, ruleOwners, wholeWordsGated, literals, allowedGroups, literalActions, exceptions,
+			regexRules, patterns, unicodePatterns, gatedRules, NgramPrefilter.build(grams)
+		);
+	}
+
+	/**
+	 * @return Number of rules in this set
+	 */
+	public int size() {
+		return this.wholeWords.size() + this.rules.size();
+	}
+
+	/**
+	 * @return Number of rules served by the whole-word lookup
+	 */
+	public int getWholeWordCount() {
+		return this.wholeWords.size();
+	}
+
+	/**
+	 * @return The literal entries scanned by this set
+	 */
+	public LiteralTrie getLiterals() {
+		return this.literals;
+	}
+
+	/**
+	 * @return The exceptions of the groups, checked against every match
+	 */
+	public LiteralTrie getExceptions() {
+		return this.exceptions;
+	}
+
+	/**
+	 * @return The trigram filter in front of the rules, or null if no rule could be filtered
+	 */
+	public NgramPrefilter getPrefilter() {
+		return this.prefilter;
+	}
+
+	/**
+	 * @return Number of rules that can't be skipped by the trigram filter
+	 */
+	public int getUngatedCount() {
+		return this.ungatedCount;
+	}
+
+	/**
+	 * Find the first rule that matches the given string.
+	 *
+	 * @param testString String to test, as sent; case is ignored
+	 * @param recorder   Receives the cost of each evaluated rule; may be null
+	 * @return The matching rule, where it matched, and the action of its group
+	 * ({@link GroupAction#NONE} if not known to this set), or null if none was matched.
+	 * @throws Exception If a rule that had to be evaluated is not a valid regular expression
+	 */
+	WordAction match(String testString, RuleCostRecorder recorder) throws Exception {
+		return this.match(testString, recorder, false);
+	}
+
+	/**
+	 * Find the first rule that matches the given string, optionally with the
+	 * cheap checks only: the prefilter, the whole-word lookup and the literals.
+	 *
+	 * @param testString String to test, as sent; case is ignored
+	 * @param recorder   Receives the cost of each evaluated rule; may be null
+	 * @param quick      Skip the regular expression rules
+	 * @return The matching rule, where it matched, and the action of its group
+	 * ({@link GroupAction#NONE} if not known to this set), or null if none was matched.
+	 * @throws Exception If a rule that had to be evaluated is not a valid regular expression
+	 */
+	WordAction match(String testString, RuleCostRecorder recorder, boolean quick) throws Exception {
+		return this.match(testString, recorder, quick, null);
+	}
+
+	/**
+	 * Find the first rule that matches the given string, checking the regular
+	 * expression rules of a large set in parallel.
+	 *
+	 * @param testString String to test, as sent; case is ignored
+	 * @param recorder   Receives the cost of each evaluated rule; may be null, and
+	 *                   rules are only checked in parallel if it is
+	 * @param quick      Skip the regular expression rules
+	 * @param parallel   Checks the shards of large sets in parallel; may be null
+	 * @return The matching rule, where it matched, and the action of its group
+	 * ({@link GroupAction#NONE} if not known to this set), or null if none was matched.
+	 * @throws Exception If a rule that had to be evaluated is not a valid regular expression
+	 */
+	WordAction match(String testString, RuleCostRecorder recorder, boolean quick, ParallelEvaluation parallel) throws Exception {
+		boolean candidate = true;
+		if (this.prefilter != null) {
+			long start = recorder == null ? 0 : System.nanoTime();
+			candidate = this.prefilter.mightMatch(testString);
+			if (recorder != null) {
+				recorder.record("[trigram prefilter]", System.nanoTime() - start, candidate);
+			}
+			if (!candidate && this.ungatedCount == 0) {
+				// None of the rules can match
+				return null;
+			}
+		}
+
+		// Scanned for on the first match only
+		ExceptionSpans spans = this.exceptions.getEntryCount() == 0 ? null : new ExceptionSpans(this.exceptions, testString);
+
+		if (!this.wholeWords.isEmpty() && (candidate || !this.wholeWordsGated)) {
+			long start = recorder == null ? 0 : System.nanoTime();
+			WordAction matched = this.matchWholeWords(testString, spans);
+			if (recorder != null) {
+				recorder.record(this.wholeWordsLabel, System.nanoTime() - start, matched != null);
+			}
+			if (matched != null) {
+				return matched;
+			}
+		}
+
+		if (this.literals.getEntryCount() > 0 && (candidate || !this.literalsGated)) {
+			long start = recorder == null ? 0 : System.nanoTime();
+			WordAction matched = this.matchLiterals(testString, spans);
+			if (recorder != null) {
+				recorder.record(this.literalsLabel, System.nanoTime() - start, matched != null);
+			}
+			if (matched != null) {
+				return matched;
+			}
+		}
+
+		if (quick || this.rules.isEmpty()) {
+			return null;
+		}
+
+		if (parallel != null && recorder == null && parallel.appliesTo(this.rules.size(), testString.length())) {
+			try {
+				return parallel.evaluate(this, testString, candidate, spans);
+			} catch (RejectedExecutionException e) {
+				// The pool was stopped by a reload meanwhile; check on this thread
+			}
+		}
+
+		List<Pattern> compiled = null;
+		for (int i = 0; i < this.rules.size(); i++) {
+			if (!candidate && this.gated[i]) {
+				continue;
+			}
+			if (compiled == null) {
+				compiled = this.patternsFor(testString);
+			}
+
+			WordAction matched = this.matchRule(i, testString, compiled, spans, recorder);
+			if (matched != null) {
+				return matched;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * @param testString String to test
+	 * @return The compiled rules to test it with
+	 */
+	List<Pattern> patternsFor(String testString) {
+		return CaseFolding.isAscii(testString) ? this.patterns : this.unicodePatterns;
+	}
+
+	/**
+	 * Test a single regular expression rule.
+	 *
+	 * @param index      Index of the rule
+	 * @param testString String to test, as sent
+	 * @param compiled   The compiled rules, from {@link #patternsFor(String)}
+	 * @param spans      Exceptions in the string, or null if there are none
+	 * @param recorder   Receives the cost of the rule; may be null
+	 * @return The match, or null if the rule did not match
+	 * @throws Exception If the rule is not a valid regular expression
+	 */
+	WordAction matchRule(int index, String testString, List<Pattern> compiled, ExceptionSpans spans, RuleCostRecorder recorder) throws Exception {
+		String rule = this.rules.get(index);
+		Pattern pattern = compiled.get(index);
+		if (pattern == null) {
+			throw new Exception("Error: Could not process rule (" + rule + ")");
+		}
+
+		long start = recorder == null ? 0 : System.nanoTime();
+		Matcher matcher = pattern.matcher(testString);
+		boolean found = matcher.find();
+		List<GroupAction> owners = found ? this.ownersOutside(rule, matcher.start(), matcher.end(), spans) : null;
+		// Carry on from an excepted match within the same scan
+		while (found && owners.isEmpty()) {
+			found = matcher.find();
+			owners = found ? this.ownersOutside(rule, matcher.start(), matcher.end(), spans) : null;
+		}
+		if (recorder != null) {
+			recorder.record(rule, System.nanoTime() - start, found);
+		}
+		return found ? new WordAction(rule, testString, matcher.start(), matcher.end(), owners) : null;
+	}
+
+	/**
+	 * @param index Index of a regular expression rule
+	 * @return Whether the trigram filter may skip the rule
+	 */
+	boolean isGated(int index) {
+		return this.prefilter != null && this.gated[index];
+	}
+
+	/**
+	 * @return Number of shards the regular expression rules are split into
+	 */
+	int getShardCount() {
+		return this.shardStarts.length - 1;
+	}
+
+	/**
+	 * @param shard A shard, or the shard count for the end of the last shard
+	 * @return Index of the first regular expression rule of the shard
+	 */
+	int getShardStart(int shard) {
+		return this.shardStarts[shard];
+	}
+
+	/**
+	 * Find a rule that matches across the end of the earlier messages of the
+	 * stream and the start of this one, and carry the state over to the next
+	 * message. The message on its own is checked with {@link #match(String, RuleCostRecorder)}.
+	 *
+	 * Whole words and literals are joined across messages; the regular
+	 * expression rules and the exceptions only see single messages.
+	 *
+	 * @param stream  The earlier messages of the player; the caller holds its lock
+	 * @param text    The message, as sent
+	 * @param now     Current time, in milliseconds
+	 * @return The matching rule, where it matched in the joined text, and the action
+	 * of its group, or null if none was matched.
+	 */
+	WordAction matchAcross(MessageStream stream, String text, long now) {
+		boolean carried = stream.isFor(this);
+		String tail = carried ? stream.getTail() : "";
+		int state = carried ? stream.getState() : LiteralTrie.ROOT;
+		String joined = tail + text;
+
+		WordAction matched = null;
+		if (!tail.isEmpty()) {
+			if (!this.wholeWords.isEmpty()) {
+				matched = this.matchWholeWordAcross(stream, joined, tail.length());
+			}
+			if (matched == null && this.literals.getEntryCount() > 0) {
+				long found = this.literals.findAcross(state, text, this.literalGroups);
+				if (found >= 0) {
+					int node = LiteralTrie.nodeOf(found);
+					int end = tail.length() + LiteralTrie.endOf(found);
+					// The start may lie before the kept tail
+					int start = Math.max(0, end - this.literals.lengthAt(node));
+					matched = new WordAction(this.literals.entryAt(node), joined, start, end, this.literalOwnersOutside(node, start, end, null));
+				}
+			}
+		}
+
+		if (matched != null) {
+			// Start over, so the same words are not reported again
+			stream.reset();
+			stream.touch(now);
+			return matched;
+		}
+		stream.carry(this, this.literals.stateAfter(state, text), joined, tail.length(), now);
+		return null;
+	}
+
+	/**
+	 * Look up the word that runs across the point where the earlier text ends.
+	 * Since the messages are joined without a space, the word may start at the
+	 * start of any of the earlier messages, as well as at the start of the joined word.
+	 */
+	private WordAction matchWholeWordAcross(MessageStream stream, String joined, int boundary) {
+		if (boundary >= joined.length() || !isWordChar(joined.charAt(boundary - 1)) || !isWordChar(joined.charAt(boundary))) {
+			return null;
+		}
+
+		int end = boundary + 1;
+		while (end < joined.length() && isWordChar(joined.charAt(end))) {
+			end++;
+		}
+
+		int first = boundary - 1;
+		while (first > 0 && isWordChar(joined.charAt(first - 1))) {
+			first--;
+		}
+		for (int start = first; start < boundary; start++) {
+			// A word cut off by the tail has no known start
+			boolean wordStart = start == first && (start > 0 || boundary < MessageStream.TAIL_LENGTH);
+			if (!wordStart && !stream.isMessageStart(start)) {
+				continue;
+			}
+			String rule = this.wholeWordTable.get(joined, start, end);
+			if (rule != null) {
+				return new WordAction(rule, joined, start, end, this.ownersOf(rule));
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Split the string into words, using the same notion of a word character
+	 * as the regex word boundary, and look up every word.
+	 */
+	private WordAction matchWholeWords(String testString, ExceptionSpans spans) {
+		int length = testString.length();
+		int i = 0;
+		while (i < length) {
+			if (!isWordChar(testString.charAt(i))) {
+				i++;
+				continue;
+			}
+
+			int start = i;
+			while (i < length && isWordChar(testString.charAt(i))) {
+				i++;
+			}
+
+			String rule = this.wholeWordTable.get(testString, start, i);
+			if (rule != null) {
+				List<GroupAction> owners = this.ownersOutside(rule, start, i, spans);
+				if (!owners.isEmpty()) {
+					return new WordAction(rule, testString, start, i, owners);
+				}
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Find the first literal that is not inside an exception of all of its groups.
+	 */
+	private WordAction matchLiterals(String testString, ExceptionSpans spans) {
+		long found = this.literals.find(testString, this.literalGroups);
+		if (found < 0) {
+			return null;
+		}
+		WordAction matched = this.literalMatch(testString, found, spans);
+		if (matched != null) {
+			return matched;
+		}
+
+		// The first one is an exception; look past it
+		for (long next : this.literals.findAll(testString, this.literalGroups)) {
+			matched = this.literalMatch(testString, next, spans);
+			if (matched != null) {
+				return matched;
+			}
+		}
+		return null;
+	}
+
+	private WordAction literalMatch(String testString, long found, ExceptionSpans spans) {
+		int node = LiteralTrie.nodeOf(found);
+		int end = LiteralTrie.endOf(found);
+		int start = end - this.literals.lengthAt(node);
+		List<GroupAction> owners = this.literalOwnersOutside(node, start, end, spans);
+		return owners.isEmpty() ? null : new WordAction(this.literals.entryAt(node), testString, start, end, owners);
+	}
+
+	/**
+	 * @return The groups of the literal that this set covers and that the match is not an exception of;
+	 * empty if it is one of all of them
+	 */
+	private List<GroupAction> literalOwnersOutside(int node, int start, int end, ExceptionSpans spans) {
+		int count = this.literals.ownerCountAt(node);
+		List<GroupAction> owners = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			int id = this.literals.ownerIdAt(node, i);
+			GroupAction action = this.literalActions == null ? null : this.literalActions[id];
+			if (this.literalActions != null && action == null) {
+				// A group this set does not cover
+				continue;
+			}
+			if (spans == null || !spans.covers(start, end, this.literals.groupName(id))) {
+				owners.add(action == null ? GroupAction.NONE : action);
+			}
+		}
+		if (this.literalActions == null && !owners.isEmpty()) {
+			return NO_OWNERS;
+		}
+		return owners;
+	}
+
+	private List<GroupAction> ownersOf(String rule) {
+		List<GroupAction> owners = this.ruleOwners == null ? null : this.ruleOwners.get(rule);
+		return owners == null || owners.isEmpty() ? NO_OWNERS : owners;
+	}
+
+	/**
+	 * @return The groups of the rule that the match is not an exception of; empty if it is one of all of them
+	 */
+	private List<GroupAction> ownersOutside(String rule, int start, int end, ExceptionSpans spans) {
+		List<GroupAction> owners = this.ownersOf(rule);
+		if (spans == null) {
+			return owners;
+		}
+		if (owners.size() == 1) {
+			return spans.covers(start, end, owners.get(0).getName()) ? Collections.emptyList() : owners;
+		}
+
+		List<GroupAction> outside = new ArrayList<>(owners.size());
+		for (GroupAction owner : owners) {
+			if (!spans.covers(start, end, owner.getName())) {
+				outside.add(owner);
+			}
+		}
+		return outside.size() == owners.size() ? owners : outside;
+	}
+
+	private static boolean isWordChar(char c) {
+		return c == '_' || Character.isLetterOrDigit(c);
+	}
+}
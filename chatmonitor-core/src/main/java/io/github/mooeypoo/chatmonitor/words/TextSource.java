@@ -0,0 +1,37 @@
+package io.github.mooeypoo.chatmonitor.words;
+
+/**
+ * Places other than chat and commands where player text can be checked.
+ * Groups opt in to each of them through {@code includesources}.
+ */
+public enum TextSource {
+	SIGN("sign"),
+	BOOK("book"),
+	ANVIL("anvil");
+
+	private final String configName;
+
+	TextSource(String configName) {
+		this.configName = configName;
+	}
+
+	/**
+	 * @return The name used for this source in the group configs
+	 */
+	public String getConfigName() {
+		return this.configName;
+	}
+
+	/**
+	 * @param configName Name of a source, as written in a group config
+	 * @return The source, or null if there is no source with that name
+	 */
+	public static TextSource fromConfigName(String configName) {
+		for (TextSource source : values()) {
+			if (source.configName.equalsIgnoreCase(configName.trim())) {
+				return source;
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,164 @@
+package io.github.mooeypoo.chatmonitor.words;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A matched rule: the rule, where it matched in the text, and the actions
+ * of the groups that list it. The matched word is only cut out of the text
+ * when asked for.
+ *
+ * A rule listed in several groups answers for all of them: the text is
+ * blocked if any group blocks it, the player is muted for the longest
+ * mute, and the commands of every group run. The response message comes
+ * from the first group that blocks the text, or else from the first group.
+ */
+public class WordAction {
+	private final String matchedRule;
+	private final String text;
+	private final int start;
+	private final int end;
+	private final GroupAction action;
+	private final List<GroupAction> actions;
+
+	public WordAction(
+			String matchedRule,
+			String originalWord,
+			String message,
+			boolean preventSend,
+			boolean broadcast,
+			Set<String> commands,
+			String group
+	) {
+		this(
+			matchedRule,
+			originalWord,
+			0,
+			originalWord == null ? 0 : originalWord.length(),
+			new GroupAction(group, message, preventSend, broadcast, false, 0, commands)
+		);
+	}
+
+	/**
+	 * @param matchedRule The rule that matched
+	 * @param text        The text that was checked
+	 * @param start       Start of the match in the text
+	 * @param end         End of the match in the text
+	 * @param action      The action of the group of the rule
+	 */
+	WordAction(String matchedRule, String text, int start, int end, GroupAction action) {
+		this(matchedRule, text, start, end, Collections.singletonList(action));
+	}
+
+	/**
+	 * @param matchedRule The rule that matched
+	 * @param text        The text that was checked
+	 * @param start       Start of the match in the text
+	 * @param end         End of the match in the text
+	 * @param actions     The actions of the groups that list the rule; not empty
+	 */
+	WordAction(String matchedRule, String text, int start, int end, List<GroupAction> actions) {
+		this.matchedRule = matchedRule;
+		this.text = text;
+		this.start = start;
+		this.end = end;
+		this.actions = actions;
+		GroupAction primary = actions.get(0);
+		for (GroupAction action : actions) {
+			if (action.isPreventSend()) {
+				primary = action;
+				break;
+			}
+		}
+		this.action = primary;
+	}
+
+	public String getMatchedRule() {
+		return this.matchedRule;
+	}
+
+	public String getOriginalWord() {
+		return this.text == null ? null : this.text.substring(this.start, this.end);
+	}
+
+	/**
+	 * @return Start of the match in the checked text
+	 */
+	public int getStart() {
+		return this.start;
+	}
+
+	/**
+	 * @return End of the match in the checked text
+	 */
+	public int getEnd() {
+		return this.end;
+	}
+
+	/**
+	 * @return The action of the group the response comes from, shared by all of its matches
+	 */
+	public GroupAction getGroupAction() {
+		return this.action;
+	}
+
+	/**
+	 * @return The actions of all groups that list the matched rule
+	 */
+	public List<GroupAction> getGroupActions() {
+		return this.actions;
+	}
+
+	/**
+	 * @return The names of all groups that list the matched rule
+	 */
+	public List<String> getGroups() {
+		List<String> groups = new ArrayList<>(this.actions.size());
+		for (GroupAction action : this.actions) {
+			groups.add(action.getName());
+		}
+		return groups;
+	}
+
+	public String getMessage() {
+		return this.action.getMessage();
+	}
+
+	public Set<String> getCommands() {
+		if (this.actions.size() == 1) {
+			return this.action.getCommands();
+		}
+		Set<String> commands = new LinkedHashSet<>();
+		for (GroupAction action : this.actions) {
+			commands.addAll(action.getCommands());
+		}
+		return commands;
+	}
+
+	public String getGroup() {
+		return this.action.getName();
+	}
+
+	public boolean isPreventSend() {
+		return this.action.isPreventSend();
+	}
+
+	public boolean isBroadcast() {
+		return this.action.isBroadcast();
+	}
+
+	public int getMuteSeconds() {
+		int seconds = 0;
+		for (GroupAction action : this.actions) {
+			seconds = Math.max(seconds, action.getMuteSeconds());
+		}
+		return seconds;
+	}
+
+	public boolean isEmpty() {
+		return this.matchedRule == null;
+	}
+}
@@ -0,0 +1,347 @@
+package io.github.mooeypoo.chatmonitor.words;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+
+import io.github.mooeypoo.chatmonitor.configs.ConfigManager;
+import io.github.mooeypoo.chatmonitor.configs.ConfigurationException;
+import io.github.mooeypoo.chatmonitor.configs.GroupConfigInterface;
+import io.github.mooeypoo.chatmonitor.jfr.ReloadEvent;
+import io.github.mooeypoo.chatmonitor.metrics.ChatMetrics;
+
+public class WordCollector {
+
+
+    public final Logger logger;
+    public final ConfigManager configManager;
+    private final ChatMetrics metrics;
+    private volatile CompiledRules compiled = new CompiledRules(
+            RuleScope.EMPTY, RuleScope.EMPTY, Collections.emptyMap(), Collections.emptyMap(), 0
+    );
+    private LiteralTrie.Builder literals = new LiteralTrie.Builder();
+    private LiteralTrie.Builder exceptions = new LiteralTrie.Builder();
+    private final Map<Path, WordListFile> wordListFiles = new HashMap<>();
+    private boolean cacheWarned = false;
+
+    public WordCollector(ConfigManager configManager, Logger logger) {
+        this(configManager, logger, new ChatMetrics());
+    }
+
+    /**
+     * @param configManager Config manager
+     * @param logger        Logger
+     * @param metrics       Receives the time reloads take
+     */
+    public WordCollector(ConfigManager configManager, Logger logger, ChatMetrics metrics) {
+        this.configManager = configManager;
+        this.logger = logger;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Initialize the lists, collect all words and groups from the config files.
+     */
+    void collectWords() {
+        if (this.configManager.isLoadedFromCache()) {
+            logger.info("Word groups were restored from the ruleset cache.");
+        }
+        for (ConfigurationException e : this.configManager.getGroupErrors()) {
+            logger.warning("Word group loading defaults. Error in configuration file '" + e.getConfigFileName() + "': " + e.getMessage());
+        }
+        if (this.configManager.getCacheError() != null) {
+            this.warnCacheNotWritten(this.configManager.getCacheError());
+        }
+
+        // Go over the groups of words
+        Set<String> groups = this.configManager.getGroupNames();
+        Set<Path> usedWordListFiles = new HashSet<>();
+        boolean wordListErrors = false;
+
+        // The tries of unchanged groups and word list files are read back instead of built
+        CompiledTrieCache trieCache = this.configManager.getCache() == null ? null : new CompiledTrieCache(this.configManager.getCache());
+        byte[] trieKey = trieCache == null ? null : this.trieKey(groups);
+        LiteralTrie[] cachedTries = trieKey == null ? null : trieCache.read(trieKey);
+
+        for (String groupName : groups) {
+            try {
+                GroupConfigInterface groupConfig = this.configManager.getGroupConfigData(groupName);
+
+                for (String sourceName : groupConfig.includeSources()) {
+                    if (sourceName == null || TextSource.fromConfigName(sourceName) == null) {
+                        logger.warning("Unknown source '" + sourceName + "' in 'includesources' of group '" + groupName + "' is ignored.");
+                    }
+                }
+                if (cachedTries != null) {
+                    continue;
+                }
+
+                for (String literal : groupConfig.literals()) {
+                    this.literals.add(literal, groupName);
+                }
+                for (String exception : groupConfig.exceptions()) {
+                    this.exceptions.add(exception, groupName);
+                }
+                for (String fileName : groupConfig.wordFiles()) {
+                    Path path = this.configManager.getDataFolder().resolve(fileName).normalize();
+                    usedWordListFiles.add(path);
+                    wordListErrors |= !this.collectWordListFile(path, fileName, groupName);
+                }
+            } catch (ConfigurationException e) {
+                logger.warning("Word group loading defaults. Error in configuration file '" + e.getConfigFileName() + "': " + e.getMessage());
+            }
+        }
+
+        if (cachedTries != null) {
+            logger.info("Literals and exceptions were restored from the ruleset cache.");
+            this.compileRules(cachedTries[0], cachedTries[1]);
+            return;
+        }
+
+        // Forget files that are no longer used by any group
+        this.wordListFiles.keySet().retainAll(usedWordListFiles);
+
+        LiteralTrie literalTrie = this.literals.build();
+        this.literals = new LiteralTrie.Builder();
+        LiteralTrie exceptionTrie = this.exceptions.build();
+        this.exceptions = new LiteralTrie.Builder();
+        this.compileRules(literalTrie, exceptionTrie);
+
+        // Don't cache tries that miss a word list file that could not be read
+        if (trieKey != null && !wordListErrors) {
+            try {
+                trieCache.write(trieKey, literalTrie, exceptionTrie);
+            } catch (IOException e) {
+                // Not fatal; the tries will be built again on the next load
+                this.warnCacheNotWritten(e);
+            }
+        }
+    }
+
+    /**
+     * Tell the admin once that the cache can't be written, since every
+     * later load is a full one until it can.
+     *
+     * @param e Why the cache could not be written
+     */
+    private void warnCacheNotWritten(IOException e) {
+        if (this.cacheWarned) {
+            return;
+        }
+        this.cacheWarned = true;
+        logger.warning("Could not write the ruleset cache; word groups are loaded in full until it can be written: " + e.getMessage());
+    }
+
+    /**
+     * @param groups Names of the groups
+     * @return The key of the cached tries of the groups, or null if they can't be cached
+     */
+    private byte[] trieKey(Set<String> groups) {
+        byte[] groupsHash = this.configManager.getGroupsHash();
+        if (groupsHash == null) {
+            return null;
+        }
+
+        SortedMap<String, Path[]> wordFiles = new TreeMap<>();
+        for (String groupName : groups) {
+            try {
+                GroupConfigInterface groupConfig = this.configManager.getGroupConfigData(groupName);
+                wordFiles.put(groupName, groupConfig.wordFiles().stream()
+                        .map(fileName -> this.configManager.getDataFolder().resolve(fileName).normalize())
+                        .toArray(Path[]::new));
+            } catch (ConfigurationException e) {
+                return null;
+            }
+        }
+        return CompiledTrieCache.key(groupsHash, wordFiles);
+    }
+
+    /**
+     * Add the entries of a word list file to the literals of the group.
+     * The file is only read again if it changed since the last load.
+     *
+     * @param path      Resolved path of the file
+     * @param fileName  File name, as given in the group config
+     * @param groupName Group the entries belong to
+     * @return False if the file could not be read
+     */
+    private boolean collectWordListFile(Path path, String fileName, String groupName) {
+        WordListFile file = this.wordListFiles.computeIfAbsent(path, p -> new WordListFile(p, fileName));
+        try {
+            if (file.refresh()) {
+                logger.info("Read " + file.getEntryCount() + " entries from word list file '" + fileName + "'.");
+            }
+        } catch (ConfigurationException e) {
+            logger.warning("Skipping word list file. Error in configuration file '" + e.getConfigFileName() + "': " + e.getMessage());
+            this.wordListFiles.remove(path);
+            return false;
+        }
+        file.addTo(this.literals, groupName);
+        return true;
+    }
+
+    /**
+     * Compile the collected words into rule sets, once for all chat
+     * and once per command. If any group is limited to some worlds,
+     * the rule sets are also compiled once per listed world, and once
+     * for all other worlds, so a message only pays for the groups that
+     * apply where it was sent.
+     */
+    private void compileRules(LiteralTrie literalTrie, LiteralTrie exceptionTrie) {
+        if (literalTrie.getEntryCount() > 0) {
+            logger.info("Loaded " + literalTrie.getEntryCount() + " literals into " + literalTrie.getNodeCount()
+                    + " trie nodes (" + (literalTrie.getMemoryFootprint() / 1024) + " KiB).");
+        }
+        if (exceptionTrie.getEntryCount() > 0) {
+            logger.info("Loaded " + exceptionTrie.getEntryCount() + " exceptions.");
+        }
+
+        Map<String, GroupConfigInterface> groups = new HashMap<>();
+        Map<String, GroupAction> actions = new HashMap<>();
+        Set<String> worlds = new HashSet<>();
+        for (String groupName : this.configManager.getGroupNames()) {
+            try {
+                GroupConfigInterface groupConfig = this.configManager.getGroupConfigData(groupName);
+                if (groupConfig == null) {
+                    continue;
+                }
+                groups.put(groupName, groupConfig);
+                // Read the response of the group once; matches only point at it
+                actions.put(groupName, GroupAction.of(groupName, groupConfig));
+                groupConfig.worlds().stream()
+                        .filter(world -> !(world == null || world.isBlank()))
+                        .forEach(worlds::add);
+            } catch (ConfigurationException e) {
+                logger.warning("Word group loading defaults. Error in configuration file '" + e.getConfigFileName() + "': " + e.getMessage());
+            }
+        }
+
+        RuleScope all = RuleScope.compile(groups, actions, literalTrie, exceptionTrie, group -> true);
+        RuleScope otherWorlds = all;
+        Map<String, RuleScope> worldScopes = new HashMap<>();
+        if (!worlds.isEmpty()) {
+            otherWorlds = RuleScope.compile(groups, actions, literalTrie, exceptionTrie, group -> group.worlds().isEmpty());
+            for (String world : worlds) {
+                worldScopes.put(world, RuleScope.compile(
+                        groups, actions, literalTrie, exceptionTrie, group -> group.worlds().isEmpty() || group.worlds().contains(world)
+                ));
+            }
+            logger.info("Compiled separate rules for " + worlds.size() + " worlds.");
+        }
+
+        this.compiled = new CompiledRules(
+                all, otherWorlds, worldScopes, actions, literalTrie.getEntryCount()
+        );
+    }
+
+    /**
+     * Reload the lists and re-process the groups from the config files.
+     * Messages checked meanwhile keep using the previous rules until the
+     * new ones are swapped in.
+     */
+    public synchronized void reload() {
+        long start = System.nanoTime();
+        ReloadEvent event = new ReloadEvent();
+        event.begin();
+
+        // Refresh all configs
+        try {
+            configManager.reload();
+        } catch (ConfigurationException e) {
+            logger.warning("Reload loading default config. Error in configuration file '" + e.getConfigFileName() + "': " + e.getMessage());
+        }
+
+        // Redo word collection
+        collectWords();
+
+        this.metrics.recordReload(System.nanoTime() - start);
+        event.end();
+        if (event.shouldCommit()) {
+            event.groups = this.configManager.getGroupNames().size();
+            event.rules = this.compiled.all.getChatRules().size();
+            event.literals = this.compiled.literalCount;
+            event.fromCache = this.configManager.isLoadedFromCache();
+            event.commit();
+        }
+    }
+
+    /**
+     * @return The compiled rules of all groups
+     */
+    public RuleSet getAllRules() {
+        return this.compiled.all.getChatRules();
+    }
+
+    /**
+     * @param groupName Name of a group
+     * @return The action of the group, or null if no such group is loaded
+     */
+    public GroupAction getGroupAction(String groupName) {
+        return this.compiled.actions.get(groupName);
+    }
+
+    /**
+     * @return Number of worlds that have their own compiled rules
+     */
+    public int getScopedWorldCount() {
+        return this.compiled.worlds.size();
+    }
+
+    /**
+     * @param worldName Name of the world, or null for all groups regardless of their worlds
+     * @return The compiled rules of the groups that apply in the given world
+     */
+    RuleScope getScope(String worldName) {
+        CompiledRules rules = this.compiled;
+        if (worldName == null) {
+            return rules.all;
+        }
+        return rules.worlds.getOrDefault(worldName, rules.otherWorlds);
+    }
+
+    /**
+     * Get a list of the commands that the plugin should
+     * know about. This is used to do a naive preliminary
+     * check about whether or not to even process incoming
+     * commands before checking the deeper details, or ignoring
+     * them if they are irrelevant.
+     *
+     * @return List of commands that have words that may match in a string
+     * @param wordManager
+     */
+    public Set<String> getRelevantCommands(WordManager wordManager) {
+        return this.compiled.all.getCommands();
+    }
+
+    /**
+     * The rule scopes of one load, swapped in at once.
+     */
+    private static class CompiledRules {
+        private final RuleScope all;
+        private final RuleScope otherWorlds;
+        private final Map<String, RuleScope> worlds;
+        private final Map<String, GroupAction> actions;
+        private final int literalCount;
+
+        CompiledRules(
+                RuleScope all,
+                RuleScope otherWorlds,
+                Map<String, RuleScope> worlds,
+                Map<String, GroupAction> actions,
+                int literalCount
+        ) {
+            this.all = all;
+            this.otherWorlds = otherWorlds;
+            this.worlds = worlds;
+            this.actions = actions;
+            this.literalCount = literalCount;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package io.github.mooeypoo.chatmonitor.words;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+
+import io.github.mooeypoo.chatmonitor.configs.ConfigurationException;
+
+/**
+ * A plain-text word list, one entry per line, with {@code #} comments.
+ *
+ * The file is read and decoded in one go, and the entries are
+ * packed into a single char array in place; no String is created per line.
+ * The packed entries are kept, so a reload only reads the file again if
+ * its size or modification time changed.
+ */
+class WordListFile {
+	private final Path path;
+	private final String fileName;
+	private long size = -1;
+	private FileTime modified = null;
+	private char[] chars = new char[0];
+	// Entries are packed back to back; entry i ends at ends[i] and starts where entry i - 1 ends
+	private int[] ends = new int[0];
+	private int entryCount = 0;
+
+	WordListFile(Path path, String fileName) {
+		this.path = path;
+		this.fileName = fileName;
+	}
+
+	/**
+	 * Read the file again if it changed since it was last read.
+	 *
+	 * @return True if the file was read, false if it was unchanged
+	 * @throws ConfigurationException If the file could not be read
+	 */
+	boolean refresh() throws ConfigurationException {
+		try {
+			BasicFileAttributes attributes = Files.readAttributes(this.path, BasicFileAttributes.class);
+			if (attributes.size() == this.size && attributes.lastModifiedTime().equals(this.modified)) {
+				return false;
+			}
+
+			this.read();
+			this.size = attributes.size();
+			this.modified = attributes.lastModifiedTime();
+			return true;
+		} catch (CharacterCodingException e) {
+			throw new ConfigurationException(this.fileName, "Word list files must be UTF-8 encoded.", e);
+		} catch (IOException e) {
+			throw new ConfigurationException(this.fileName, "Could not read word list file.", e);
+		}
+	}
+
+	private void read() throws IOException {
+		// Not mapped: a mapping outlives the read, and on Windows the file
+		// could not be replaced meanwhile, for example by a shadow promote
+		CharBuffer decoded = StandardCharsets.UTF_8.newDecoder()
+			.onMalformedInput(CodingErrorAction.REPORT)
+			.onUnmappableCharacter(CodingErrorAction.REPORT)
+			.decode(ByteBuffer.wrap(Files.readAllBytes(this.path)));
+
+		char[] text = new char[decoded.remaining()];
+		decoded.get(text);
+
+		int[] entryEnds = new int[16];
+		int count = 0;
+		int write = 0;
+		int i = text.length > 0 && text[0] == '\uFEFF' ? 1 : 0;
+		while (i < text.length) {
+			int lineEnd = i;
+			while (lineEnd < text.length && text[lineEnd] != '\n' && text[lineEnd] != '\r') {
+				lineEnd++;
+			}
+
+			int start = i;
+			int end = lineEnd;
+			while (start < end && Character.isWhitespace(text[start])) {
+				start++;
+			}
+			while (end > start && Character.isWhitespace(text[end - 1])) {
+				end--;
+			}
+
+			if (start < end && text[start] != '#') {
+				// Pack the entry down; the write position never passes the read position
+				System.arraycopy(text, start, text, write, end - start);
+				if (count == entryEnds.length) {
+					entryEnds = Arrays.copyOf(entryEnds, count * 2);
+				}
+				write += end - start;
+				entryEnds[count] = write;
+				count++;
+			}
+
+			i = lineEnd + 1;
+		}
+
+		this.chars = Arrays.copyOf(text, write);
+		this.ends = Arrays.copyOf(entryEnds, count);
+		this.entryCount = count;
+	}
+
+	/**
+	 * Add every entry of the file to the given trie.
+	 *
+	 * @param builder   Trie to add to
+	 * @param groupName Group the entries belong to
+	 */
+	void addTo(LiteralTrie.Builder builder, String groupName) {
+		CharBuffer text = CharBuffer.wrap(this.chars);
+		int start = 0;
+		for (int i = 0; i < this.entryCount; i++) {
+			builder.add(text, start, this.ends[i], groupName);
+			start = this.ends[i];
+		}
+	}
+
+	int getEntryCount() {
+		return this.entryCount;
+	}
+}
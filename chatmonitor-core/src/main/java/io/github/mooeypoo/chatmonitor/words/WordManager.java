@@ -0,0 +1,324 @@
+package io.github.mooeypoo.chatmonitor.words;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.logging.Logger;
+
+import javax.annotation.Nonnull;
+
+import io.github.mooeypoo.chatmonitor.configs.ConfigManager;
+import io.github.mooeypoo.chatmonitor.configs.ConfigurationException;
+import io.github.mooeypoo.chatmonitor.configs.RulesetCache;
+import io.github.mooeypoo.chatmonitor.jfr.EvaluationEvent;
+import io.github.mooeypoo.chatmonitor.jfr.EvaluationRecorder;
+import io.github.mooeypoo.chatmonitor.jfr.RuleCostsEvent;
+import io.github.mooeypoo.chatmonitor.metrics.ChatMetrics;
+
+public class WordManager {
+    /**
+     * File name prefix of the group config files in the plugin's data folder.
+     */
+    public static final String DEFAULT_PREFIX = "ChatMonitor_wordgroup";
+    private static final String SOURCE_CHAT = "chat";
+    private static final String SOURCE_COMMAND = "command";
+
+    public final Logger logger;
+    public final ConfigManager configManager;
+    public final WordCollector wordCollector;
+    private final ChatMetrics metrics = new ChatMetrics();
+    private volatile ParallelEvaluation parallel = null;
+
+    public WordManager(Path filepath, Logger logger) throws ConfigurationException {
+        this(filepath, DEFAULT_PREFIX, logger, new RulesetCache(filepath.resolve("ruleset.cache")));
+    }
+
+    // Used for testing
+    public WordManager(Path filepath, String prefix, Logger logger) throws ConfigurationException {
+        this(filepath, prefix, logger, null);
+    }
+
+    /**
+     * @param filepath Data folder holding the config files
+     * @param prefix   File name prefix of the group config files
+     * @param logger   Logger
+     * @param cache    Cache for the parsed word groups; null to always parse the group files
+     * @throws ConfigurationException If the main config file could not be loaded
+     */
+    public WordManager(Path filepath, String prefix, Logger logger, RulesetCache cache) throws ConfigurationException {
+        this.logger = logger;
+
+        this.configManager = new ConfigManager(filepath, prefix, cache);
+        wordCollector = new WordCollector(this.configManager, logger, this.metrics);
+        this.wordCollector.collectWords();
+    }
+
+    /**
+     * Process the given message to see if it triggers a matching word
+     * then grab the details of the word.
+     *
+     * @param chatMessage Given message
+     * @return Details of the matched word from any of the groups, or null if none was matched.
+     */
+    public WordAction processAllWords(String chatMessage) throws Exception {
+        return this.processAllWords(chatMessage, null);
+    }
+
+    /**
+     * Process the given message to see if it triggers a matching word,
+     * reporting the cost of every evaluated rule to the given recorder.
+     *
+     * @param chatMessage Given message
+     * @param recorder    Receives the cost of each evaluated rule; may be null
+     * @return Details of the matched word from any of the groups, or null if none was matched.
+     */
+    public WordAction processAllWords(String chatMessage, RuleCostRecorder recorder) throws Exception {
+        return this.getMatchedWord(chatMessage, this.wordCollector.getScope(null).getChatRules(), recorder, SOURCE_CHAT, null, false);
+    }
+
+    /**
+     * Process the given message, sent in the given world, against the groups
+     * that apply in that world.
+     *
+     * @param worldName   The name of the world the message was sent in
+     * @param chatMessage Given message
+     * @return Details of the matched word from any of the groups, or null if none was matched.
+     */
+    public WordAction processWordsInWorld(String worldName, String chatMessage) throws Exception {
+        return this.getMatchedWord(chatMessage, this.wordCollector.getScope(worldName).getChatRules(), null, SOURCE_CHAT, null, false);
+    }
+
+    /**
+     * Process the given message, sent in the given world, with the cheap checks only:
+     * whole-word rules and literals. Regular expression rules are skipped. Used when
+     * the server is too busy to evaluate every message in full.
+     *
+     * @param worldName   The name of the world the message was sent in
+     * @param chatMessage Given message
+     * @return Details of the matched word from any of the groups, or null if none was matched.
+     */
+    public WordAction quickProcessWordsInWorld(String worldName, String chatMessage) throws Exception {
+        return this.getMatchedWord(chatMessage, this.wordCollector.getScope(worldName).getChatRules(), null, SOURCE_CHAT, null, true);
+    }
+
+    /**
+     * Process the given command to see if any of its text triggers a matching word
+     * then grab the details of the word.
+     *
+     * @param commandName The name of the command
+     * @param fullmessage Given message
+     * @return Details of the matched word from any of the groups, or null if none was matched.
+     */
+    public WordAction processWordsInCommand(String commandName, String fullmessage) throws Exception {
+        return this.processWordsInCommand(commandName, fullmessage, (RuleCostRecorder) null);
+    }
+
+    /**
+     * Process the given command to see if any of its text triggers a matching word,
+     * reporting the cost of every evaluated rule to the given recorder.
+     *
+     * @param commandName The name of the command
+     * @param fullmessage Given message
+     * @param recorder    Receives the cost of each evaluated rule; may be null
+     * @return Details of the matched word from any of the groups, or null if none was matched.
+     */
+    public WordAction processWordsInCommand(String commandName, String fullmessage, RuleCostRecorder recorder) throws Exception {
+        RuleSet rulesForThisCommand = wordCollector.getScope(null).getRulesForCommand(commandName);
+
+        return this.getMatchedWord(fullmessage, rulesForThisCommand, recorder, SOURCE_COMMAND, commandName, false);
+    }
+
+    /**
+     * Process the given command, sent in the given world, against the groups
+     * that include the command and apply in that world.
+     *
+     * @param worldName   The name of the world the command was sent in
+     * @param commandName The name of the command
+     * @param fullmessage Given message
+     * @return Details of the matched word from any of the groups, or null if none was matched.
+     */
+    public WordAction processCommandInWorld(String worldName, String commandName, String fullmessage) throws Exception {
+        RuleSet rulesForThisCommand = this.wordCollector.getScope(worldName).getRulesForCommand(commandName);
+
+        return this.getMatchedWord(fullmessage, rulesForThisCommand, null, SOURCE_COMMAND, commandName, false);
+    }
+
+    /**
+     * Process text from another source than chat, like a sign or an item rename,
+     * against the groups that include the source and apply in the given world.
+     *
+     * @param worldName The name of the world the text was written in, or null for all groups
+     * @param source    Where the text comes from
+     * @param text      Given text
+     * @return Details of the matched word from any of the groups, or null if none was matched.
+     */
+    public WordAction processWordsInSource(String worldName, TextSource source, String text) throws Exception {
+        return this.getMatchedWord(text, this.wordCollector.getScope(worldName).getRulesForSource(source), null, source.getConfigName(), null, false);
+    }
+
+    /**
+     * Process the pages of a book, page by page, against the groups that include
+     * books and apply in the given world. Checking stops at the first match that
+     * prevents sending; large books are checked in parallel.
+     *
+     * @param worldName The name of the world the book was written in, or null for all groups
+     * @param pages     The pages of the book (and its title, if any)
+     * @return Details of the first blocking match, else of the first match, or null if none was matched.
+     */
+    public WordAction processBookInWorld(String worldName, List<String> pages) throws Exception {
+        RuleScope scope = this.wordCollector.getScope(worldName);
+        if (!scope.hasSource(TextSource.BOOK)) {
+            return null;
+        }
+
+        RuleSet rules = scope.getRulesForSource(TextSource.BOOK);
+        return new BookEvaluator(ForkJoinPool.commonPool(), page -> {
+            return this.getMatchedWord(page, rules, null, TextSource.BOOK.getConfigName(), null, false);
+        }).evaluate(pages);
+    }
+
+    /**
+     * Check a chat message together with the end of the player's earlier
+     * messages, for words split across several messages. Call this for
+     * messages that were clean on their own.
+     *
+     * @param worldName    The name of the world the message was sent in
+     * @param stream       The earlier messages of the player
+     * @param chatMessage  Given message
+     * @param now          Current time, in milliseconds
+     * @param maxGapMillis Longest pause between messages that are still joined
+     * @return Details of the word matched across messages, or null if none was matched.
+     */
+    public WordAction processStreamInWorld(String worldName, MessageStream stream, String chatMessage, long now, long maxGapMillis) {
+        RuleSet rules = this.wordCollector.getScope(worldName).getChatRules();
+        synchronized (stream) {
+            if (stream.isExpired(now, maxGapMillis)) {
+                stream.reset();
+            }
+            return verdict(rules.matchAcross(stream, chatMessage, now));
+        }
+    }
+
+    /**
+     * Match the whole text for the given group, for checks that are not
+     * rules of the group, like raid detection.
+     *
+     * @param groupName Name of the group whose action applies
+     * @param rule      What matched, shown as the matched rule
+     * @param text      The text
+     * @return The match, or null if no such group is loaded
+     */
+    public WordAction matchGroup(String groupName, String rule, String text) {
+        GroupAction action = this.wordCollector.getGroupAction(groupName);
+        return action == null ? null : new WordAction(rule, text, 0, text.length(), action);
+    }
+
+    /**
+     * Whether any group checks the given source, so callers can skip
+     * gathering the text otherwise.
+     *
+     * @param source A text source
+     * @return True if any group includes the source
+     */
+    public boolean isSourceIncluded(TextSource source) {
+        return this.wordCollector.getScope(null).hasSource(source);
+    }
+
+    /**
+     * Check whether the test string has any matches from the given rules
+     * and return the matching word.
+     *
+     * @param givenString Given string
+     * @param rules       The compiled rules to test against
+     * @param recorder    Receives the cost of each evaluated rule; may be null
+     * @param source      Where the text comes from, for the metrics and the flight recorder
+     * @param detail      The command name, for the flight recorder; may be null
+     * @param quick       Whether to skip the regular expression rules
+     * @return The matching rule, where it matched and the action of its group,
+     * or null if none was matched.
+     * @throws Exception
+     */
+    private WordAction getMatchedWord(String givenString, @Nonnull RuleSet rules, RuleCostRecorder recorder, String source, String detail, boolean quick) throws Exception {
+        long start = System.nanoTime();
+        EvaluationEvent event = new EvaluationEvent();
+        RuleCostsEvent costs = new RuleCostsEvent();
+        if (!event.isEnabled() && !costs.isEnabled()) {
+            // Rules ignore case themselves; the message is never copied to lowercase
+            WordAction matched = rules.match(givenString, recorder, quick, this.parallel);
+            this.recordMetrics(source, matched, start);
+            return verdict(matched);
+        }
+
+        // Only time every rule while a recording asks for the rule costs; the
+        // evaluation event alone checks the text the same way as without a recording
+        EvaluationRecorder evaluationRecorder = costs.isEnabled() ? new EvaluationRecorder(recorder) : null;
+        event.begin();
+        costs.begin();
+        WordAction matched = rules.match(givenString, evaluationRecorder == null ? recorder : evaluationRecorder, quick, this.parallel);
+        costs.end();
+        event.end();
+        this.recordMetrics(source, matched, start);
+        if (event.shouldCommit()) {
+            event.source = describeSource(source, detail);
+            event.messageLength = givenString.length();
+            if (matched != null) {
+                event.matchedRule = matched.getMatchedRule();
+                event.matchedGroup = matched.getGroup();
+            }
+            event.commit();
+        }
+        if (evaluationRecorder != null && costs.shouldCommit()) {
+            costs.source = describeSource(source, detail);
+            evaluationRecorder.fill(costs);
+            costs.commit();
+        }
+        return verdict(matched);
+    }
+
+    /**
+     * A match of a rule whose group is not known has no action to take.
+     */
+    private static WordAction verdict(WordAction matched) {
+        return matched == null || matched.getGroup() == null ? null : matched;
+    }
+
+    private void recordMetrics(String source, WordAction matched, long start) {
+        // Commands are counted together, not per command name
+        this.metrics.recordEvaluation(source, matched == null ? null : matched.getGroup(), System.nanoTime() - start);
+    }
+
+    /**
+     * Only called for events that are written, so other checks build no strings.
+     */
+    private static String describeSource(String source, String detail) {
+        return detail == null ? source : source + ":" + detail;
+    }
+
+    /**
+     * Check the regular expression rules of large rule sets in parallel, or
+     * one after another again.
+     *
+     * @param parallel The parallel evaluation to use, or null to check rules one after another
+     * @return The parallel evaluation used before, for the caller to close
+     */
+    public ParallelEvaluation setParallelEvaluation(ParallelEvaluation parallel) {
+        ParallelEvaluation previous = this.parallel;
+        this.parallel = parallel;
+        return previous;
+    }
+
+    /**
+     * @return The parallel evaluation in use, or null if rules are checked one after another
+     */
+    public ParallelEvaluation getParallelEvaluation() {
+        return this.parallel;
+    }
+
+    /**
+     * @return Counters and histograms of the checks, for the metrics endpoint
+     */
+    public ChatMetrics getMetrics() {
+        return this.metrics;
+    }
+
+}
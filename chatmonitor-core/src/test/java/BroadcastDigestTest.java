@@ -0,0 +1,43 @@
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.Test;
+
+import io.github.mooeypoo.chatmonitor.digest.BroadcastDigest;
+
+public class BroadcastDigestTest {
+	@Test
+	public void testOneLinePerGroup() {
+		BroadcastDigest digest = new BroadcastDigest();
+		UUID[] players = { UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID() };
+
+		for (int i = 0; i < 12; i++) {
+			digest.add("offensive", true, players[i % 3], "Player" + i + ": Not allowed.");
+		}
+		digest.add("warnings", false, players[0], "Player0: Please be nice.");
+		digest.add("warnings", false, players[0], "Player0: Please be nice.");
+		digest.add("links", true, players[1], "Player1: No links.");
+
+		List<String> lines = digest.drain();
+		assertEquals(List.of(
+			"12 messages blocked from 3 players in group offensive",
+			"2 messages caught from 1 player in group warnings",
+			// A single match keeps its own response
+			"Player1: No links."
+		), lines);
+		assertEquals(15, digest.getFolded());
+	}
+
+	@Test
+	public void testDrainStartsANewDigest() {
+		BroadcastDigest digest = new BroadcastDigest();
+		assertTrue(digest.drain().isEmpty());
+
+		digest.add("offensive", true, UUID.randomUUID(), "Not allowed.");
+		assertEquals(List.of("Not allowed."), digest.drain());
+		assertTrue(digest.drain().isEmpty());
+		assertEquals(1, digest.getFolded());
+	}
+}
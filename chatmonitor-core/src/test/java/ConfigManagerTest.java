@@ -0,0 +1,25 @@
+import static org.junit.Assert.*;
+
+import java.nio.file.Paths;
+
+import org.junit.Test;
+
+import io.github.mooeypoo.chatmonitor.configs.ConfigManager;
+import io.github.mooeypoo.chatmonitor.configs.ConfigurationException;
+
+public class ConfigManagerTest {
+	@Test
+	public void testBrokenGroupDoesNotStopOtherGroups() throws ConfigurationException {
+		ConfigManager configManager = new ConfigManager(
+			Paths.get("src", "test", "resources", "brokengroup"), "test_"
+		);
+
+		// The valid group is fully loaded
+		assertTrue(configManager.getGroupWords("list").contains("badw[0o]rd"));
+
+		// The broken group is reported, and falls back to its defaults
+		assertEquals(1, configManager.getGroupErrors().size());
+		assertEquals("test__broken.yml", configManager.getGroupErrors().get(0).getConfigFileName());
+		assertTrue(configManager.getGroupWords("broken").isEmpty());
+	}
+}
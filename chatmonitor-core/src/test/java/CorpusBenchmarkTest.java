@@ -0,0 +1,71 @@
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Logger;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Test;
+
+import io.github.mooeypoo.chatmonitor.bench.BenchmarkReport;
+import io.github.mooeypoo.chatmonitor.bench.CorpusBenchmark;
+import io.github.mooeypoo.chatmonitor.words.WordManager;
+
+public class CorpusBenchmarkTest {
+	@Test
+	public void testCorpusReplay() throws Exception {
+		WordManager wordManager = new WordManager(
+			Paths.get("src","test","resources", "validrules"), "test_", Logger.getLogger("chat_monitor")
+		);
+
+		BenchmarkReport report = new CorpusBenchmark(wordManager)
+			.run(Paths.get("src","test","resources", "corpus", "chat.txt"));
+
+		// Blank lines are skipped
+		assertEquals(5, report.getLines());
+		assertEquals(3, report.getMatches());
+		assertEquals(3, report.getGroupMatches("list"));
+		assertEquals(0, report.getErrors());
+		assertFalse(report.isTruncated());
+
+		// The regex rule was evaluated, and the ranking is most expensive first
+		List<BenchmarkReport.RuleCost> costs = report.getRuleCosts();
+		assertTrue(costs.stream().anyMatch(cost -> cost.getRule().equals("badw[0o]rd")));
+		for (int i = 1; i < costs.size(); i++) {
+			assertTrue(costs.get(i - 1).getNanos() >= costs.get(i).getNanos());
+		}
+		assertFalse(report.toLines(5).isEmpty());
+	}
+
+	@Test
+	public void testTruncatedCompressedCorpus() throws Exception {
+		WordManager wordManager = new WordManager(
+			Paths.get("src","test","resources", "validrules"), "test_", Logger.getLogger("chat_monitor")
+		);
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+			for (int i = 0; i < 100; i++) {
+				gzip.write(("message number " + i + "\n").getBytes(StandardCharsets.UTF_8));
+			}
+		}
+		// Without the gzip trailer, like a capture file that is still being written
+		byte[] compressed = bytes.toByteArray();
+		Path corpus = Files.createTempFile("chatmonitor-corpus", ".gz");
+		try {
+			Files.write(corpus, Arrays.copyOf(compressed, compressed.length - 8));
+			BenchmarkReport report = new CorpusBenchmark(wordManager).run(corpus);
+
+			assertTrue(report.isTruncated());
+			assertEquals(100, report.getLines());
+			assertTrue(report.toLines(5).get(1).contains("truncated"));
+		} finally {
+			Files.delete(corpus);
+		}
+	}
+}
@@ -0,0 +1,100 @@
+import static org.junit.Assert.*;
+
+import java.nio.file.Paths;
+import java.util.logging.Logger;
+
+import org.junit.Test;
+
+import io.github.mooeypoo.chatmonitor.words.MessageStream;
+import io.github.mooeypoo.chatmonitor.words.WordAction;
+import io.github.mooeypoo.chatmonitor.words.WordManager;
+
+public class CrossMessageTest {
+	private static final long GAP = 10000;
+
+	private WordManager createWordManager() throws Exception {
+		return new WordManager(Paths.get("src","test","resources", "literals"), "test_", Logger.getLogger("chat_monitor"));
+	}
+
+	@Test
+	public void testWordSplitAcrossMessages() throws Exception {
+		WordManager wordManager = this.createWordManager();
+		MessageStream stream = new MessageStream();
+		long now = System.currentTimeMillis();
+
+		assertNull(wordManager.processStreamInWorld(null, stream, "hi all", now, GAP));
+		assertNull(wordManager.processStreamInWorld(null, stream, "w", now + 1000, GAP));
+		assertNull(wordManager.processStreamInWorld(null, stream, "0", now + 2000, GAP));
+		WordAction action = wordManager.processStreamInWorld(null, stream, "rd", now + 3000, GAP);
+		assertNotNull(action);
+		assertEquals("\\bw0rd\\b", action.getMatchedRule());
+		assertEquals("w0rd", action.getOriginalWord());
+		assertEquals("list", action.getGroup());
+
+		// Still a whole word: a longer word is not matched
+		assertNull(wordManager.processStreamInWorld(null, stream, "w0", now + 4000, GAP));
+		assertNull(wordManager.processStreamInWorld(null, stream, "rds", now + 5000, GAP));
+	}
+
+	@Test
+	public void testLiteralSplitAcrossMessages() throws Exception {
+		WordManager wordManager = this.createWordManager();
+		MessageStream stream = new MessageStream();
+		long now = System.currentTimeMillis();
+
+		assertNull(wordManager.processStreamInWorld(null, stream, "visit spa", now, GAP));
+		assertNull(wordManager.processStreamInWorld(null, stream, "ms", now + 1000, GAP));
+		WordAction action = wordManager.processStreamInWorld(null, stream, "ITE today", now + 2000, GAP);
+		assertNotNull(action);
+		assertEquals("spamsite", action.getMatchedRule());
+		assertEquals("spamsITE", action.getOriginalWord());
+		assertEquals("blocklist", action.getGroup());
+		assertTrue(action.isPreventSend());
+	}
+
+	@Test
+	public void testOnlyMatchesThatRunAcrossMessages() throws Exception {
+		WordManager wordManager = this.createWordManager();
+		MessageStream stream = new MessageStream();
+		long now = System.currentTimeMillis();
+
+		// Matches inside a single message are left to the normal check
+		assertNull(wordManager.processStreamInWorld(null, stream, "go", now, GAP));
+		assertNull(wordManager.processStreamInWorld(null, stream, "a spamsite", now + 1000, GAP));
+		assertNull(wordManager.processStreamInWorld(null, stream, "a w0rd", now + 2000, GAP));
+	}
+
+	@Test
+	public void testLongMessageForgetsEarlierStarts() throws Exception {
+		WordManager wordManager = this.createWordManager();
+		MessageStream stream = new MessageStream();
+		long now = System.currentTimeMillis();
+
+		// Messages start at 0 and 30 of the kept tail
+		assertNull(wordManager.processStreamInWorld(null, stream, "a".repeat(30), now, GAP));
+		assertNull(wordManager.processStreamInWorld(null, stream, "bb", now + 1000, GAP));
+
+		// A message of 128 characters pushes all of them out of the tail, which
+		// now ends inside the word "zzz...xw0"
+		String message = " " + "z".repeat(124) + "xw0";
+		assertNull(wordManager.processStreamInWorld(null, stream, message, now + 2000, GAP));
+		assertNull(wordManager.processStreamInWorld(null, stream, "rd", now + 3000, GAP));
+	}
+
+	@Test
+	public void testStreamExpiresAfterAPause() throws Exception {
+		WordManager wordManager = this.createWordManager();
+		MessageStream stream = new MessageStream();
+		long now = System.currentTimeMillis();
+
+		assertNull(wordManager.processStreamInWorld(null, stream, "w0", now, GAP));
+		assertFalse(stream.isExpired(now + GAP, GAP));
+		assertTrue(stream.isExpired(now + GAP + 1, GAP));
+		assertNull(wordManager.processStreamInWorld(null, stream, "rd", now + GAP + 1, GAP));
+
+		// A reload starts every stream over
+		assertNull(wordManager.processStreamInWorld(null, stream, "w0", now + GAP + 2, GAP));
+		wordManager.wordCollector.reload();
+		assertNull(wordManager.processStreamInWorld(null, stream, "rd", now + GAP + 3, GAP));
+	}
+}
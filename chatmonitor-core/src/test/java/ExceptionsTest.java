@@ -0,0 +1,91 @@
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+
+import io.github.mooeypoo.chatmonitor.configs.ConfigManager;
+import io.github.mooeypoo.chatmonitor.configs.GroupConfigInterface;
+import io.github.mooeypoo.chatmonitor.configs.RulesetCache;
+import io.github.mooeypoo.chatmonitor.words.WordAction;
+import io.github.mooeypoo.chatmonitor.words.WordManager;
+
+public class ExceptionsTest {
+	@Test
+	public void testMatchesInsideExceptionsAreSkipped() throws Exception {
+		WordManager wordManager = new WordManager(
+			Paths.get("src","test","resources", "exceptions"), "test_", Logger.getLogger("chat_monitor")
+		);
+
+		// Only the 'list' group includes the command
+		// Regular expressions
+		assertNull(wordManager.processWordsInCommand("tell", "/tell bob hello from Scunthorpe"));
+		WordAction action = wordManager.processWordsInCommand("tell", "/tell bob scunthorpe is not a cunt");
+		assertEquals("list", action.getGroup());
+		assertEquals("cunt", action.getOriginalWord());
+
+		// Literals
+		assertNull(wordManager.processWordsInCommand("tell", "/tell bob a classic car"));
+		assertEquals("ass", wordManager.processWordsInCommand("tell", "/tell bob a classic ass").getOriginalWord());
+
+		// Whole words
+		assertNull(wordManager.processWordsInCommand("tell", "/tell bob welcome to Hell's Kitchen"));
+		assertEquals("hell", wordManager.processWordsInCommand("tell", "/tell bob go to hell").getOriginalWord());
+	}
+
+	@Test
+	public void testExceptionsOnlyApplyToTheirGroup() throws Exception {
+		WordManager wordManager = new WordManager(
+			Paths.get("src","test","resources", "exceptions"), "test_", Logger.getLogger("chat_monitor")
+		);
+
+		// The exception of 'list' doesn't hide the match of 'places'
+		WordAction action = wordManager.processAllWords("hello from Scunthorpe");
+		assertEquals("places", action.getGroup());
+		assertEquals("thorpe", action.getOriginalWord());
+	}
+
+	@Test
+	public void testExceptionListedByTwoGroups() throws Exception {
+		Path folder = Files.createTempDirectory("chatmonitor-exceptions");
+		try {
+			FileUtils.copyDirectory(Paths.get("src","test","resources", "exceptions").toFile(), folder.toFile());
+			Path places = folder.resolve("test__places.yml");
+			String config = new String(Files.readAllBytes(places), StandardCharsets.UTF_8);
+			Files.write(places, (config + "exceptions:\n  - 'scunthorpe'\n").getBytes(StandardCharsets.UTF_8));
+			WordManager wordManager = new WordManager(folder, "test_", Logger.getLogger("chat_monitor"));
+
+			// Both groups keep the exception, whichever group was loaded first
+			assertNull(wordManager.processAllWords("hello from Scunthorpe"));
+			assertNull(wordManager.processWordsInCommand("tell", "/tell bob hello from Scunthorpe"));
+			assertEquals("list", wordManager.processAllWords("scunthorpe is not a cunt").getGroup());
+			assertEquals("places", wordManager.processAllWords("thorpe is a place").getGroup());
+		} finally {
+			FileUtils.deleteDirectory(folder.toFile());
+		}
+	}
+
+	@Test
+	public void testExceptionsAreCached() throws Exception {
+		Path folder = Files.createTempDirectory("chatmonitor-exceptions");
+		try {
+			RulesetCache cache = new RulesetCache(folder.resolve("ruleset.cache"));
+			ConfigManager configManager = new ConfigManager(Paths.get("src","test","resources", "exceptions"), "test_");
+			byte[] hash = new byte[32];
+			cache.write(hash, configManager.getGroupConfigs());
+
+			Map<String, GroupConfigInterface> cached = cache.read(hash);
+			assertEquals(configManager.getGroupConfigData("list").exceptions(), cached.get("list").exceptions());
+			assertTrue(cached.get("list").exceptions().contains("hell's kitchen"));
+			assertEquals(configManager.getGroupConfigData("list").runCommands(), cached.get("list").runCommands());
+		} finally {
+			FileUtils.deleteDirectory(folder.toFile());
+		}
+	}
+}
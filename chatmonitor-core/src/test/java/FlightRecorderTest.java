@@ -0,0 +1,103 @@
+import static org.junit.Assert.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.logging.Logger;
+
+import org.junit.Test;
+
+import io.github.mooeypoo.chatmonitor.words.WordManager;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class FlightRecorderTest {
+	@Test
+	public void testEvaluationEvents() throws Exception {
+		WordManager wordManager = new WordManager(
+			Paths.get("src","test","resources", "sources"), "test_", Logger.getLogger("chat_monitor")
+		);
+
+		// Nothing is recorded, and nothing changes, without a recording
+		assertEquals("list", wordManager.processAllWords("a w0rd").getGroup());
+
+		Path file = Files.createTempFile("chatmonitor", ".jfr");
+		try (Recording recording = new Recording()) {
+			recording.enable("io.github.mooeypoo.chatmonitor.Evaluation").withThreshold(java.time.Duration.ZERO);
+			recording.enable("io.github.mooeypoo.chatmonitor.Reload");
+			recording.start();
+
+			assertEquals("list", wordManager.processAllWords("a w0rd").getGroup());
+			assertNull(wordManager.processAllWords("nothing to see"));
+			wordManager.wordCollector.reload();
+
+			recording.stop();
+			recording.dump(file);
+		}
+
+		List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+		Files.delete(file);
+
+		RecordedEvent matched = null;
+		RecordedEvent clean = null;
+		RecordedEvent reload = null;
+		for (RecordedEvent event : events) {
+			// Rule costs are off unless asked for
+			assertFalse(event.getEventType().getName().equals("io.github.mooeypoo.chatmonitor.RuleCosts"));
+			String name = event.getEventType().getName();
+			if (name.equals("io.github.mooeypoo.chatmonitor.Evaluation")) {
+				if (event.getString("matchedGroup") != null) {
+					matched = event;
+				} else {
+					clean = event;
+				}
+			} else if (name.equals("io.github.mooeypoo.chatmonitor.Reload")) {
+				reload = event;
+			}
+		}
+
+		assertNotNull(matched);
+		assertEquals("chat", matched.getString("source"));
+		assertEquals(6, matched.getInt("messageLength"));
+		assertEquals("list", matched.getString("matchedGroup"));
+
+		assertNotNull(clean);
+		assertNull(clean.getString("matchedRule"));
+
+		assertNotNull(reload);
+		assertEquals(3, reload.getInt("groups"));
+	}
+
+	@Test
+	public void testRuleCostEvents() throws Exception {
+		WordManager wordManager = new WordManager(
+			Paths.get("src","test","resources", "sources"), "test_", Logger.getLogger("chat_monitor")
+		);
+
+		Path file = Files.createTempFile("chatmonitor", ".jfr");
+		try (Recording recording = new Recording()) {
+			recording.enable("io.github.mooeypoo.chatmonitor.RuleCosts").withThreshold(java.time.Duration.ZERO);
+			recording.start();
+
+			assertEquals("list", wordManager.processWordsInCommand("tell", "/tell bob a w0rd").getGroup());
+
+			recording.stop();
+			recording.dump(file);
+		}
+
+		List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+		Files.delete(file);
+
+		RecordedEvent costs = null;
+		for (RecordedEvent event : events) {
+			if (event.getEventType().getName().equals("io.github.mooeypoo.chatmonitor.RuleCosts")) {
+				costs = event;
+			}
+		}
+		assertNotNull(costs);
+		assertTrue(costs.getInt("rulesTried") > 0);
+		assertNotNull(costs.getString("slowestRule"));
+	}
+}
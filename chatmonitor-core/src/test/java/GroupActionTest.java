@@ -0,0 +1,114 @@
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Logger;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+
+import io.github.mooeypoo.chatmonitor.words.RuleSet;
+import io.github.mooeypoo.chatmonitor.words.WordAction;
+import io.github.mooeypoo.chatmonitor.words.WordManager;
+
+public class GroupActionTest {
+	@Test
+	public void testMatchesShareTheActionOfTheirGroup() throws Exception {
+		WordManager wordManager = new WordManager(
+			Paths.get("src","test","resources", "literals"), "test_", Logger.getLogger("chat_monitor")
+		);
+
+		WordAction first = wordManager.processAllWords("a w0rd here");
+		WordAction second = wordManager.processAllWords("and another w0rd");
+		WordAction command = wordManager.processWordsInCommand("tell", "/tell bob w0rd");
+		assertSame(first.getGroupAction(), second.getGroupAction());
+		assertSame(first.getGroupAction(), command.getGroupAction());
+
+		// Matches only keep their span; the word is cut out of the text
+		assertEquals(12, second.getStart());
+		assertEquals(16, second.getEnd());
+		assertEquals("w0rd", second.getOriginalWord());
+
+		WordAction literal = wordManager.processAllWords("get FREE COINS now");
+		assertEquals("blocklist", literal.getGroup());
+		assertEquals("Blocked (\"%word%\").", literal.getMessage());
+		assertTrue(literal.isPreventSend());
+		assertTrue(literal.getCommands().isEmpty());
+		assertEquals("FREE COINS", literal.getOriginalWord());
+		assertNotSame(first.getGroupAction(), literal.getGroupAction());
+	}
+
+	@Test
+	public void testReloadBuildsNewActions() throws Exception {
+		Path folder = Files.createTempDirectory("chatmonitor-actions");
+		try {
+			FileUtils.copyDirectory(Paths.get("src","test","resources", "literals").toFile(), folder.toFile());
+			WordManager wordManager = new WordManager(folder, "test_", Logger.getLogger("chat_monitor"));
+
+			WordAction before = wordManager.processAllWords("visit spamsite");
+			assertEquals("Blocked (\"%word%\").", before.getMessage());
+
+			Path group = folder.resolve("test__blocklist.yml");
+			String config = new String(Files.readAllBytes(group), StandardCharsets.UTF_8);
+			Files.write(group, config.replace("Blocked (", "Not here (").getBytes(StandardCharsets.UTF_8));
+			wordManager.wordCollector.reload();
+
+			WordAction after = wordManager.processAllWords("visit spamsite");
+			assertEquals("Not here (\"%word%\").", after.getMessage());
+			// Results from before the reload keep the action they were matched with
+			assertEquals("Blocked (\"%word%\").", before.getMessage());
+			assertNotSame(before.getGroupAction(), after.getGroupAction());
+		} finally {
+			FileUtils.deleteDirectory(folder.toFile());
+		}
+	}
+
+	@Test
+	public void testRuleSharedByGroups() throws Exception {
+		WordManager wordManager = new WordManager(
+			Paths.get("src","test","resources", "sharedrules"), "test_", Logger.getLogger("chat_monitor")
+		);
+		// One rule, however many groups list it
+		RuleSet rules = wordManager.wordCollector.getAllRules();
+		assertEquals(3, rules.size());
+		assertEquals(2, rules.getWholeWordCount());
+
+		WordAction shared = wordManager.processAllWords("this is shared");
+		assertEquals(List.of("blocklist", "list"), shared.getGroups());
+		// The blocking group answers, and the actions of both groups are taken
+		assertEquals("blocklist", shared.getGroup());
+		assertEquals("Blocked (\"%word%\").", shared.getMessage());
+		assertTrue(shared.isPreventSend());
+		assertEquals(30, shared.getMuteSeconds());
+		assertEquals(Set.of("warn %player%", "log %player%"), shared.getCommands());
+
+		WordAction command = wordManager.processWordsInCommand("msg", "/msg bob duplicate");
+		assertEquals(List.of("blocklist", "list"), command.getGroups());
+
+		WordAction mild = wordManager.processAllWords("that is mild");
+		assertEquals(List.of("list"), mild.getGroups());
+		assertFalse(mild.isPreventSend());
+		assertEquals(0, mild.getMuteSeconds());
+	}
+
+	@Test
+	public void testLiteralSharedByGroups() throws Exception {
+		WordManager wordManager = new WordManager(
+			Paths.get("src","test","resources", "sharedrules"), "test_", Logger.getLogger("chat_monitor")
+		);
+
+		WordAction chat = wordManager.processAllWords("buy cheap spam here");
+		assertEquals(List.of("blocklist", "watch"), chat.getGroups());
+		assertEquals("blocklist", chat.getGroup());
+		assertEquals("spam", chat.getOriginalWord());
+
+		// Each command only gets the groups that check it
+		assertEquals(List.of("watch"), wordManager.processWordsInCommand("tell", "/tell bob spam").getGroups());
+		assertEquals(List.of("blocklist"), wordManager.processWordsInCommand("msg", "/msg bob spam").getGroups());
+		assertNull(wordManager.processWordsInCommand("msg", "/msg bob eggs"));
+	}
+}
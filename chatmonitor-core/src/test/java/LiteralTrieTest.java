@@ -0,0 +1,73 @@
+import static org.junit.Assert.*;
+
+import java.nio.file.Paths;
+import java.util.Set;
+import java.util.logging.Logger;
+
+import org.junit.Test;
+
+import io.github.mooeypoo.chatmonitor.words.LiteralTrie;
+import io.github.mooeypoo.chatmonitor.words.WordAction;
+import io.github.mooeypoo.chatmonitor.words.WordManager;
+
+public class LiteralTrieTest {
+	@Test
+	public void testLiteralMatches() throws Exception {
+		WordManager wordManager = new WordManager(
+			Paths.get("src","test","resources", "literals"), "test_", Logger.getLogger("chat_monitor")
+		);
+		WordAction action = null;
+
+		action = wordManager.processAllWords("Visit SpamSite.example today");
+		assertEquals("SpamSite", action.getOriginalWord());
+		assertEquals("spamsite", action.getMatchedRule());
+		assertEquals("blocklist", action.getGroup());
+		assertTrue(action.isPreventSend());
+
+		// The entry that ends first wins
+		action = wordManager.processAllWords("get FREE COINSxx now");
+		assertEquals("FREE COINS", action.getOriginalWord());
+
+		// Partial matches fall back to the longest suffix that can still match
+		action = wordManager.processAllWords("coincoinsxx");
+		assertEquals("coinsxx", action.getOriginalWord());
+
+		// Entries too short for the prefilter are still found
+		action = wordManager.processAllWords("that was eZ");
+		assertEquals("eZ", action.getOriginalWord());
+
+		// Regular expression rules of other groups still apply
+		action = wordManager.processAllWords("a w0rd here");
+		assertEquals("list", action.getGroup());
+
+		action = wordManager.processAllWords("Nothing to see here.");
+		assertNull(action);
+	}
+
+	@Test
+	public void testLiteralsInCommands() throws Exception {
+		WordManager wordManager = new WordManager(
+			Paths.get("src","test","resources", "literals"), "test_", Logger.getLogger("chat_monitor")
+		);
+
+		assertEquals(Set.of("tell", "msg"), wordManager.wordCollector.getRelevantCommands(wordManager));
+		assertEquals("spamsite", wordManager.processWordsInCommand("msg", "go to spamsite").getMatchedRule());
+		assertNull(wordManager.processWordsInCommand("tell", "go to spamsite"));
+		assertNotNull(wordManager.processWordsInCommand("tell", "a w0rd"));
+	}
+
+	@Test
+	public void testCompactStorage() {
+		LiteralTrie trie = new LiteralTrie.Builder()
+			.add("badword", "a")
+			.add("badwords", "a")
+			.add("BADWORD", "b")
+			.add("bad", "b")
+			.build();
+
+		// Shared prefixes share nodes, and case folded duplicates are one entry
+		assertEquals(3, trie.getEntryCount());
+		assertEquals(9, trie.getNodeCount());
+		assertTrue(trie.getMemoryFootprint() > 0);
+	}
+}
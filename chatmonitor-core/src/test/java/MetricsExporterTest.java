@@ -0,0 +1,82 @@
+import static org.junit.Assert.*;
+
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import org.junit.Test;
+
+import io.github.mooeypoo.chatmonitor.metrics.ChatMetrics;
+import io.github.mooeypoo.chatmonitor.metrics.MetricsExporter;
+import io.github.mooeypoo.chatmonitor.words.TextSource;
+import io.github.mooeypoo.chatmonitor.words.WordManager;
+
+public class MetricsExporterTest {
+	@Test
+	public void testChecksAreCounted() throws Exception {
+		WordManager wordManager = new WordManager(
+			Paths.get("src","test","resources", "sources"), "test_", Logger.getLogger("chat_monitor")
+		);
+
+		wordManager.processAllWords("a w0rd");
+		wordManager.processAllWords("nothing to see");
+		wordManager.processWordsInCommand("tell", "/tell bob a w0rd");
+		wordManager.processWordsInSource(null, TextSource.SIGN, "grief");
+
+		ChatMetrics metrics = wordManager.getMetrics();
+		assertEquals(2, metrics.getScanned("chat"));
+		assertEquals(1, metrics.getScanned("command"));
+		assertEquals(1, metrics.getScanned("sign"));
+		assertEquals(2, metrics.getMatches("list"));
+		assertEquals(1, metrics.getMatches("signs"));
+	}
+
+	@Test
+	public void testScrape() throws Exception {
+		ChatMetrics metrics = new ChatMetrics();
+		metrics.recordEvaluation("chat", "list", TimeUnit.MICROSECONDS.toNanos(5));
+		metrics.recordEvaluation("chat", null, TimeUnit.MILLISECONDS.toNanos(3));
+		metrics.recordEvaluation("command", "say \"hi\"", TimeUnit.SECONDS.toNanos(1));
+		metrics.dispatchQueued();
+		metrics.recordReload(TimeUnit.MILLISECONDS.toNanos(250));
+
+		MetricsExporter exporter = new MetricsExporter(metrics, null);
+		exporter.start(0);
+		String body;
+		try {
+			HttpURLConnection connection = (HttpURLConnection) new URL(
+				"http://127.0.0.1:" + exporter.getPort() + MetricsExporter.PATH
+			).openConnection();
+			assertEquals(200, connection.getResponseCode());
+			assertTrue(connection.getContentType().startsWith("text/plain; version=0.0.4"));
+			try (InputStream stream = connection.getInputStream()) {
+				body = new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+			}
+		} finally {
+			exporter.stop();
+		}
+		assertEquals(0, exporter.getPort());
+
+		assertTrue(body.contains("# TYPE chatmonitor_messages_scanned_total counter\n"));
+		assertTrue(body.contains("chatmonitor_messages_scanned_total{source=\"chat\"} 2\n"));
+		assertTrue(body.contains("chatmonitor_matches_total{group=\"list\"} 1\n"));
+		// Label values are escaped
+		assertTrue(body.contains("chatmonitor_matches_total{group=\"say \\\"hi\\\"\"} 1\n"));
+
+		// Buckets are cumulative
+		assertTrue(body.contains("chatmonitor_evaluation_seconds_bucket{le=\"0.00001\"} 1\n"));
+		assertTrue(body.contains("chatmonitor_evaluation_seconds_bucket{le=\"0.005\"} 2\n"));
+		assertTrue(body.contains("chatmonitor_evaluation_seconds_bucket{le=\"0.1\"} 2\n"));
+		assertTrue(body.contains("chatmonitor_evaluation_seconds_bucket{le=\"+Inf\"} 3\n"));
+		assertTrue(body.contains("chatmonitor_evaluation_seconds_count 3\n"));
+
+		assertTrue(body.contains("chatmonitor_dispatch_queue_depth 1\n"));
+		assertTrue(body.contains("chatmonitor_reloads_total 1\n"));
+		assertTrue(body.contains("chatmonitor_last_reload_seconds 0.25\n"));
+		assertFalse(body.contains("chatmonitor_load_degraded"));
+	}
+}
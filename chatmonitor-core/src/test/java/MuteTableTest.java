@@ -0,0 +1,132 @@
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.github.mooeypoo.chatmonitor.mute.MuteTable;
+
+public class MuteTableTest {
+	private static final long SECOND = 1000;
+	private static final long MINUTE = 60 * SECOND;
+
+	private Path folder;
+
+	@Before
+	public void setUp() throws IOException {
+		folder = Files.createTempDirectory("chatmonitor-mutes");
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		FileUtils.deleteDirectory(folder.toFile());
+	}
+
+	@Test
+	public void testMutesExpire() throws Exception {
+		MuteTable mutes = new MuteTable(folder.resolve(MuteTable.FILE), Logger.getLogger("chat_monitor"));
+		long now = System.currentTimeMillis();
+		UUID player = UUID.randomUUID();
+		UUID other = UUID.randomUUID();
+
+		mutes.mute(player, "Alice", 30 * SECOND, now);
+		assertTrue(mutes.isMuted(player, now));
+		assertFalse(mutes.isMuted(other, now));
+		assertEquals(30 * SECOND, mutes.getRemainingMillis(player, now));
+
+		// Not expired before its time, even between two ticks
+		mutes.advance(now + 29 * SECOND);
+		assertEquals(1, mutes.size());
+		assertTrue(mutes.isMuted(player, now + 29 * SECOND));
+
+		mutes.advance(now + 31 * SECOND);
+		assertEquals(0, mutes.size());
+		assertFalse(mutes.isMuted(player, now + 31 * SECOND));
+		assertTrue(mutes.close(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testLongerMuteWins() throws Exception {
+		MuteTable mutes = new MuteTable(folder.resolve(MuteTable.FILE), Logger.getLogger("chat_monitor"));
+		long now = System.currentTimeMillis();
+		UUID player = UUID.randomUUID();
+
+		mutes.mute(player, "Alice", 10 * SECOND, now);
+		mutes.mute(player, "Alice", 5 * MINUTE, now);
+		// A shorter mute does not cut a longer one
+		assertEquals(now + 5 * MINUTE, mutes.mute(player, "Alice", 20 * SECOND, now));
+
+		// The first mute runs out, but the longer one stays
+		mutes.advance(now + 30 * SECOND);
+		assertTrue(mutes.isMuted(player, now + 30 * SECOND));
+
+		assertTrue(mutes.unmute(player));
+		assertFalse(mutes.isMuted(player, now + 30 * SECOND));
+		assertFalse(mutes.unmute(player));
+		assertTrue(mutes.close(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testMutesLongerThanOneTurnOfTheWheel() throws Exception {
+		MuteTable mutes = new MuteTable(folder.resolve(MuteTable.FILE), Logger.getLogger("chat_monitor"));
+		long now = System.currentTimeMillis();
+		UUID hour = UUID.randomUUID();
+		UUID day = UUID.randomUUID();
+
+		mutes.mute(hour, "Hour", 60 * MINUTE, now);
+		mutes.mute(day, "Day", 24 * 60 * MINUTE, now);
+
+		// Tick through the hour, passing every slot many times
+		for (long time = now; time < now + 60 * MINUTE - SECOND; time += 7 * SECOND) {
+			mutes.advance(time);
+		}
+		assertEquals(2, mutes.size());
+		mutes.advance(now + 60 * MINUTE + SECOND);
+		assertEquals(1, mutes.size());
+		assertFalse(mutes.isMuted(hour, now + 60 * MINUTE + SECOND));
+
+		// A long pause between two ticks
+		mutes.advance(now + 12 * 60 * MINUTE);
+		assertEquals(1, mutes.size());
+		mutes.advance(now + 24 * 60 * MINUTE + SECOND);
+		assertEquals(0, mutes.size());
+		assertTrue(mutes.close(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testMutesAreSaved() throws Exception {
+		Path file = folder.resolve(MuteTable.FILE);
+		MuteTable mutes = new MuteTable(file, Logger.getLogger("chat_monitor"));
+		long now = System.currentTimeMillis();
+		UUID muted = UUID.randomUUID();
+		UUID expiring = UUID.randomUUID();
+
+		mutes.mute(muted, "Muted", 10 * MINUTE, now);
+		mutes.mute(expiring, "Expiring", 10 * SECOND, now);
+		assertTrue(mutes.close(10, TimeUnit.SECONDS));
+		assertTrue(Files.exists(file));
+
+		// Mutes that ran out while the server was down are dropped
+		MuteTable restored = new MuteTable(file, Logger.getLogger("chat_monitor"));
+		restored.load(now + MINUTE);
+		assertEquals(1, restored.size());
+		assertTrue(restored.isMuted(muted, now + MINUTE));
+		assertFalse(restored.isMuted(expiring, now + MINUTE));
+
+		// Saved with their names, so they can be unmuted by name while offline
+		assertEquals(muted, restored.findMuted("muted"));
+		assertEquals(muted, restored.findMuted(muted.toString()));
+		assertNull(restored.findMuted("Expiring"));
+		assertTrue(restored.unmute(restored.findMuted("Muted")));
+		assertNull(restored.findMuted("Muted"));
+		assertTrue(restored.close(10, TimeUnit.SECONDS));
+	}
+}
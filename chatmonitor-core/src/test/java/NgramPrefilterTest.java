@@ -0,0 +1,43 @@
+import static org.junit.Assert.*;
+
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.logging.Logger;
+
+import org.junit.Test;
+
+import io.github.mooeypoo.chatmonitor.words.RuleSet;
+import io.github.mooeypoo.chatmonitor.words.WordManager;
+
+public class NgramPrefilterTest {
+	@Test
+	public void testRulesWithRequiredTrigramsAreFiltered() {
+		RuleSet rules = RuleSet.compile(List.of("badw[0o]rd", "\\bw0rd\\b", "fo+bar", "colou?r"));
+
+		assertNotNull(rules.getPrefilter());
+		assertEquals(0, rules.getUngatedCount());
+		assertTrue(rules.getPrefilter().getFalsePositiveRate() < 0.05);
+	}
+
+	@Test
+	public void testRulesWithoutRequiredTrigramsAreAlwaysEvaluated() {
+		// Alternation, short words and optional characters can't be filtered
+		RuleSet rules = RuleSet.compile(List.of("cat|dog", "\\bab\\b", "a?b?c?d?", "somelongword"));
+
+		assertNotNull(rules.getPrefilter());
+		assertEquals(3, rules.getUngatedCount());
+	}
+
+	@Test
+	public void testFilterNeverHidesAMatch() throws Exception {
+		WordManager wordManager = new WordManager(
+			Paths.get("src","test","resources", "validrules"), "test_", Logger.getLogger("chat_monitor")
+		);
+
+		assertNotNull(wordManager.processAllWords("somebadw0rd"));
+		assertNotNull(wordManager.processAllWords("badword"));
+		assertNotNull(wordManager.processAllWords("w0rd"));
+		assertNull(wordManager.processAllWords("hi"));
+		assertNull(wordManager.processAllWords("a perfectly clean message"));
+	}
+}
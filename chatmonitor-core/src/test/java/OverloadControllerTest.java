@@ -0,0 +1,113 @@
+import static org.junit.Assert.*;
+
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import org.junit.Test;
+
+import io.github.mooeypoo.chatmonitor.load.OverloadController;
+import io.github.mooeypoo.chatmonitor.load.VerdictCache;
+import io.github.mooeypoo.chatmonitor.words.WordAction;
+import io.github.mooeypoo.chatmonitor.words.WordManager;
+
+public class OverloadControllerTest {
+	@Test
+	public void testInFlightThreshold() {
+		OverloadController overload = new OverloadController(Logger.getLogger("chat_monitor"), 0, 2);
+
+		assertTrue(overload.enter());
+		assertTrue(overload.enter());
+		assertFalse(overload.enter());
+		assertEquals(OverloadController.Mode.DEGRADED, overload.getMode());
+		assertEquals(1, overload.getModeChanges());
+
+		// While degraded, a sample of messages is still checked in full
+		int full = 0;
+		for (int i = 0; i < OverloadController.PROBE_INTERVAL * 4; i++) {
+			if (overload.enter()) {
+				full++;
+			}
+		}
+		assertEquals(4, full);
+	}
+
+	@Test
+	public void testLatencyThreshold() {
+		OverloadController overload = new OverloadController(Logger.getLogger("chat_monitor"), 1000, 0);
+
+		overload.enter();
+		overload.exit(true, TimeUnit.MICROSECONDS.toNanos(200));
+		assertEquals(OverloadController.Mode.FULL, overload.getMode());
+
+		for (int i = 0; i < 50; i++) {
+			overload.enter();
+			overload.exit(true, TimeUnit.MILLISECONDS.toNanos(5));
+		}
+		assertEquals(OverloadController.Mode.DEGRADED, overload.getMode());
+
+		// Recovery waits for a minimum time in degraded mode, so it doesn't flap
+		for (int i = 0; i < 200; i++) {
+			boolean full = overload.enter();
+			overload.exit(full, TimeUnit.MICROSECONDS.toNanos(10));
+		}
+		assertEquals(OverloadController.Mode.DEGRADED, overload.getMode());
+		assertTrue(overload.getQuickEvaluations() > 0);
+		assertEquals(0, overload.getInFlight());
+	}
+
+	@Test
+	public void testRunningCommandsIsNotTimed() throws Exception {
+		WordManager wordManager = new WordManager(
+			Paths.get("src","test","resources", "sharedrules"), "test_", Logger.getLogger("chat_monitor")
+		);
+		for (int i = 0; i < 100; i++) {
+			// Warm up, so the first sample doesn't measure class loading
+			wordManager.processWordsInWorld(null, "a shared word");
+		}
+		OverloadController overload = new OverloadController(Logger.getLogger("chat_monitor"), 5000, 0);
+
+		// Evaluate the way the chat listener does: the time stops before the
+		// matched group's commands are dispatched, which can wait a tick
+		for (int i = 0; i < 3; i++) {
+			boolean full = overload.enter();
+			long start = System.nanoTime();
+			WordAction action;
+			try {
+				action = wordManager.processWordsInWorld(null, "a shared word");
+			} finally {
+				overload.exit(full, System.nanoTime() - start);
+			}
+			assertTrue(full);
+			assertFalse(action.getCommands().isEmpty());
+			Thread.sleep(50);
+		}
+		assertEquals(OverloadController.Mode.FULL, overload.getMode());
+		assertEquals(0, overload.getModeChanges());
+		assertTrue(overload.getAverageNanos() < TimeUnit.MILLISECONDS.toNanos(5));
+	}
+
+	@Test
+	public void testQuickChecksAndVerdictCache() throws Exception {
+		WordManager wordManager = new WordManager(
+			Paths.get("src","test","resources", "validrules"), "test_", Logger.getLogger("chat_monitor")
+		);
+
+		// Quick checks only run the whole-word rules
+		assertNotNull(wordManager.quickProcessWordsInWorld(null, "a w0rd here"));
+		assertNull(wordManager.quickProcessWordsInWorld(null, "somebadw0rd"));
+
+		VerdictCache cache = new VerdictCache(2);
+		Object rules = wordManager.wordCollector.getAllRules();
+		WordAction action = wordManager.quickProcessWordsInWorld(null, "a w0rd here");
+		cache.put(rules, null, "a w0rd here", action);
+		cache.put(rules, null, "clean", null);
+		assertSame(action, cache.get(rules, null, "a w0rd here"));
+		assertTrue(VerdictCache.isClean(cache.get(rules, null, "clean")));
+		assertNull(cache.get(rules, "world", "clean"));
+
+		// New rules start over
+		wordManager.wordCollector.reload();
+		assertNull(cache.get(wordManager.wordCollector.getAllRules(), null, "clean"));
+	}
+}
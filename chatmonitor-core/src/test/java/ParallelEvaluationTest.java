@@ -0,0 +1,112 @@
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.github.mooeypoo.chatmonitor.words.ParallelEvaluation;
+import io.github.mooeypoo.chatmonitor.words.WordAction;
+import io.github.mooeypoo.chatmonitor.words.WordManager;
+
+public class ParallelEvaluationTest {
+	private static final int RULES = 400;
+
+	private Path folder;
+
+	@Before
+	public void setUp() throws IOException {
+		folder = Files.createTempDirectory("chatmonitor-parallel");
+		write("config.yml", "groups:\n  - 'list'\n  - 'blocklist'\ndefaultmessage: 'Not allowed.'\n");
+
+		StringBuilder list = new StringBuilder("message: 'Not allowed.'\npreventsend: false\nwords:\n");
+		for (int i = 0; i < RULES; i++) {
+			list.append("  - 'spam").append(i).append("x+y'\n");
+		}
+		write("test__list.yml", list.toString());
+		write("test__blocklist.yml", "message: 'Blocked.'\npreventsend: true\nwords:\n  - 'scam\\d+site'\n  - 'bad(wor|ward)s?'\n");
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		FileUtils.deleteDirectory(folder.toFile());
+	}
+
+	private void write(String name, String content) throws IOException {
+		Files.write(folder.resolve(name), content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void testSameVerdictAsSequential() throws Exception {
+		WordManager wordManager = new WordManager(folder, "test_", Logger.getLogger("chat_monitor"));
+		String padding = " lorem ipsum dolor sit amet".repeat(4);
+		String[] messages = {
+			"nothing to see here" + padding,
+			"buy at spam377xxxy now" + padding,
+			"spam12xy and spam399xy and spam0xxy" + padding,
+			padding + " scam42site",
+			"badwords everywhere, spam5xy too" + padding,
+		};
+
+		WordAction[] sequential = new WordAction[messages.length];
+		for (int i = 0; i < messages.length; i++) {
+			sequential[i] = wordManager.processAllWords(messages[i]);
+		}
+
+		ParallelEvaluation parallel = new ParallelEvaluation(50, 0, 4);
+		assertNull(wordManager.setParallelEvaluation(parallel));
+		for (int round = 0; round < 20; round++) {
+			for (int i = 0; i < messages.length; i++) {
+				WordAction action = wordManager.processAllWords(messages[i]);
+				if (sequential[i] == null) {
+					assertNull(messages[i], action);
+				} else {
+					assertEquals(messages[i], sequential[i].getMatchedRule(), action.getMatchedRule());
+					assertEquals(sequential[i].getStart(), action.getStart());
+					assertEquals(sequential[i].getGroup(), action.getGroup());
+				}
+			}
+		}
+		assertNotNull(sequential[1]);
+		assertNull(sequential[0]);
+
+		assertSame(parallel, wordManager.setParallelEvaluation(null));
+		assertTrue(parallel.close(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testStoppedPoolFallsBackToSequential() throws Exception {
+		WordManager wordManager = new WordManager(folder, "test_", Logger.getLogger("chat_monitor"));
+		ParallelEvaluation parallel = new ParallelEvaluation(50, 0, 2);
+		wordManager.setParallelEvaluation(parallel);
+		parallel.stop();
+
+		// A check that still holds a stopped pool, during a reload
+		WordAction action = wordManager.processAllWords("buy at spam377xxxy now");
+		assertEquals("spam377x+y", action.getMatchedRule());
+		assertTrue(parallel.close(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testInvalidRuleIsReportedLikeSequential() throws Exception {
+		write("test__blocklist.yml", "message: 'Blocked.'\npreventsend: true\nwords:\n  - '(invalid'\n");
+		WordManager wordManager = new WordManager(folder, "test_", Logger.getLogger("chat_monitor"));
+		ParallelEvaluation parallel = new ParallelEvaluation(50, 0, 4);
+		wordManager.setParallelEvaluation(parallel);
+
+		try {
+			wordManager.processAllWords("nothing to see here");
+			fail("An invalid rule that is reached should be reported");
+		} catch (Exception e) {
+			assertTrue(e.getMessage().contains("(invalid"));
+		}
+		assertTrue(parallel.close(10, TimeUnit.SECONDS));
+	}
+}
@@ -0,0 +1,73 @@
+import static org.junit.Assert.*;
+
+import java.nio.file.Paths;
+import java.util.logging.Logger;
+
+import org.junit.Test;
+
+import io.github.mooeypoo.chatmonitor.raid.RaidDetector;
+import io.github.mooeypoo.chatmonitor.words.WordAction;
+import io.github.mooeypoo.chatmonitor.words.WordManager;
+
+public class RaidDetectorTest {
+	private static final long SECOND = 1000;
+
+	@Test
+	public void testCopiesPastTheThreshold() {
+		RaidDetector raid = new RaidDetector("blocklist", 3, 60 * SECOND);
+		long now = System.currentTimeMillis();
+
+		for (int i = 0; i < 3; i++) {
+			assertFalse(raid.isRaid("join my server at example dot net", now + i * SECOND));
+		}
+		// Near copies count as the same message
+		assertTrue(raid.isRaid("JOIN my server at example dot net!!! 4821", now + 4 * SECOND));
+		assertTrue(raid.isRaid("joinnn my server at example dot net", now + 5 * SECOND));
+		assertEquals(2, raid.getCopies());
+
+		// Other messages are counted on their own
+		assertFalse(raid.isRaid("hello everyone, how is it going", now + 6 * SECOND));
+		// Too short to tell apart from normal chat
+		assertEquals(0, raid.record("gg", now));
+	}
+
+	@Test
+	public void testCountsLeaveTheWindow() {
+		RaidDetector raid = new RaidDetector("blocklist", 2, 60 * SECOND);
+		long now = 0;
+
+		assertEquals(1, raid.record("buy cheap coins now", now));
+		assertEquals(2, raid.record("buy cheap coins now", now + 30 * SECOND));
+		assertEquals(2, raid.record("buy cheap coins now", now + 70 * SECOND));
+		assertEquals(2, raid.record("buy cheap coins now", now + 95 * SECOND));
+		assertEquals(1, raid.record("buy cheap coins now", now + 200 * SECOND));
+	}
+
+	@Test
+	public void testMemoryStaysFixed() {
+		RaidDetector raid = new RaidDetector("blocklist", 5, 60 * SECOND);
+		long now = System.currentTimeMillis();
+		long memory = raid.getMemoryBytes();
+
+		for (int i = 0; i < 20000; i++) {
+			raid.record("message number " + Integer.toString(i, 26).replace('0', 'q').replace('1', 'r'), now);
+		}
+		assertEquals(memory, raid.getMemoryBytes());
+		// The estimates of new messages stay close to their true count
+		assertTrue(raid.record("a message nobody sent before", now) < 5);
+	}
+
+	@Test
+	public void testRaidCopiesGetTheGroupAction() throws Exception {
+		WordManager wordManager = new WordManager(
+			Paths.get("src","test","resources", "literals"), "test_", Logger.getLogger("chat_monitor")
+		);
+
+		WordAction action = wordManager.matchGroup("blocklist", RaidDetector.RULE, "join my server");
+		assertEquals("blocklist", action.getGroup());
+		assertEquals(RaidDetector.RULE, action.getMatchedRule());
+		assertEquals("join my server", action.getOriginalWord());
+		assertTrue(action.isPreventSend());
+		assertNull(wordManager.matchGroup("nosuchgroup", RaidDetector.RULE, "join my server"));
+	}
+}
@@ -0,0 +1,130 @@
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.github.mooeypoo.chatmonitor.configs.ConfigManager;
+import io.github.mooeypoo.chatmonitor.configs.RulesetCache;
+import io.github.mooeypoo.chatmonitor.words.WordManager;
+
+public class RulesetCacheTest {
+	private Path folder;
+
+	@Before
+	public void setUp() throws IOException {
+		// Work on a copy, since loading writes the cache into the data folder
+		this.folder = Files.createTempDirectory("chatmonitor-cache");
+		FileUtils.copyDirectory(Paths.get("src", "test", "resources", "validrules").toFile(), this.folder.toFile());
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		FileUtils.deleteDirectory(this.folder.toFile());
+	}
+
+	@Test
+	public void testCacheIsUsedUntilGroupFileChanges() throws Exception {
+		RulesetCache cache = new RulesetCache(this.folder.resolve("ruleset.cache"));
+
+		ConfigManager first = new ConfigManager(this.folder, "test_", cache);
+		assertFalse(first.isLoadedFromCache());
+		assertTrue(Files.exists(cache.getCacheFile()));
+
+		ConfigManager second = new ConfigManager(this.folder, "test_", cache);
+		assertTrue(second.isLoadedFromCache());
+		assertEquals(first.getGroupWords("list"), second.getGroupWords("list"));
+		assertEquals(first.getGroupConfigData("list").message(), second.getGroupConfigData("list").message());
+
+		// Any change to a group file invalidates the cache
+		Files.writeString(this.folder.resolve("test__list.yml"), "\n", StandardOpenOption.APPEND);
+		second.reload();
+		assertFalse(second.isLoadedFromCache());
+
+		// The stale cache was replaced
+		ConfigManager third = new ConfigManager(this.folder, "test_", cache);
+		assertTrue(third.isLoadedFromCache());
+		assertNull(third.getCacheError());
+	}
+
+	@Test
+	public void testFailedCacheWriteIsLoggedOnce() throws Exception {
+		// The cache can't be written into a folder that doesn't exist
+		RulesetCache cache = new RulesetCache(this.folder.resolve("missing").resolve("ruleset.cache"));
+		List<String> warnings = new ArrayList<>();
+		Logger logger = Logger.getLogger("chat_monitor_cache_test");
+		logger.setUseParentHandlers(false);
+		logger.addHandler(new Handler() {
+			@Override
+			public void publish(LogRecord record) {
+				if (record.getLevel() == Level.WARNING) {
+					warnings.add(record.getMessage());
+				}
+			}
+
+			@Override
+			public void flush() {
+			}
+
+			@Override
+			public void close() {
+			}
+		});
+
+		WordManager wordManager = new WordManager(this.folder, "test_", logger, cache);
+		assertNotNull(wordManager.configManager.getCacheError());
+		wordManager.wordCollector.reload();
+		assertEquals(1, warnings.size());
+		assertTrue(warnings.get(0).startsWith("Could not write the ruleset cache"));
+	}
+
+	@Test
+	public void testTriesAreCachedUntilWordListFileChanges() throws Exception {
+		Path folder = Files.createTempDirectory("chatmonitor-tries");
+		try {
+			FileUtils.copyDirectory(Paths.get("src", "test", "resources", "wordfiles").toFile(), folder.toFile());
+			RulesetCache cache = new RulesetCache(folder.resolve("ruleset.cache"));
+			Logger logger = Logger.getLogger("chat_monitor");
+
+			WordManager first = new WordManager(folder, "test_", logger, cache);
+			assertTrue(Files.exists(folder.resolve("ruleset-tries.cache")));
+			assertEquals("spamsite", first.processAllWords("visit spamsite").getMatchedRule());
+
+			// Same size and time: the key can't tell, so the cached trie still has the old entry
+			Path list = folder.resolve("lists").resolve("blocklist.txt");
+			FileTime modified = Files.getLastModifiedTime(list);
+			Files.writeString(list, Files.readString(list).replace("spamsite", "spamsitf"));
+			Files.setLastModifiedTime(list, modified);
+
+			WordManager second = new WordManager(folder, "test_", logger, cache);
+			assertEquals(
+				first.wordCollector.getAllRules().getLiterals().getEntryCount(),
+				second.wordCollector.getAllRules().getLiterals().getEntryCount()
+			);
+			assertEquals("spamsite", second.processAllWords("visit spamsite").getMatchedRule());
+			assertEquals("free coins", second.processWordsInCommand("tell", "/tell bob Free Coins").getMatchedRule());
+
+			// A newer word list file builds the tries again
+			Files.setLastModifiedTime(list, FileTime.fromMillis(modified.toMillis() + 60000));
+			second.wordCollector.reload();
+			assertNull(second.processAllWords("visit spamsite"));
+			assertEquals("spamsitf", second.processAllWords("visit spamsitf").getMatchedRule());
+		} finally {
+			FileUtils.deleteDirectory(folder.toFile());
+		}
+	}
+}
@@ -0,0 +1,141 @@
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.github.mooeypoo.chatmonitor.shadow.ShadowRuleset;
+import io.github.mooeypoo.chatmonitor.words.WordManager;
+
+public class ShadowRulesetTest {
+	private Path dataFolder;
+
+	@Before
+	public void setUp() throws IOException {
+		// Work on a copy, since promoting copies files into the data folder
+		dataFolder = Files.createTempDirectory("chatmonitor-shadow");
+		writeRules(dataFolder, "'\\bgrief\\b'");
+		Files.createDirectories(dataFolder.resolve(ShadowRuleset.FOLDER));
+		writeRules(dataFolder.resolve(ShadowRuleset.FOLDER), "'\\bgriefer\\b'", "'\\btroll\\b'");
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		FileUtils.deleteDirectory(dataFolder.toFile());
+	}
+
+	@Test
+	public void testCompareOnSample() throws Exception {
+		Logger logger = Logger.getLogger("chat_monitor");
+		WordManager active = new WordManager(dataFolder, logger);
+		ShadowRuleset shadow = ShadowRuleset.load(dataFolder, logger, 100);
+
+		for (String message : Arrays.asList("no grief please", "a troll", "you griefer", "hello")) {
+			shadow.offer(null, message, active.processAllWords(message), 1000);
+		}
+		assertTrue(shadow.close(10, TimeUnit.SECONDS));
+
+		assertEquals(4, shadow.getSampled());
+		assertEquals(4, shadow.getEvaluated());
+		assertEquals(1, shadow.getActiveMatches());
+		assertEquals(2, shadow.getCandidateMatches());
+		assertEquals(2, shadow.getNewMatches());
+		assertEquals(1, shadow.getLostMatches());
+		assertEquals(0, shadow.getChangedVerdicts());
+		assertTrue(shadow.toLines().stream().anyMatch(line -> line.contains("'a troll': active no match, candidate list")));
+
+		// Offering never changes the active verdict
+		assertNull(active.processAllWords("a troll"));
+	}
+
+	@Test
+	public void testSampleRate() throws Exception {
+		Logger logger = Logger.getLogger("chat_monitor");
+		ShadowRuleset shadow = ShadowRuleset.load(dataFolder, logger, 0);
+		shadow.offer(null, "a troll", null, 1000);
+		assertTrue(shadow.close(10, TimeUnit.SECONDS));
+		assertEquals(0, shadow.getSampled());
+	}
+
+	@Test
+	public void testPromote() throws Exception {
+		Logger logger = Logger.getLogger("chat_monitor");
+		appendLine(dataFolder.resolve("config.yml"), "shadowsamplepercent: 25");
+		appendLine(dataFolder.resolve(ShadowRuleset.FOLDER).resolve("config.yml"), "shadowsamplepercent: 50");
+		WordManager active = new WordManager(dataFolder, logger);
+		ShadowRuleset shadow = ShadowRuleset.load(dataFolder, logger, 100);
+
+		shadow.promote(active);
+		assertEquals("list", active.processAllWords("a troll").getGroup());
+		assertNull(active.processAllWords("no grief please"));
+
+		// Only the list of groups is taken from the candidate's main config
+		assertEquals(25, (int) active.configManager.getMainConfig().getConfigData().shadowSamplePercent());
+		assertEquals(Set.of("list"), active.configManager.getMainConfig().getConfigData().groups());
+
+		// The candidate files were copied, so a reload keeps the promoted rules
+		active.wordCollector.reload();
+		assertEquals("list", active.processAllWords("a troll").getGroup());
+		assertNull(active.processAllWords("no grief please"));
+	}
+
+	@Test
+	public void testFailedPromoteLeavesDataFolder() throws Exception {
+		Logger logger = Logger.getLogger("chat_monitor");
+		Path shadowFolder = dataFolder.resolve(ShadowRuleset.FOLDER);
+		Path groupFile = shadowFolder.resolve("ChatMonitor_wordgroup_list.yml");
+		appendLine(groupFile, "wordfiles:\n  - 'lists/words.txt'");
+		Files.createDirectories(shadowFolder.resolve("lists"));
+		Files.write(shadowFolder.resolve("lists").resolve("words.txt"), Arrays.asList("vandal"), StandardCharsets.UTF_8);
+
+		WordManager active = new WordManager(dataFolder, logger);
+		ShadowRuleset shadow = ShadowRuleset.load(dataFolder, logger, 100);
+		assertEquals("list", shadow.getCandidate().processAllWords("a vandal").getGroup());
+
+		List<String> activeGroup = Files.readAllLines(dataFolder.resolve("ChatMonitor_wordgroup_list.yml"));
+		List<String> activeConfig = Files.readAllLines(dataFolder.resolve("config.yml"));
+		// The word list goes missing after the group file was already copied
+		Files.delete(shadowFolder.resolve("lists").resolve("words.txt"));
+		try {
+			shadow.promote(active);
+			fail("Promoting without the word list should fail");
+		} catch (IOException e) {
+			// Expected
+		}
+
+		assertEquals(activeGroup, Files.readAllLines(dataFolder.resolve("ChatMonitor_wordgroup_list.yml")));
+		assertEquals(activeConfig, Files.readAllLines(dataFolder.resolve("config.yml")));
+		assertFalse(Files.exists(dataFolder.resolve("lists")));
+		try (Stream<Path> files = Files.list(dataFolder)) {
+			assertTrue(files.noneMatch(file -> file.getFileName().toString().startsWith(".promote")));
+		}
+		assertEquals("list", active.processAllWords("no grief please").getGroup());
+		assertNull(active.processAllWords("a troll"));
+	}
+
+	private static void appendLine(Path file, String line) throws IOException {
+		Files.write(file, (line + "\n").getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+	}
+
+	private static void writeRules(Path folder, String... words) throws IOException {
+		Files.write(folder.resolve("config.yml"), Arrays.asList("groups:", "  - 'list'"), StandardCharsets.UTF_8);
+		StringBuilder group = new StringBuilder("message: 'Not allowed.'\npreventsend: true\nwords:\n");
+		for (String word : words) {
+			group.append("  - ").append(word).append('\n');
+		}
+		Files.write(folder.resolve("ChatMonitor_wordgroup_list.yml"), group.toString().getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,58 @@
+import static org.junit.Assert.*;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+import static java.util.Arrays.asList;
+
+import org.junit.Test;
+
+import io.github.mooeypoo.chatmonitor.words.TextSource;
+import io.github.mooeypoo.chatmonitor.words.WordManager;
+
+public class TextSourceTest {
+	@Test
+	public void testGroupsOptInToSources() throws Exception {
+		WordManager wordManager = new WordManager(
+			Paths.get("src","test","resources", "sources"), "test_", Logger.getLogger("chat_monitor")
+		);
+
+		assertTrue(wordManager.isSourceIncluded(TextSource.SIGN));
+		assertFalse(wordManager.isSourceIncluded(TextSource.ANVIL));
+
+		assertEquals("signs", wordManager.processWordsInSource(null, TextSource.SIGN, "no grief here").getGroup());
+		assertNull(wordManager.processWordsInSource(null, TextSource.ANVIL, "no grief here"));
+		// Groups without the source don't apply
+		assertNull(wordManager.processWordsInSource(null, TextSource.SIGN, "a w0rd"));
+		assertNull(wordManager.processWordsInSource(null, TextSource.SIGN, "hello"));
+	}
+
+	@Test
+	public void testBookPages() throws Exception {
+		WordManager wordManager = new WordManager(
+			Paths.get("src","test","resources", "sources"), "test_", Logger.getLogger("chat_monitor")
+		);
+
+		// A blocking match wins over an earlier match that doesn't block
+		assertEquals("signs", wordManager.processBookInWorld(null, asList("hello there", "a page", "grief")).getGroup());
+		assertEquals("notes", wordManager.processBookInWorld(null, asList("a page", "hello there")).getGroup());
+		assertNull(wordManager.processBookInWorld(null, asList("a page", "another page")));
+
+		// Large books are checked in parallel, with the same result
+		List<String> pages = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			pages.add("page " + i);
+		}
+		assertNull(wordManager.processBookInWorld(null, pages));
+
+		pages.set(5, "hello there");
+		assertEquals("notes", wordManager.processBookInWorld(null, pages).getGroup());
+
+		pages.set(60, "grief");
+		pages.set(90, "more grief");
+		assertEquals("grief", wordManager.processBookInWorld(null, pages).getOriginalWord());
+		assertEquals("signs", wordManager.processBookInWorld(null, pages).getGroup());
+	}
+}
@@ -0,0 +1,122 @@
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.github.mooeypoo.chatmonitor.bench.BenchmarkReport;
+import io.github.mooeypoo.chatmonitor.bench.CorpusBenchmark;
+import io.github.mooeypoo.chatmonitor.capture.CapturedMessage;
+import io.github.mooeypoo.chatmonitor.capture.TrafficCapture;
+import io.github.mooeypoo.chatmonitor.words.WordManager;
+
+public class TrafficCaptureTest {
+	private Path folder;
+
+	@Before
+	public void setUp() throws IOException {
+		folder = Files.createTempDirectory("chatmonitor-capture");
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		FileUtils.deleteDirectory(folder.toFile());
+	}
+
+	@Test
+	public void testCaptureReplaysInBenchmark() throws Exception {
+		TrafficCapture capture = new TrafficCapture(
+			folder, 100, TrafficCapture.PlayerNames.HASH, 1024 * 1024, 10, Logger.getLogger("chat_monitor")
+		);
+		UUID player = UUID.randomUUID();
+		capture.offer(CapturedMessage.CHAT, player, "Steve", "world", "a w0rd here");
+		capture.offer(CapturedMessage.CHAT, player, "Steve", "world", "tab\there, backslash \\ and\nbreak");
+		capture.offer(CapturedMessage.COMMAND, player, "Steve", "world", "/msg bob free coins");
+		assertTrue(capture.close(10, TimeUnit.SECONDS));
+		assertEquals(3, capture.getCaptured());
+
+		List<Path> files = captureFiles();
+		assertEquals(1, files.size());
+		List<String> lines = readLines(files.get(0));
+		assertEquals(CapturedMessage.HEADER, lines.get(0));
+		assertEquals(4, lines.size());
+
+		CapturedMessage escaped = CapturedMessage.parse(lines.get(2));
+		assertEquals("tab\there, backslash \\ and\nbreak", escaped.getMessage());
+		// Player names are hashed, the same way for the same player
+		assertEquals(12, escaped.getPlayer().length());
+		assertFalse(lines.get(1).contains("Steve"));
+		assertEquals(CapturedMessage.parse(lines.get(1)).getPlayer(), escaped.getPlayer());
+
+		CapturedMessage command = CapturedMessage.parse(lines.get(3));
+		assertTrue(command.isCommand());
+		assertEquals("msg", command.getCommandName());
+
+		// Chat is replayed against the chat rules, commands against the rules of the command
+		WordManager wordManager = new WordManager(
+			Paths.get("src","test","resources", "literals"), "test_", Logger.getLogger("chat_monitor")
+		);
+		BenchmarkReport report = new CorpusBenchmark(wordManager).run(files.get(0));
+		assertEquals(3, report.getLines());
+		assertEquals(0, report.getErrors());
+		assertEquals(1, report.getGroupMatches("list"));
+		assertEquals(1, report.getGroupMatches("blocklist"));
+	}
+
+	@Test
+	public void testFilesRotateAndOldOnesAreDeleted() throws Exception {
+		TrafficCapture capture = new TrafficCapture(
+			folder, 100, TrafficCapture.PlayerNames.NONE, 1, 3, Logger.getLogger("chat_monitor")
+		);
+		for (int i = 0; i < 20; i++) {
+			capture.offer(CapturedMessage.CHAT, UUID.randomUUID(), "Steve", null, "message " + i);
+		}
+		assertTrue(capture.close(10, TimeUnit.SECONDS));
+
+		// Every message fills a file of one byte
+		assertEquals(20, capture.getFileCount());
+		List<Path> files = captureFiles();
+		assertEquals(3, files.size());
+		List<String> last = readLines(files.get(2));
+		assertEquals("chat\t\t\tmessage 19", last.get(1));
+	}
+
+	private List<Path> captureFiles() throws IOException {
+		List<Path> files = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder, TrafficCapture.PREFIX + "*" + TrafficCapture.SUFFIX)) {
+			stream.forEach(files::add);
+		}
+		Collections.sort(files);
+		return files;
+	}
+
+	private static List<String> readLines(Path file) throws IOException {
+		List<String> lines = new ArrayList<>();
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+			new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8
+		))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				lines.add(line);
+			}
+		}
+		return lines;
+	}
+}
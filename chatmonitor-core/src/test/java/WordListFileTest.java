@@ -0,0 +1,65 @@
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.Logger;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.github.mooeypoo.chatmonitor.words.WordAction;
+import io.github.mooeypoo.chatmonitor.words.WordManager;
+
+public class WordListFileTest {
+	private Path folder;
+
+	@Before
+	public void setUp() throws IOException {
+		// Work on a copy, since the test changes the word list
+		this.folder = Files.createTempDirectory("chatmonitor-wordfiles");
+		FileUtils.copyDirectory(Paths.get("src", "test", "resources", "wordfiles").toFile(), this.folder.toFile());
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		FileUtils.deleteDirectory(this.folder.toFile());
+	}
+
+	@Test
+	public void testWordListEntries() throws Exception {
+		WordManager wordManager = new WordManager(this.folder, "test_", Logger.getLogger("chat_monitor"));
+		WordAction action = null;
+
+		action = wordManager.processAllWords("get free COINS here");
+		assertEquals("free COINS", action.getOriginalWord());
+		assertEquals("free coins", action.getMatchedRule());
+		assertEquals("list", action.getGroup());
+
+		assertNotNull(wordManager.processWordsInCommand("tell", "winner winner chicken dinner"));
+
+		// Comments and blank lines are not entries
+		assertNull(wordManager.processAllWords("this is not an entry # at all"));
+	}
+
+	@Test
+	public void testChangedFileIsReadOnReload() throws Exception {
+		WordManager wordManager = new WordManager(this.folder, "test_", Logger.getLogger("chat_monitor"));
+		assertNull(wordManager.processAllWords("new entry"));
+
+		Files.writeString(this.folder.resolve("lists").resolve("blocklist.txt"), "new entry\n", StandardOpenOption.APPEND);
+		wordManager.wordCollector.reload();
+		assertNotNull(wordManager.processAllWords("new entry"));
+		assertNotNull(wordManager.processAllWords("spamsite"));
+
+		// A missing file is reported and skipped; the rest of the group still works
+		Files.delete(this.folder.resolve("lists").resolve("blocklist.txt"));
+		wordManager.wordCollector.reload();
+		assertNull(wordManager.processAllWords("spamsite"));
+		assertNotNull(wordManager.processAllWords("a w0rd"));
+	}
+}
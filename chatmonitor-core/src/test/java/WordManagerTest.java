@@ -1,7 +1,10 @@
 import static org.junit.Assert.*;
 
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 
 import static java.util.Arrays.asList;
@@ -32,6 +35,76 @@ public class WordManagerTest {
 		assertNull(action);
 	}
 
+	@Test
+	public void testReloadWhileChecking() throws Exception {
+		WordManager wordManager = new WordManager(
+			Paths.get("src","test","resources", "validrules"), "test_", Logger.getLogger("chat_monitor")
+		);
+		AtomicBoolean reloading = new AtomicBoolean(true);
+		AtomicInteger lost = new AtomicInteger();
+
+		List<Thread> threads = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			Thread thread = new Thread(() -> {
+				while (reloading.get()) {
+					try {
+						WordAction action = wordManager.processAllWords("this is a w0rd in a sentence");
+						if (action == null || !"list".equals(action.getGroup())) {
+							lost.incrementAndGet();
+						}
+					} catch (Exception e) {
+						lost.incrementAndGet();
+					}
+				}
+			});
+			thread.start();
+			threads.add(thread);
+		}
+
+		// Messages checked during a reload still get a verdict from the previous rules
+		for (int i = 0; i < 50; i++) {
+			wordManager.wordCollector.reload();
+		}
+		reloading.set(false);
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		assertEquals(0, lost.get());
+	}
+
+	@Test
+	public void testWholeWordRules() throws Exception {
+		WordManager wordManager = new WordManager(
+			Paths.get("src","test","resources", "validrules"), "test_", Logger.getLogger("chat_monitor")
+		);
+		WordAction action = null;
+
+		// Whole-word rules respect the same boundaries as the regular expression
+		action = wordManager.processAllWords("Is that a W0RD, or not?");
+		assertEquals(action.getOriginalWord(), "W0RD");
+		assertEquals(action.getMatchedRule(), "\\bw0rd\\b");
+
+		action = wordManager.processAllWords("the w0rd_s and sw0rd and w0rdy are not whole words");
+		assertNull(action);
+	}
+
+	@Test
+	public void testCaseInsensitiveMatchKeepsOriginalText() throws Exception {
+		WordManager wordManager = new WordManager(
+			Paths.get("src","test","resources", "validrules"), "test_", Logger.getLogger("chat_monitor")
+		);
+		WordAction action = null;
+
+		action = wordManager.processAllWords("there is some BadW0rd in here.");
+		assertEquals(action.getOriginalWord(), "BadW0rd");
+		assertEquals(action.getMatchedRule(), "badw[0o]rd");
+
+		// Non-ASCII messages fold case without depending on the server locale
+		action = wordManager.processAllWords("\u00c7a va? BADWORD d\u00e9j\u00e0");
+		assertEquals(action.getOriginalWord(), "BADWORD");
+	}
+
 	@Test
 	public void testEmptyLists() throws Exception {
 		WordManager wordManager = new WordManager(
@@ -0,0 +1,46 @@
+import static org.junit.Assert.*;
+
+import java.nio.file.Paths;
+import java.util.logging.Logger;
+
+import org.junit.Test;
+
+import io.github.mooeypoo.chatmonitor.words.WordManager;
+
+public class WorldScopeTest {
+	@Test
+	public void testGroupsApplyOnlyInTheirWorlds() throws Exception {
+		WordManager wordManager = new WordManager(
+			Paths.get("src","test","resources", "worlds"), "test_", Logger.getLogger("chat_monitor")
+		);
+
+		assertEquals(1, wordManager.wordCollector.getScopedWorldCount());
+
+		// Listed world: its own groups and the unscoped groups
+		assertEquals("nether", wordManager.processWordsInWorld("world_nether", "hot lava").getGroup());
+		assertEquals("nether", wordManager.processWordsInWorld("world_nether", "a Ghast!").getGroup());
+		assertEquals("list", wordManager.processWordsInWorld("world_nether", "a w0rd").getGroup());
+
+		// Other worlds: only the unscoped groups
+		assertNull(wordManager.processWordsInWorld("world", "hot lava"));
+		assertNull(wordManager.processWordsInWorld("world", "a Ghast!"));
+		assertEquals("list", wordManager.processWordsInWorld("world", "a w0rd").getGroup());
+
+		// A rule shared by groups resolves to a group that applies in the world
+		assertEquals("list", wordManager.processWordsInWorld("world", "no grief please").getGroup());
+
+		// Without a world, all groups apply
+		assertNotNull(wordManager.processAllWords("hot lava"));
+	}
+
+	@Test
+	public void testCommandsInWorlds() throws Exception {
+		WordManager wordManager = new WordManager(
+			Paths.get("src","test","resources", "worlds"), "test_", Logger.getLogger("chat_monitor")
+		);
+
+		assertNotNull(wordManager.processCommandInWorld("world_nether", "tell", "/tell bob lava"));
+		assertNull(wordManager.processCommandInWorld("world", "tell", "/tell bob lava"));
+		assertNotNull(wordManager.processCommandInWorld("world", "tell", "/tell bob w0rd"));
+	}
+}
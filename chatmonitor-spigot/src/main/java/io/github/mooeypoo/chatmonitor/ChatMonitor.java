@@ -0,0 +1,803 @@
+package io.github.mooeypoo.chatmonitor;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.artifact.versioning.ComparableVersion;
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerChatEvent;
+import org.bukkit.event.player.PlayerCommandPreprocessEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.plugin.PluginManager;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import io.github.mooeypoo.chatmonitor.capture.CapturedMessage;
+import io.github.mooeypoo.chatmonitor.capture.TrafficCapture;
+import io.github.mooeypoo.chatmonitor.commands.ChatMonitorCommandExecutor;
+import io.github.mooeypoo.chatmonitor.configs.ConfigurationException;
+import io.github.mooeypoo.chatmonitor.configs.PluginConfigInterface;
+import io.github.mooeypoo.chatmonitor.digest.BroadcastDigest;
+import io.github.mooeypoo.chatmonitor.jfr.DispatchEvent;
+import io.github.mooeypoo.chatmonitor.listeners.TextSourceListener;
+import io.github.mooeypoo.chatmonitor.load.OverloadController;
+import io.github.mooeypoo.chatmonitor.load.VerdictCache;
+import io.github.mooeypoo.chatmonitor.metrics.ChatMetrics;
+import io.github.mooeypoo.chatmonitor.metrics.MetricsExporter;
+import io.github.mooeypoo.chatmonitor.mute.MuteTable;
+import io.github.mooeypoo.chatmonitor.raid.RaidDetector;
+import io.github.mooeypoo.chatmonitor.shadow.ShadowRuleset;
+import io.github.mooeypoo.chatmonitor.utils.MessageHandler;
+import io.github.mooeypoo.chatmonitor.utils.UpdateChecker;
+import io.github.mooeypoo.chatmonitor.words.MessageStream;
+import io.github.mooeypoo.chatmonitor.words.ParallelEvaluation;
+import io.github.mooeypoo.chatmonitor.words.WordAction;
+import io.github.mooeypoo.chatmonitor.words.WordManager;
+
+public class ChatMonitor extends JavaPlugin implements Listener {
+	private static final int VERDICT_CACHE_SIZE = 10000;
+
+	private WordManager wordmanager;
+	private int spigotResourceId = 87395;
+	private OverloadController overload;
+	private final VerdictCache verdictCache = new VerdictCache(VERDICT_CACHE_SIZE);
+	private volatile boolean holdNewPlayers = false;
+	private volatile long newPlayerMillis = 0;
+	private MetricsExporter metricsExporter = null;
+	private int metricsPort = 0;
+	private volatile ShadowRuleset shadow = null;
+	private volatile TrafficCapture capture = null;
+	private MuteTable mutes;
+	private String captureSettings = null;
+	private final Map<UUID, MessageStream> streams = new ConcurrentHashMap<>();
+	private volatile long crossMessageMillis = 0;
+	private volatile RaidDetector raid = null;
+	private String raidSettings = null;
+	private String parallelSettings = null;
+	private volatile BroadcastDigest digest = null;
+	private volatile String digestPermission = "";
+	private BukkitTask digestTask = null;
+	private int digestSeconds = 0;
+
+	@Override
+	public void onEnable() {
+		new UpdateChecker(this, this.spigotResourceId).getVersion(version -> {
+            if (!this.getDescription().getVersion().equalsIgnoreCase(version)) {
+            	ComparableVersion remoteVersion = new ComparableVersion(version);
+            	ComparableVersion localVersion = new ComparableVersion(this.getDescription().getVersion());
+            	String message = null;
+            	
+            	if (localVersion.compareTo(remoteVersion) < 0) {
+            		// Local version is lower than remote
+            		message = String.format("[ChatMonitor] UPDATE ALERT. ChatMonitor v%s is published. Your server is currently using v%s. Please consider updating.",
+	            			version,
+	            			this.getDescription().getVersion()
+	                	);
+            	} else if (localVersion.compareTo(remoteVersion) > 0) {
+            		// Local version is higher than remote; probably using SNAPSHOT or local test
+            		message = String.format("[ChatMonitor] Version alert. You are using an unpublished version (v%s). Published (supported) version is v%s.",
+	            			this.getDescription().getVersion(),
+	            			version
+	                	);
+            	}
+            	
+            	if (message != null) {
+                    this.getLogger().info(message);
+            	}
+            }
+        });
+		
+		// Initialize word list and config
+		this.getLogger().info("Initializing word lists...");
+		try {
+			this.wordmanager = new WordManager(Paths.get(this.getDataFolder().getPath()), this.getLogger());
+		} catch (ConfigurationException e) {
+			this.getLogger().warning("Initiation aborted for ChatMonitor. Error in configuration file '" + e.getConfigFileName() + "': " + e.getMessage());
+			// Todo: we need to handle
+		}
+		this.overload = new OverloadController(this.getLogger(), 0, 0);
+		this.mutes = new MuteTable(this.getDataFolder().toPath().resolve(MuteTable.FILE), this.getLogger());
+		try {
+			this.mutes.load(System.currentTimeMillis());
+		} catch (IOException e) {
+			this.getLogger().warning("Could not read saved mutes: " + e.getMessage());
+		}
+		// A single task expires every mute and every stale message stream
+		this.getServer().getScheduler().runTaskTimerAsynchronously(this, () -> {
+			long now = System.currentTimeMillis();
+			this.mutes.advance(now);
+			long maxGap = this.crossMessageMillis;
+			this.streams.values().removeIf(stream -> stream.isExpired(now, maxGap));
+		}, 20, 20);
+		this.applySettings();
+
+		// Initialize command
+		this.getCommand("chatmonitor").setExecutor(new ChatMonitorCommandExecutor(this));
+
+		// Connect events
+		PluginManager pm = this.getServer().getPluginManager();
+		pm.registerEvents(this, (this));
+		pm.registerEvents(new TextSourceListener(this), this);
+
+		this.getLogger().info("ChatMonitor is enabled.");
+	}
+
+	@Override
+	public void onDisable() {
+		// Send what is left of the last digest
+		this.flushDigest();
+		if (this.metricsExporter != null) {
+			this.metricsExporter.stop();
+		}
+		ShadowRuleset shadow = this.setShadow(null);
+		if (shadow != null) {
+			shadow.stop();
+		}
+		TrafficCapture capture = this.capture;
+		try {
+			if (capture != null) {
+				// Finish the file, so it can be read
+				capture.close(5, TimeUnit.SECONDS);
+			}
+			if (this.mutes != null) {
+				this.mutes.close(5, TimeUnit.SECONDS);
+			}
+			ParallelEvaluation parallel = this.wordmanager == null ? null : this.wordmanager.setParallelEvaluation(null);
+			if (parallel != null) {
+				parallel.close(5, TimeUnit.SECONDS);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		this.getLogger().info("ChatMonitor is disabled.");
+	}
+
+	@EventHandler
+	public void onPlayerChat(AsyncPlayerChatEvent event) {
+		Player p = event.getPlayer();
+		if (p.hasPermission("chatmonitor.ignore")) {
+			// Skip if the user's permission allows ignoring what they say
+			return;
+		}
+
+		// Muted players are turned away before any word is checked
+		if (this.rejectIfMuted(p)) {
+			event.setCancelled(true);
+			return;
+		}
+
+		String msgFromPlayer = event.getMessage();
+		String worldName = getWorldName(p);
+		TrafficCapture capture = this.capture;
+		if (capture != null) {
+			capture.offer(CapturedMessage.CHAT, p.getUniqueId(), p.getName(), worldName, msgFromPlayer);
+		}
+
+		// Copies of a raid message are turned away before any rule is checked
+		WordAction raidCopy = this.checkRaid(msgFromPlayer);
+		if (raidCopy != null) {
+			if (!this.processResponse(raidCopy, p, msgFromPlayer)) {
+				event.setCancelled(true);
+			}
+			return;
+		}
+
+		try {
+			// Only the check itself is timed: running the group's commands
+			// can wait a tick for the main thread, which says nothing about
+			// the cost of the rules
+			WordAction action;
+			boolean full = this.overload.enter();
+			long start = System.nanoTime();
+			long nanos;
+			try {
+				if (full) {
+					action = this.wordmanager.processWordsInWorld(worldName, msgFromPlayer);
+				} else if (this.shouldHoldBack(p)) {
+					this.overload.recordHeldBack();
+					event.setCancelled(true);
+					p.sendMessage("The chat is very busy right now; your message was not sent. Please try again in a moment.");
+					return;
+				} else {
+					action = this.quickCheck(worldName, msgFromPlayer);
+				}
+			} finally {
+				nanos = System.nanoTime() - start;
+				this.overload.exit(full, nanos);
+			}
+
+			ShadowRuleset shadow = this.shadow;
+			if (full && shadow != null) {
+				// Only compare full checks; the verdict is already decided
+				shadow.offer(worldName, msgFromPlayer, action, nanos);
+			}
+			action = this.checkAcrossMessages(p, worldName, msgFromPlayer, action);
+
+			if (action != null && !this.processResponse(action, p, msgFromPlayer)) {
+				event.setCancelled(true);
+			}
+		} catch (Exception e) {
+			this.getLogger().warning("Could not process words. Action skipped: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Check a message with the cheap checks only, answering repeated
+	 * messages from the verdict cache.
+	 *
+	 * @param worldName The world the message was sent in
+	 * @param message   The message
+	 * @return Details of the matched word, or null if none was matched
+	 * @throws Exception If the message could not be processed
+	 */
+	private WordAction quickCheck(String worldName, String message) throws Exception {
+		Object rules = this.wordmanager.wordCollector.getAllRules();
+		WordAction cached = this.verdictCache.get(rules, worldName, message);
+		if (cached != null) {
+			return VerdictCache.isClean(cached) ? null : cached;
+		}
+
+		WordAction action = this.wordmanager.quickProcessWordsInWorld(worldName, message);
+		this.verdictCache.put(rules, worldName, message, action);
+		return action;
+	}
+
+	/**
+	 * Check a message that was clean on its own together with the player's
+	 * earlier messages, if the main config asks for it.
+	 *
+	 * @param player    The player who sent the message
+	 * @param worldName The world the message was sent in
+	 * @param message   The message
+	 * @param action    Details of the word matched in the message on its own, or null
+	 * @return Details of the matched word, or null if none was matched
+	 */
+	private WordAction checkAcrossMessages(Player player, String worldName, String message, WordAction action) {
+		long maxGap = this.crossMessageMillis;
+		if (maxGap == 0) {
+			return action;
+		}
+		if (action != null) {
+			// Words before a match are not joined with words after it
+			MessageStream stream = this.streams.get(player.getUniqueId());
+			if (stream != null) {
+				stream.reset();
+			}
+			return action;
+		}
+
+		MessageStream stream = this.streams.computeIfAbsent(player.getUniqueId(), id -> new MessageStream());
+		return this.wordmanager.processStreamInWorld(worldName, stream, message, System.currentTimeMillis(), maxGap);
+	}
+
+	/**
+	 * Count a chat message towards raid detection.
+	 *
+	 * @param message The message
+	 * @return The action for a raid copy, or null if the message is not one
+	 */
+	private WordAction checkRaid(String message) {
+		RaidDetector raid = this.raid;
+		if (raid == null || !raid.isRaid(message, System.currentTimeMillis())) {
+			return null;
+		}
+		return this.wordmanager.matchGroup(raid.getGroup(), RaidDetector.RULE, message);
+	}
+
+	@EventHandler
+	public void onPlayerQuit(PlayerQuitEvent event) {
+		this.streams.remove(event.getPlayer().getUniqueId());
+	}
+
+	/**
+	 * @param player The player who sent a message while the server is overloaded
+	 * @return Whether the message should be held back, because the player is new
+	 */
+	private boolean shouldHoldBack(Player player) {
+		if (!this.holdNewPlayers || player.hasPermission("chatmonitor.trusted")) {
+			return false;
+		}
+		return !player.hasPlayedBefore() || System.currentTimeMillis() - player.getFirstPlayed() < this.newPlayerMillis;
+	}
+
+	/**
+	 * Apply every setting from the main config, for example after a reload.
+	 */
+	public void applySettings() {
+		this.applyLoadSettings();
+		this.applyMetricsSettings();
+		this.applyCaptureSettings();
+		this.applyCrossMessageSettings();
+		this.applyRaidSettings();
+		this.applyParallelSettings();
+		this.applyDigestSettings();
+	}
+
+	/**
+	 * Apply the load shedding settings from the main config.
+	 */
+	public void applyLoadSettings() {
+		if (this.wordmanager == null) {
+			return;
+		}
+
+		try {
+			PluginConfigInterface config = this.wordmanager.configManager.getMainConfig().getConfigData();
+			this.overload.configure(config.overloadLatency(), config.overloadInFlight());
+			this.holdNewPlayers = config.overloadHoldNewPlayers();
+			this.newPlayerMillis = TimeUnit.MINUTES.toMillis(config.overloadNewPlayerMinutes());
+		} catch (ConfigurationException e) {
+			this.getLogger().warning("Load shedding settings not applied. Error in configuration file '" + e.getConfigFileName() + "': " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Start, move or stop the metrics endpoint as the main config asks.
+	 */
+	public synchronized void applyMetricsSettings() {
+		if (this.wordmanager == null) {
+			return;
+		}
+
+		int port;
+		try {
+			port = Math.max(0, this.wordmanager.configManager.getMainConfig().getConfigData().metricsPort());
+		} catch (ConfigurationException e) {
+			this.getLogger().warning("Metrics settings not applied. Error in configuration file '" + e.getConfigFileName() + "': " + e.getMessage());
+			return;
+		}
+		if (port == this.metricsPort) {
+			return;
+		}
+
+		if (this.metricsExporter == null) {
+			this.metricsExporter = new MetricsExporter(this.wordmanager.getMetrics(), this.overload);
+		}
+		this.metricsExporter.stop();
+		this.metricsPort = port;
+		if (port == 0) {
+			return;
+		}
+
+		try {
+			this.metricsExporter.start(port);
+			this.getLogger().info("Serving metrics on http://127.0.0.1:" + port + MetricsExporter.PATH);
+		} catch (IOException e) {
+			this.getLogger().warning("Could not serve metrics on port " + port + ": " + e.getMessage());
+			this.metricsPort = 0;
+		}
+	}
+
+	/**
+	 * Start, restart or stop the chat capture as the main config asks.
+	 */
+	public synchronized void applyCaptureSettings() {
+		if (this.wordmanager == null) {
+			return;
+		}
+
+		int percent;
+		TrafficCapture.PlayerNames playerNames;
+		int fileKb;
+		int files;
+		try {
+			PluginConfigInterface config = this.wordmanager.configManager.getMainConfig().getConfigData();
+			percent = Math.max(0, Math.min(100, config.capturePercent()));
+			playerNames = TrafficCapture.PlayerNames.fromConfig(config.capturePlayers());
+			fileKb = Math.max(1, config.captureFileKb());
+			files = Math.max(1, config.captureFiles());
+		} catch (ConfigurationException e) {
+			this.getLogger().warning("Capture settings not applied. Error in configuration file '" + e.getConfigFileName() + "': " + e.getMessage());
+			return;
+		}
+		if (playerNames == null) {
+			this.getLogger().warning("Unknown 'captureplayers' value; player names are hashed.");
+			playerNames = TrafficCapture.PlayerNames.HASH;
+		}
+
+		String settings = percent == 0 ? null : percent + "/" + playerNames + "/" + fileKb + "/" + files;
+		if (settings == null ? this.captureSettings == null : settings.equals(this.captureSettings)) {
+			return;
+		}
+
+		TrafficCapture previous = this.capture;
+		this.capture = null;
+		if (previous != null) {
+			previous.stop();
+		}
+		this.captureSettings = settings;
+		if (settings == null) {
+			return;
+		}
+
+		this.capture = new TrafficCapture(
+			this.getDataFolder().toPath().resolve(TrafficCapture.FOLDER), percent, playerNames, fileKb * 1024L, files, this.getLogger()
+		);
+		this.getLogger().info("Capturing " + percent + "% of chat to the '" + TrafficCapture.FOLDER + "' folder.");
+	}
+
+	/**
+	 * Turn matching across chat messages on or off as the main config asks.
+	 */
+	public void applyCrossMessageSettings() {
+		if (this.wordmanager == null) {
+			return;
+		}
+
+		try {
+			int seconds = Math.max(0, this.wordmanager.configManager.getMainConfig().getConfigData().crossMessageSeconds());
+			this.crossMessageMillis = TimeUnit.SECONDS.toMillis(seconds);
+		} catch (ConfigurationException e) {
+			this.getLogger().warning("Cross-message settings not applied. Error in configuration file '" + e.getConfigFileName() + "': " + e.getMessage());
+			return;
+		}
+		if (this.crossMessageMillis == 0) {
+			this.streams.clear();
+		}
+	}
+
+	/**
+	 * Start, restart or stop raid detection as the main config asks. Counts
+	 * are kept across reloads that don't change the settings.
+	 */
+	public synchronized void applyRaidSettings() {
+		if (this.wordmanager == null) {
+			return;
+		}
+
+		int threshold;
+		int seconds;
+		String group;
+		try {
+			PluginConfigInterface config = this.wordmanager.configManager.getMainConfig().getConfigData();
+			threshold = Math.max(0, config.raidThreshold());
+			seconds = Math.max(1, config.raidSeconds());
+			group = config.raidGroup();
+		} catch (ConfigurationException e) {
+			this.getLogger().warning("Raid settings not applied. Error in configuration file '" + e.getConfigFileName() + "': " + e.getMessage());
+			return;
+		}
+		if (threshold > 0 && this.wordmanager.wordCollector.getGroupAction(group) == null) {
+			this.getLogger().warning("Raid detection is off: 'raidgroup' is not a loaded word group ('" + group + "').");
+			threshold = 0;
+		}
+
+		String settings = threshold == 0 ? null : threshold + "/" + seconds + "/" + group;
+		if (settings == null ? this.raidSettings == null : settings.equals(this.raidSettings)) {
+			return;
+		}
+		this.raidSettings = settings;
+		this.raid = settings == null ? null : new RaidDetector(group, threshold, TimeUnit.SECONDS.toMillis(seconds));
+		if (settings != null) {
+			this.getLogger().info("Detecting raids: more than " + threshold + " copies of a message in " + seconds + " seconds get the action of group '" + group + "'.");
+		}
+	}
+
+	/**
+	 * Start, restart or stop checking large rule sets in parallel as the main config asks.
+	 */
+	public synchronized void applyParallelSettings() {
+		if (this.wordmanager == null) {
+			return;
+		}
+
+		int minRules;
+		int minLength;
+		try {
+			PluginConfigInterface config = this.wordmanager.configManager.getMainConfig().getConfigData();
+			minRules = Math.max(0, config.parallelRules());
+			minLength = Math.max(0, config.parallelLength());
+		} catch (ConfigurationException e) {
+			this.getLogger().warning("Parallel evaluation settings not applied. Error in configuration file '" + e.getConfigFileName() + "': " + e.getMessage());
+			return;
+		}
+
+		String settings = minRules == 0 ? null : minRules + "/" + minLength;
+		if (settings == null ? this.parallelSettings == null : settings.equals(this.parallelSettings)) {
+			return;
+		}
+		this.parallelSettings = settings;
+
+		ParallelEvaluation parallel = null;
+		if (settings != null) {
+			// Leave a core for the server itself
+			int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+			parallel = new ParallelEvaluation(minRules, minLength, threads);
+			this.getLogger().info("Checking lists of " + minRules + " or more rules in parallel on " + threads + " threads.");
+		}
+		ParallelEvaluation previous = this.wordmanager.setParallelEvaluation(parallel);
+		if (previous != null) {
+			// Checks still running on the old pool finish on their own
+			previous.stop();
+		}
+	}
+
+	/**
+	 * Start, restart or stop collecting broadcasts into digests as the main config asks.
+	 */
+	public synchronized void applyDigestSettings() {
+		if (this.wordmanager == null) {
+			return;
+		}
+
+		int seconds;
+		String permission;
+		try {
+			PluginConfigInterface config = this.wordmanager.configManager.getMainConfig().getConfigData();
+			seconds = Math.max(0, config.digestSeconds());
+			permission = config.digestPermission().trim();
+		} catch (ConfigurationException e) {
+			this.getLogger().warning("Digest settings not applied. Error in configuration file '" + e.getConfigFileName() + "': " + e.getMessage());
+			return;
+		}
+
+		this.digestPermission = permission;
+		if (seconds == this.digestSeconds) {
+			return;
+		}
+		this.digestSeconds = seconds;
+
+		if (this.digestTask != null) {
+			this.digestTask.cancel();
+			this.digestTask = null;
+		}
+		// Nothing collected so far is lost when the interval changes
+		this.flushDigest();
+		if (seconds == 0) {
+			this.digest = null;
+			return;
+		}
+		this.digest = new BroadcastDigest();
+		long ticks = seconds * 20L;
+		this.digestTask = this.getServer().getScheduler().runTaskTimer(this, this::flushDigest, ticks, ticks);
+		this.getLogger().info("Sending broadcasts as a digest every " + seconds + " seconds.");
+	}
+
+	/**
+	 * Send the broadcasts collected since the last digest.
+	 */
+	private void flushDigest() {
+		BroadcastDigest digest = this.digest;
+		if (digest == null) {
+			return;
+		}
+		String permission = this.digestPermission;
+		for (String line : digest.drain()) {
+			if (permission.isEmpty()) {
+				Bukkit.broadcastMessage(line);
+			} else {
+				Bukkit.broadcast(line, permission);
+			}
+		}
+	}
+
+	@EventHandler
+	public void onPlayerCommandPreprocessEvent(PlayerCommandPreprocessEvent event) {
+		if (event.getPlayer().hasPermission("chatmonitor.ignore")) {
+			return;
+		}
+		// split up to get the elements of the command
+		String[] cmdElements = event.getMessage().split(" ");
+		String cmdName = cmdElements[0].substring(1);
+
+		// See if we should even look at this for the command
+		if (!this.wordmanager.wordCollector.getRelevantCommands(this.wordmanager).contains(cmdName)) {
+			return;
+		}
+
+		if (this.rejectIfMuted(event.getPlayer())) {
+			event.setCancelled(true);
+			return;
+		}
+
+		// Only commands that are checked are captured; others may carry passwords
+		TrafficCapture capture = this.capture;
+		if (capture != null) {
+			Player player = event.getPlayer();
+			capture.offer(CapturedMessage.COMMAND, player.getUniqueId(), player.getName(), getWorldName(player), event.getMessage());
+		}
+
+		try {
+			WordAction action = this.wordmanager.processCommandInWorld(getWorldName(event.getPlayer()), cmdName, event.getMessage());
+
+			if (action != null && !this.processResponse(action, event.getPlayer(), event.getMessage())) {
+				event.setCancelled(true);
+			}
+		} catch (Exception e) {
+			this.getLogger().warning("Could not process words. Action skipped: " + e.getMessage());
+		}
+
+	}
+
+	/**
+	 * Tell a muted player they are muted.
+	 *
+	 * @param player The player who sent a message
+	 * @return Whether the player is muted, and the message should be blocked
+	 */
+	private boolean rejectIfMuted(Player player) {
+		long remaining = this.mutes.getRemainingMillis(player.getUniqueId(), System.currentTimeMillis());
+		if (remaining == 0) {
+			return false;
+		}
+		player.sendMessage("You are muted for " + describeDuration(remaining) + ".");
+		return true;
+	}
+
+	/**
+	 * @param millis A duration
+	 * @return The duration in words, rounded up to seconds or minutes
+	 */
+	private static String describeDuration(long millis) {
+		long seconds = (millis + 999) / 1000;
+		if (seconds < 120) {
+			return seconds + (seconds == 1 ? " second" : " seconds");
+		}
+		return ((seconds + 59) / 60) + " minutes";
+	}
+
+	/**
+	 * @param player The player
+	 * @return The name of the world the player is in, or null if unknown
+	 */
+	private static String getWorldName(Player player) {
+		World world = player.getWorld();
+		return world == null ? null : world.getName();
+	}
+
+	/**
+	 * Process the resulting action given to send the player a message, process the
+	 * log message and activate commands.
+	 *
+	 * @param action The resulting WordAction object representing the details of the
+	 *               word that matched.
+	 * @param player The player triggering the text or command
+	 * @param msg    The message sent by the user
+	 * @return Whether or not the event should continue to process or be aborted
+	 */
+	public boolean processResponse(WordAction action, Player player, String msg) {
+		if (action == null || action.isEmpty()) {
+			return true;
+		}
+
+		boolean shouldAllowEvent = !action.isPreventSend();
+		String response = MessageHandler.replacePlaceholdersFromAction(action.getMessage(), player, action);
+
+		if (!response.isBlank()) {
+			String colorResponse = ChatColor.translateAlternateColorCodes('&', response);
+
+			BroadcastDigest digest = this.digest;
+			if (action.isBroadcast() && digest != null && !action.getGroupAction().isBroadcastImmediately()) {
+				// Broadcast with the next digest; the player still sees the response
+				digest.add(action.getGroup(), action.isPreventSend(), player.getUniqueId(), colorResponse);
+				player.sendMessage(colorResponse);
+			} else if (action.isBroadcast()) {
+				// Broadcast the response to everyone
+				Bukkit.broadcastMessage(colorResponse);
+			} else {
+				// Send the response only to the relevant user
+				player.sendMessage(colorResponse);
+			}
+		}
+		this.getLogger().info(MessageHandler.createLogMessage(player, action, msg, response));
+
+		if (action.getMuteSeconds() > 0) {
+			long millis = TimeUnit.SECONDS.toMillis(action.getMuteSeconds());
+			long now = System.currentTimeMillis();
+			long until = this.mutes.mute(player.getUniqueId(), player.getName(), millis, now);
+			player.sendMessage("You are muted for " + describeDuration(until - now) + ".");
+			this.getLogger().info("Muted " + player.getName() + " for " + action.getMuteSeconds() + " seconds (group " + action.getGroup() + ").");
+		}
+		
+		// Run the commands for this match
+		this.runCommands(player, action);
+		return shouldAllowEvent;
+	}
+
+	/**
+	 * Based on the word that matched, see if the group requires followup actions
+	 * and trigger them on a deferred thread.
+	 *
+	 * @param player The player that evoked the original word match
+	 * @param action The details of the matched word
+	 */
+	private void runCommands(Player player, WordAction action) {
+		for (String cmd : action.getCommands()) {
+			if (cmd == null || cmd.isBlank()) {
+				continue;
+			}
+
+			// Replace magic words:
+			final String runnableCommand = MessageHandler.replacePlaceholdersFromAction(cmd, player, action);
+
+			// Log and execute:
+			this.getLogger().info("Invoking command: " + runnableCommand);
+			DispatchEvent event = new DispatchEvent();
+			event.begin();
+			boolean mainThread = Bukkit.isPrimaryThread();
+			ChatMetrics metrics = this.wordmanager.getMetrics();
+			try {
+				if (mainThread) {
+					// Sign, book and command events already run on the main thread;
+					// waiting for the scheduler there would never return
+					metrics.dispatched(false);
+					Bukkit.dispatchCommand(Bukkit.getConsoleSender(), runnableCommand);
+				} else {
+					metrics.dispatchQueued();
+					getServer().getScheduler().callSyncMethod(this, () -> {
+						metrics.dispatched(true);
+						Bukkit.dispatchCommand(Bukkit.getConsoleSender(), runnableCommand);
+						return false;
+					}).get();
+				}
+			} catch (ExecutionException e) {
+				this.getLogger().warning("ExecutionException for command \"" + cmd + "\"");
+			} catch (InterruptedException e) {
+				this.getLogger().warning("InterruptedException for command \"" + cmd + "\"");
+				Thread.currentThread().interrupt();
+			} finally {
+				event.end();
+				if (event.shouldCommit()) {
+					event.command = runnableCommand;
+					event.group = action.getGroup();
+					event.mainThread = mainThread;
+					event.commit();
+				}
+			}
+		}
+	}
+	
+	public WordManager getWordManager() {
+		return this.wordmanager;
+	}
+
+	public ShadowRuleset getShadow() {
+		return this.shadow;
+	}
+
+	/**
+	 * Start or stop comparing chat against a candidate ruleset.
+	 *
+	 * @param shadow The candidate ruleset, or null to stop
+	 * @return The candidate ruleset that was replaced, if any
+	 */
+	public synchronized ShadowRuleset setShadow(ShadowRuleset shadow) {
+		ShadowRuleset previous = this.shadow;
+		this.shadow = shadow;
+		return previous;
+	}
+
+	public OverloadController getOverloadController() {
+		return this.overload;
+	}
+
+	public TrafficCapture getCapture() {
+		return this.capture;
+	}
+
+	public MuteTable getMutes() {
+		return this.mutes;
+	}
+
+	public RaidDetector getRaidDetector() {
+		return this.raid;
+	}
+
+	public BroadcastDigest getDigest() {
+		return this.digest;
+	}
+
+	public VerdictCache getVerdictCache() {
+		return this.verdictCache;
+	}
+}
@@ -0,0 +1,389 @@
+package io.github.mooeypoo.chatmonitor.commands;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.UUID;
+
+import org.apache.commons.lang.ArrayUtils;
+import org.apache.commons.lang.StringUtils;
+
+import org.bukkit.ChatColor;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandExecutor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+import io.github.mooeypoo.chatmonitor.ChatMonitor;
+import io.github.mooeypoo.chatmonitor.bench.BenchmarkReport;
+import io.github.mooeypoo.chatmonitor.bench.CorpusBenchmark;
+import io.github.mooeypoo.chatmonitor.capture.TrafficCapture;
+import io.github.mooeypoo.chatmonitor.configs.ConfigurationException;
+import io.github.mooeypoo.chatmonitor.digest.BroadcastDigest;
+import io.github.mooeypoo.chatmonitor.load.OverloadController;
+import io.github.mooeypoo.chatmonitor.raid.RaidDetector;
+import io.github.mooeypoo.chatmonitor.shadow.ShadowRuleset;
+import io.github.mooeypoo.chatmonitor.words.LiteralTrie;
+import io.github.mooeypoo.chatmonitor.words.NgramPrefilter;
+import io.github.mooeypoo.chatmonitor.words.ParallelEvaluation;
+import io.github.mooeypoo.chatmonitor.words.RuleSet;
+import io.github.mooeypoo.chatmonitor.words.WordAction;
+
+
+public class ChatMonitorCommandExecutor  implements CommandExecutor {
+	private static final String PREFIX = "[ChatMonitor] ";
+	private static final int BENCH_TOP_RULES = 10;
+
+	private final ChatMonitor plugin;
+	private final Map<String, String> paramMap = Map.of(
+			"reload", "Reload all configuration files and word lists.",
+			"test", "Tests a given string. Responds with whether it is caught by any of the lists.",
+			"bench", "Replays a chat corpus file from the data folder and reports the cost of the current rules.",
+			"stats", "Shows statistics about the loaded rules.",
+			"shadow", "Compares a candidate ruleset from the 'shadow' folder on live chat: shadow [load|stats|promote|stop].",
+			"unmute", "Lifts the mute of a player: unmute [player].");
+
+	public ChatMonitorCommandExecutor(ChatMonitor plugin) {
+		this.plugin = plugin;
+	}
+
+	@Override
+	public boolean onCommand(CommandSender sender, Command cmd, String label, String[] args) {
+		if (!cmd.getName().equalsIgnoreCase("chatmonitor")) {
+			return false;
+		}
+
+		if (args.length == 0 || args[0].equalsIgnoreCase("help") ) {
+			this.outputHelp(sender);
+			return true;
+		} else if (args[0].equalsIgnoreCase("reload")) {
+			if (!sender.hasPermission("chatmonitor.cmd.reload")) {
+				this.outputToPlayerAndConsole("You do not have permission to invoke the process action.", sender);
+				return false;
+			}
+
+			this.outputToPlayerAndConsole("Reloading configuration files", sender);
+			this.plugin.getWordManager().wordCollector.reload();
+			this.plugin.applySettings();
+			this.outputToPlayerAndConsole("Reload complete.", sender);
+			return true;
+		} else if (args[0].equalsIgnoreCase("test")) {
+			if (!sender.hasPermission("chatmonitor.cmd.test")) {
+				this.outputToPlayerAndConsole("You do not have permission to invoke the process action.", sender);
+				return false;
+			}
+			
+			if (args.length == 1) {
+				this.outputToPlayerAndConsole("Please provide the test text: /chatmonitor test [text to test]", sender);
+				return false;
+			}
+			boolean toPlayer = (sender instanceof Player);
+		
+			// Get the test text:
+			String testString = StringUtils.join(ArrayUtils.subarray(args, 1, args.length), " ");
+			this.outputToPlayerOrConsole("TESTING: '" + testString + "'", sender);
+			// Send to wordmanager
+			WordAction action = null;
+			try {
+				action = this.plugin.getWordManager().processAllWords(testString);
+			} catch (Exception e) {
+				this.outputToPlayerOrConsole("Error testing given text. Please see your console for more information.", sender);
+				this.plugin.getLogger().info(e.getMessage());
+				return false;
+			}
+
+			if (action == null) {
+				// The tested string would not be caught
+				this.outputToPlayerOrConsole(
+					"RESULT: " + (toPlayer ? ChatColor.GREEN : "" ) + "PASS",
+					sender
+				);
+				return true;
+			}
+			
+			ChatColor isMutedColor = action.isPreventSend() ? ChatColor.RED : ChatColor.GREEN;
+			String isMutedString = action.isPreventSend() ? "MUTED" : "NOT MUTED";
+			// Something in that string was caught
+			this.outputToPlayerOrConsole(
+				String.format("%s %s",
+						String.format(
+							"-> %sCAUGHT: %s%s (GROUP: %s%s%s) ",
+							(toPlayer ? ChatColor.RED : ""),
+							action.getOriginalWord(),
+							(toPlayer ? ChatColor.WHITE : ""),
+							(toPlayer ? ChatColor.BLUE : ""),
+							String.join(", ", action.getGroups()),
+							(toPlayer ? ChatColor.WHITE : "")
+						),
+						String.format(
+							"%s%s",
+							toPlayer ? isMutedColor : "",
+							isMutedString
+						)
+				),
+				sender
+			);
+			this.outputToPlayerOrConsole("-> MATCHED RULE: " + (toPlayer ? ChatColor.RED : "") + action.getMatchedRule(), sender);
+			return true;
+		} else if (args[0].equalsIgnoreCase("bench")) {
+			if (!sender.hasPermission("chatmonitor.cmd.bench")) {
+				this.outputToPlayerAndConsole("You do not have permission to invoke the process action.", sender);
+				return false;
+			}
+
+			if (args.length == 1) {
+				this.outputToPlayerAndConsole("Please provide the corpus file: /chatmonitor bench [file in the data folder]", sender);
+				return false;
+			}
+
+			Path dataFolder = this.plugin.getDataFolder().toPath().normalize();
+			Path corpus = dataFolder.resolve(args[1]).normalize();
+			if (!corpus.startsWith(dataFolder)) {
+				this.outputToPlayerAndConsole("The corpus file must be inside the data folder.", sender);
+				return false;
+			}
+			if (!Files.isRegularFile(corpus)) {
+				this.outputToPlayerAndConsole("Corpus file '" + args[1] + "' was not found in the data folder.", sender);
+				return false;
+			}
+
+			this.outputToPlayerAndConsole("Replaying corpus '" + args[1] + "'. This may take a while.", sender);
+			// Replay off the main thread; the corpus may be very large
+			this.plugin.getServer().getScheduler().runTaskAsynchronously(this.plugin, () -> {
+				try {
+					BenchmarkReport report = new CorpusBenchmark(this.plugin.getWordManager()).run(corpus);
+					for (String line : report.toLines(BENCH_TOP_RULES)) {
+						this.outputToPlayerAndConsole(line, sender);
+					}
+				} catch (IOException e) {
+					this.outputToPlayerAndConsole("Could not read corpus file: " + e.getMessage(), sender);
+				}
+			});
+			return true;
+		} else if (args[0].equalsIgnoreCase("stats")) {
+			if (!sender.hasPermission("chatmonitor.cmd.stats")) {
+				this.outputToPlayerAndConsole("You do not have permission to invoke the process action.", sender);
+				return false;
+			}
+
+			this.outputStats(sender);
+			return true;
+		} else if (args[0].equalsIgnoreCase("shadow")) {
+			if (!sender.hasPermission("chatmonitor.cmd.shadow")) {
+				this.outputToPlayerAndConsole("You do not have permission to invoke the process action.", sender);
+				return false;
+			}
+
+			return this.handleShadow(sender, args.length > 1 ? args[1] : "stats");
+		} else if (args[0].equalsIgnoreCase("unmute")) {
+			if (!sender.hasPermission("chatmonitor.cmd.unmute")) {
+				this.outputToPlayerAndConsole("You do not have permission to invoke the process action.", sender);
+				return false;
+			}
+
+			if (args.length == 1) {
+				this.outputToPlayerAndConsole("Please provide the player: /chatmonitor unmute [player]", sender);
+				return false;
+			}
+
+			// An offline player is found in the mute table, never through a profile lookup
+			Player online = this.plugin.getServer().getPlayerExact(args[1]);
+			UUID playerId = online != null ? online.getUniqueId() : this.plugin.getMutes().findMuted(args[1]);
+			if (playerId == null || !this.plugin.getMutes().unmute(playerId)) {
+				this.outputToPlayerAndConsole("Player '" + args[1] + "' is not muted.", sender);
+				return false;
+			}
+			this.outputToPlayerAndConsole("Player '" + args[1] + "' is no longer muted.", sender);
+			return true;
+		}
+
+		return false;
+	}
+
+	private boolean handleShadow(CommandSender sender, String action) {
+		ShadowRuleset shadow = this.plugin.getShadow();
+
+		if (action.equalsIgnoreCase("load")) {
+			int samplePercent;
+			try {
+				samplePercent = this.plugin.getWordManager().configManager.getMainConfig().getConfigData().shadowSamplePercent();
+			} catch (ConfigurationException e) {
+				this.outputToPlayerAndConsole("Candidate not loaded. Error in configuration file '" + e.getConfigFileName() + "': " + e.getMessage(), sender);
+				return false;
+			}
+
+			this.outputToPlayerAndConsole("Loading the candidate ruleset from the '" + ShadowRuleset.FOLDER + "' folder.", sender);
+			// Parse off the main thread; the candidate may be very large
+			this.plugin.getServer().getScheduler().runTaskAsynchronously(this.plugin, () -> {
+				try {
+					ShadowRuleset loaded = ShadowRuleset.load(this.plugin.getDataFolder().toPath(), this.plugin.getLogger(), samplePercent);
+					ShadowRuleset previous = this.plugin.setShadow(loaded);
+					if (previous != null) {
+						previous.stop();
+					}
+					this.outputToPlayerAndConsole(String.format(
+						"Candidate ruleset loaded with %d rules; comparing %d%% of chat messages.",
+						loaded.getCandidate().wordCollector.getAllRules().size(), loaded.getSamplePercent()
+					), sender);
+				} catch (ConfigurationException e) {
+					this.outputToPlayerAndConsole("Candidate not loaded. Error in configuration file '" + e.getConfigFileName() + "': " + e.getMessage(), sender);
+				}
+			});
+			return true;
+		}
+
+		if (shadow == null) {
+			this.outputToPlayerAndConsole("No candidate ruleset is loaded. Use /chatmonitor shadow load", sender);
+			return false;
+		}
+
+		if (action.equalsIgnoreCase("stats")) {
+			for (String line : shadow.toLines()) {
+				this.outputToPlayerOrConsole(line, sender);
+			}
+			return true;
+		} else if (action.equalsIgnoreCase("promote")) {
+			try {
+				shadow.promote(this.plugin.getWordManager());
+			} catch (IOException e) {
+				this.outputToPlayerAndConsole("Candidate not promoted; the active rules are unchanged. Could not copy its files: " + e.getMessage(), sender);
+				return false;
+			} catch (ConfigurationException e) {
+				this.outputToPlayerAndConsole("Candidate not promoted; the active rules are unchanged. Error in configuration file '" + e.getConfigFileName() + "': " + e.getMessage(), sender);
+				return false;
+			}
+			// Only a promoted candidate is let go; a failed one can be tried again
+			this.plugin.setShadow(null);
+			this.plugin.applySettings();
+			this.outputToPlayerAndConsole("Candidate ruleset promoted; its files were copied to the data folder.", sender);
+			return true;
+		} else if (action.equalsIgnoreCase("stop")) {
+			this.plugin.setShadow(null);
+			shadow.stop();
+			this.outputToPlayerAndConsole("Stopped comparing the candidate ruleset.", sender);
+			return true;
+		}
+
+		this.outputToPlayerAndConsole("Unknown shadow action. Use: /chatmonitor shadow [load|stats|promote|stop]", sender);
+		return false;
+	}
+
+	private void outputStats(CommandSender sender) {
+		RuleSet rules = this.plugin.getWordManager().wordCollector.getAllRules();
+		this.outputToPlayerOrConsole(String.format(
+			"Rules: %d (%d whole-word, %d regular expressions)",
+			rules.size(), rules.getWholeWordCount(), rules.size() - rules.getWholeWordCount()
+		), sender);
+
+		LiteralTrie literals = rules.getLiterals();
+		this.outputToPlayerOrConsole(String.format(
+			"Literals: %d in %d trie nodes, %d KiB",
+			literals.getEntryCount(), literals.getNodeCount(), literals.getMemoryFootprint() / 1024
+		), sender);
+		this.outputToPlayerOrConsole("Exceptions: " + rules.getExceptions().getEntryCount(), sender);
+
+		NgramPrefilter prefilter = rules.getPrefilter();
+		if (prefilter == null) {
+			this.outputToPlayerOrConsole("Prefilter: disabled (no rule has a required trigram)", sender);
+		} else {
+			this.outputToPlayerOrConsole(String.format(
+				"Prefilter: %d trigrams in %d bytes, %d hash functions, %.3f%% false positive rate",
+				prefilter.getEntryCount(), prefilter.getBitCount() / 8, prefilter.getHashCount(),
+				prefilter.getFalsePositiveRate() * 100
+			), sender);
+		}
+		this.outputToPlayerOrConsole("Rules evaluated regardless of the prefilter: " + rules.getUngatedCount(), sender);
+		this.outputToPlayerOrConsole("Worlds with their own rules: " + this.plugin.getWordManager().wordCollector.getScopedWorldCount(), sender);
+		ParallelEvaluation parallel = this.plugin.getWordManager().getParallelEvaluation();
+		if (parallel != null) {
+			this.outputToPlayerOrConsole(String.format(
+				"Parallel evaluation: lists of %d or more rules, texts of %d or more characters, %d threads",
+				parallel.getMinRules(), parallel.getMinLength(), parallel.getThreads()
+			), sender);
+		}
+
+		BroadcastDigest digest = this.plugin.getDigest();
+		if (digest != null) {
+			this.outputToPlayerOrConsole("Broadcast digest: " + digest.getFolded() + " broadcasts collected into digests", sender);
+		}
+
+		OverloadController overload = this.plugin.getOverloadController();
+		this.outputToPlayerOrConsole(String.format(
+			"Load: %s mode, %d mode changes, %.0f microseconds average evaluation, %d in flight",
+			overload.getMode(), overload.getModeChanges(), overload.getAverageNanos() / 1000, overload.getInFlight()
+		), sender);
+		this.outputToPlayerOrConsole(String.format(
+			"Messages: %d fully checked, %d quick checked, %d held back; %d cached verdicts",
+			overload.getFullEvaluations(), overload.getQuickEvaluations(), overload.getHeldBack(),
+			this.plugin.getVerdictCache().size()
+		), sender);
+
+		this.outputToPlayerOrConsole("Muted players: " + this.plugin.getMutes().size(), sender);
+
+		RaidDetector raid = this.plugin.getRaidDetector();
+		if (raid != null) {
+			this.outputToPlayerOrConsole(String.format(
+				"Raid detection: over %d copies in %d seconds go to group '%s'; %d copies caught, %d KiB of counters",
+				raid.getThreshold(), raid.getWindowMillis() / 1000, raid.getGroup(), raid.getCopies(), raid.getMemoryBytes() / 1024
+			), sender);
+		}
+
+		TrafficCapture capture = this.plugin.getCapture();
+		if (capture != null) {
+			this.outputToPlayerOrConsole(String.format(
+				"Capture: %d%% of chat, %d messages written to %d files, %d dropped, %d errors",
+				capture.getSamplePercent(), capture.getCaptured(), capture.getFileCount(), capture.getDropped(), capture.getErrors()
+			), sender);
+		}
+	}
+
+	private void outputHelp(CommandSender sender) {
+		String output = "";
+		boolean toPlayer = (sender instanceof Player);
+		
+		output = "Available actions for the /chatmonitor command:";
+		
+		if (sender instanceof Player) {
+			// Send to the player, in-game
+			sender.sendMessage(output);
+		} else {
+			this.plugin.getLogger().info(output);
+		}
+
+		this.outputToPlayerOrConsole("Commands list:", sender);
+
+		for (Map.Entry<String, String> param : this.paramMap.entrySet()) {
+			output = String.format(
+				toPlayer ? "* " + ChatColor.GREEN + "%s" + ChatColor.WHITE + ": %s" : "* %s: %s",
+				param.getKey(), param.getValue()
+			);
+			this.outputToPlayerOrConsole(output, sender);
+		}
+		this.outputToPlayerOrConsole("Use the command /chatmonitor [action] to invoke any of the above actions.", sender);
+	}
+	private void output(String out, CommandSender sender, boolean sendToBoth) {
+		String formatColor = ChatColor.BLUE + PREFIX + ChatColor.WHITE + "%s";
+		String formatBlank = PREFIX + "%s";
+		boolean inGame = sender instanceof Player;
+		
+		if (sendToBoth || !inGame) {
+			this.plugin.getLogger().info(String.format(formatBlank, out));
+		}
+		
+		if (inGame) {
+			// Send to the player, in-game
+			// Only do that if this was invoked from in-game
+			sender.sendMessage(String.format(formatColor, out));
+		}
+		
+	}
+
+	private void outputToPlayerOrConsole(String out, CommandSender sender) {
+		this.output(out, sender, false);
+	}
+	
+	private void outputToPlayerAndConsole(String out, CommandSender sender) {
+		this.output(out, sender, true);
+	}
+}
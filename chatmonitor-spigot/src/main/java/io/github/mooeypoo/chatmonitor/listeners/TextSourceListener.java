@@ -0,0 +1,138 @@
+package io.github.mooeypoo.chatmonitor.listeners;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.SignChangeEvent;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.player.PlayerEditBookEvent;
+import org.bukkit.inventory.AnvilInventory;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.BookMeta;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import io.github.mooeypoo.chatmonitor.ChatMonitor;
+import io.github.mooeypoo.chatmonitor.words.TextSource;
+import io.github.mooeypoo.chatmonitor.words.WordAction;
+import io.github.mooeypoo.chatmonitor.words.WordManager;
+
+/**
+ * Checks player text outside of chat: signs, books and anvil renames.
+ * Only groups that list the source in 'includesources' apply.
+ */
+public class TextSourceListener implements Listener {
+	private static final int ANVIL_RESULT_SLOT = 2;
+
+	private final ChatMonitor plugin;
+
+	public TextSourceListener(ChatMonitor plugin) {
+		this.plugin = plugin;
+	}
+
+	@EventHandler(ignoreCancelled = true)
+	public void onSignChange(SignChangeEvent event) {
+		Player player = event.getPlayer();
+		if (!this.shouldCheck(player, TextSource.SIGN)) {
+			return;
+		}
+
+		StringBuilder text = new StringBuilder();
+		for (String line : event.getLines()) {
+			if (line != null && !line.isBlank()) {
+				text.append(text.length() == 0 ? "" : " ").append(line);
+			}
+		}
+		if (text.length() == 0) {
+			return;
+		}
+
+		try {
+			WordAction action = this.getWordManager().processWordsInSource(getWorldName(player), TextSource.SIGN, text.toString());
+			if (action != null && !this.plugin.processResponse(action, player, text.toString())) {
+				event.setCancelled(true);
+			}
+		} catch (Exception e) {
+			this.plugin.getLogger().info("Could not process sign text. Action skipped: " + e.getMessage());
+		}
+	}
+
+	@EventHandler(ignoreCancelled = true)
+	public void onEditBook(PlayerEditBookEvent event) {
+		Player player = event.getPlayer();
+		if (!this.shouldCheck(player, TextSource.BOOK)) {
+			return;
+		}
+
+		BookMeta book = event.getNewBookMeta();
+		List<String> pages = new ArrayList<>(book.getPages());
+		if (event.isSigning() && book.hasTitle()) {
+			pages.add(0, book.getTitle());
+		}
+		if (pages.isEmpty()) {
+			return;
+		}
+
+		try {
+			WordAction action = this.getWordManager().processBookInWorld(getWorldName(player), pages);
+			if (action != null && !this.plugin.processResponse(action, player, "[book] " + action.getOriginalWord())) {
+				event.setCancelled(true);
+			}
+		} catch (Exception e) {
+			this.plugin.getLogger().info("Could not process book pages. Action skipped: " + e.getMessage());
+		}
+	}
+
+	@EventHandler(ignoreCancelled = true)
+	public void onAnvilResultClick(InventoryClickEvent event) {
+		if (!(event.getInventory() instanceof AnvilInventory)
+				|| event.getRawSlot() != ANVIL_RESULT_SLOT
+				|| !(event.getWhoClicked() instanceof Player)) {
+			return;
+		}
+
+		Player player = (Player) event.getWhoClicked();
+		if (!this.shouldCheck(player, TextSource.ANVIL)) {
+			return;
+		}
+
+		ItemStack result = event.getCurrentItem();
+		if (result == null || !result.hasItemMeta()) {
+			return;
+		}
+		ItemMeta meta = result.getItemMeta();
+		if (!meta.hasDisplayName()) {
+			return;
+		}
+
+		String name = meta.getDisplayName();
+		try {
+			WordAction action = this.getWordManager().processWordsInSource(getWorldName(player), TextSource.ANVIL, name);
+			if (action != null && !this.plugin.processResponse(action, player, name)) {
+				// The renamed item can't be taken out
+				event.setCancelled(true);
+			}
+		} catch (Exception e) {
+			this.plugin.getLogger().info("Could not process item name. Action skipped: " + e.getMessage());
+		}
+	}
+
+	private boolean shouldCheck(Player player, TextSource source) {
+		WordManager wordManager = this.getWordManager();
+		return wordManager != null
+			&& !player.hasPermission("chatmonitor.ignore")
+			&& wordManager.isSourceIncluded(source);
+	}
+
+	private WordManager getWordManager() {
+		return this.plugin.getWordManager();
+	}
+
+	private static String getWorldName(Player player) {
+		World world = player.getWorld();
+		return world == null ? null : world.getName();
+	}
+}
@@ -49,7 +49,7 @@ public class MessageHandler {
 	
 	public static String createLogMessage(Player player, WordAction action, String originalMessage, String responseMessage) {
 		List<String> logMessage = new ArrayList<>();
-		logMessage.add("*MATCH TRIGGERED: " + action.getOriginalWord() + "[group: " + action.getGroup() + "]*");
+		logMessage.add("*MATCH TRIGGERED: " + action.getOriginalWord() + "[group: " + String.join(", ", action.getGroups()) + "]*");
 		logMessage.add("\n-> Match rule: " + action.getMatchedRule());
 		if (action.isPreventSend()) {
 			logMessage.add(
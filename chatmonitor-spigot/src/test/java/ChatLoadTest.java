@@ -0,0 +1,276 @@
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import org.bukkit.entity.Player;
+import org.bukkit.event.player.AsyncPlayerChatEvent;
+import org.bukkit.event.player.PlayerCommandPreprocessEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import be.seeseemelk.mockbukkit.ServerMock;
+import io.github.mooeypoo.chatmonitor.ChatMonitor;
+import io.github.mooeypoo.chatmonitor.load.OverloadController;
+
+/**
+ * Load test: many players chat and run commands at the same time, from many
+ * threads, while the configuration is reloaded. Reports latency percentiles,
+ * throughput, errors and lost updates.
+ *
+ * The defaults keep the run short; tune it with system properties, for example
+ * {@code mvn test -Dtest=ChatLoadTest -Dchatmonitor.load.players=500 -Dchatmonitor.load.seconds=60}:
+ * <ul>
+ * <li>{@code chatmonitor.load.players} Number of players (default 200)</li>
+ * <li>{@code chatmonitor.load.threads} Number of sending threads (default 16)</li>
+ * <li>{@code chatmonitor.load.rate} Messages per second, over all threads (default 5000)</li>
+ * <li>{@code chatmonitor.load.seconds} Length of the run (default 3)</li>
+ * <li>{@code chatmonitor.load.reloads} Reloads spread over the run (default 10)</li>
+ * </ul>
+ *
+ * A lost update is a message whose verdict was wrong (a blocked word that got
+ * through, or a clean message that was cancelled), or a message missing from
+ * the load counters.
+ */
+public class ChatLoadTest {
+	private static final String BLOCKED = "you griefer";
+	private static final String CLEAN = "hello there, nice build";
+
+	private ServerMock server;
+	private ChatMonitor plugin;
+
+	@Before
+	public void setUp() throws IOException {
+		server = MockBukkit.mock();
+		plugin = (ChatMonitor) MockBukkit.load(ChatMonitor.class);
+
+		Path dataFolder = plugin.getDataFolder().toPath();
+		Files.createDirectories(dataFolder);
+		write(dataFolder.resolve("config.yml"),
+			"groups:",
+			"  - 'blocked'",
+			"  - 'extra'");
+		write(dataFolder.resolve("ChatMonitor_wordgroup_blocked.yml"),
+			"message: 'Not allowed.'",
+			"preventsend: true",
+			"broadcast: false",
+			"words:",
+			"  - '\\bgriefer\\b'",
+			"includecommands:",
+			"  - 'tell'",
+			"runcommands: []");
+		writeExtraGroup(dataFolder, 0);
+		reload();
+	}
+
+	@After
+	public void tearDown() {
+		MockBukkit.unmock();
+	}
+
+	@Test
+	public void testConcurrentChatWithReloads() throws Exception {
+		int playerCount = Integer.getInteger("chatmonitor.load.players", 200);
+		int threadCount = Math.min(playerCount, Integer.getInteger("chatmonitor.load.threads", 16));
+		int rate = Integer.getInteger("chatmonitor.load.rate", 5000);
+		int seconds = Integer.getInteger("chatmonitor.load.seconds", 3);
+		int reloads = Integer.getInteger("chatmonitor.load.reloads", 10);
+
+		List<Player> players = new ArrayList<>();
+		for (int i = 0; i < playerCount; i++) {
+			players.add(server.addPlayer());
+		}
+
+		OverloadController overload = plugin.getOverloadController();
+		long chatBefore = overload.getFullEvaluations() + overload.getQuickEvaluations();
+
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+		long intervalNanos = TimeUnit.SECONDS.toNanos(1) * threadCount / Math.max(1, rate);
+		AtomicLong errors = new AtomicLong();
+		AtomicLong lost = new AtomicLong();
+		AtomicLong chatSent = new AtomicLong();
+
+		// The listeners log failures instead of throwing them; count those as errors,
+		// and keep the log quiet otherwise
+		plugin.getLogger().setLevel(Level.WARNING);
+		plugin.getLogger().addHandler(new Handler() {
+			@Override
+			public void publish(LogRecord record) {
+				if (record.getMessage() != null && record.getMessage().startsWith("Could not process words")) {
+					errors.incrementAndGet();
+				}
+			}
+
+			@Override
+			public void flush() {
+			}
+
+			@Override
+			public void close() {
+			}
+		});
+
+		long[][] latencies = new long[threadCount][];
+		int[] counts = new int[threadCount];
+		CountDownLatch done = new CountDownLatch(threadCount);
+
+		for (int t = 0; t < threadCount; t++) {
+			int thread = t;
+			// Each player is only ever used by one thread, as on a real server
+			List<Player> ownPlayers = new ArrayList<>();
+			for (int p = thread; p < players.size(); p += threadCount) {
+				ownPlayers.add(players.get(p));
+			}
+			new Thread(() -> {
+				long[] samples = new long[1024];
+				int count = 0;
+				long next = System.nanoTime();
+				try {
+					for (int i = 0; System.nanoTime() < deadline; i++) {
+						Player player = ownPlayers.get(i % ownPlayers.size());
+						boolean blocked = i % 10 == 0;
+						boolean command = i % 7 == 0;
+
+						long start = System.nanoTime();
+						boolean cancelled;
+						try {
+							if (command) {
+								PlayerCommandPreprocessEvent event = new PlayerCommandPreprocessEvent(
+									player, "/tell someone " + (blocked ? BLOCKED : CLEAN)
+								);
+								plugin.onPlayerCommandPreprocessEvent(event);
+								cancelled = event.isCancelled();
+							} else {
+								AsyncPlayerChatEvent event = new AsyncPlayerChatEvent(
+									true, player, blocked ? BLOCKED : CLEAN, new HashSet<>()
+								);
+								plugin.onPlayerChat(event);
+								chatSent.incrementAndGet();
+								cancelled = event.isCancelled();
+							}
+						} catch (RuntimeException e) {
+							errors.incrementAndGet();
+							continue;
+						}
+						long elapsed = System.nanoTime() - start;
+
+						if (cancelled != blocked) {
+							lost.incrementAndGet();
+						}
+						if (count == samples.length) {
+							samples = Arrays.copyOf(samples, count * 2);
+						}
+						samples[count++] = elapsed;
+
+						next += intervalNanos;
+						long wait = next - System.nanoTime();
+						if (wait > 0) {
+							LockSupport.parkNanos(wait);
+						}
+					}
+				} finally {
+					latencies[thread] = samples;
+					counts[thread] = count;
+					done.countDown();
+				}
+			}, "ChatMonitor-load-" + t).start();
+		}
+
+		// Reload mid-run, changing the groups every time
+		Path dataFolder = plugin.getDataFolder().toPath();
+		long reloadInterval = TimeUnit.SECONDS.toNanos(seconds) / Math.max(1, reloads + 1);
+		for (int r = 1; r <= reloads; r++) {
+			LockSupport.parkNanos(reloadInterval);
+			try {
+				writeExtraGroup(dataFolder, r);
+				reload();
+			} catch (RuntimeException e) {
+				errors.incrementAndGet();
+			}
+		}
+
+		assertTrue("Load threads did not finish", done.await(seconds + 60, TimeUnit.SECONDS));
+
+		int total = 0;
+		for (int count : counts) {
+			total += count;
+		}
+		long[] all = new long[total];
+		int at = 0;
+		for (int t = 0; t < threadCount; t++) {
+			System.arraycopy(latencies[t], 0, all, at, counts[t]);
+			at += counts[t];
+		}
+		Arrays.sort(all);
+
+		long chatCounted = overload.getFullEvaluations() + overload.getQuickEvaluations() - chatBefore;
+		if (chatCounted != chatSent.get()) {
+			lost.addAndGet(Math.abs(chatSent.get() - chatCounted));
+		}
+
+		System.out.println(String.format(
+			"ChatMonitor load test: %d players, %d threads, %d reloads%n"
+				+ "  messages: %d (%.0f/s)%n"
+				+ "  latency: p50 %d us, p99 %d us, p999 %d us, max %d us%n"
+				+ "  errors: %d, lost updates: %d, load mode changes: %d",
+			playerCount, threadCount, reloads,
+			total, total / (double) seconds,
+			micros(percentile(all, 0.5)), micros(percentile(all, 0.99)), micros(percentile(all, 0.999)),
+			micros(all.length == 0 ? 0 : all[all.length - 1]),
+			errors.get(), lost.get(), overload.getModeChanges()
+		));
+
+		assertTrue(total > 0);
+		assertEquals(0, errors.get());
+		assertEquals(0, lost.get());
+	}
+
+	private void reload() {
+		plugin.getWordManager().wordCollector.reload();
+		plugin.applyLoadSettings();
+	}
+
+	/**
+	 * Write a group with different words every time, so each reload
+	 * has something to compile. None of its words are ever sent.
+	 */
+	private static void writeExtraGroup(Path dataFolder, int generation) throws IOException {
+		write(dataFolder.resolve("ChatMonitor_wordgroup_extra.yml"),
+			"message: 'Generation " + generation + "'",
+			"preventsend: false",
+			"words:",
+			"  - 'unused" + generation + "'",
+			"  - '\\bnever" + generation + "\\b'",
+			"runcommands: []");
+	}
+
+	private static void write(Path file, String... lines) throws IOException {
+		Files.write(file, Arrays.asList(lines), StandardCharsets.UTF_8);
+	}
+
+	private static long percentile(long[] sorted, double fraction) {
+		if (sorted.length == 0) {
+			return 0;
+		}
+		return sorted[Math.min(sorted.length - 1, (int) Math.ceil(fraction * sorted.length) - 1)];
+	}
+
+	private static long micros(long nanos) {
+		return TimeUnit.NANOSECONDS.toMicros(nanos);
+	}
+}